@@ -1,20 +1,29 @@
 package com.webapp.security.admin.config;
 
+import com.webapp.security.core.authority.AuthoritySetJwtAuthenticationConverter;
+import com.webapp.security.core.authority.AuthoritySetMethodSecurityExpressionHandler;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.OAuth2ResourceServerProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionHandler;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
-import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.web.client.RestOperations;
+import org.springframework.web.client.RestTemplate;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * 安全配置
@@ -64,19 +73,41 @@ public class SecurityConfig {
 
     /**
      * 自定义JWT认证转换器
-     * 用于从JWT令牌中提取权限信息
+     * 用于从JWT令牌的"authorities"字段提取权限信息（无前缀），权限以驻留的位图集合表示
      */
     @Bean
-    public JwtAuthenticationConverter jwtAuthenticationConverter() {
-        JwtGrantedAuthoritiesConverter authoritiesConverter = new JwtGrantedAuthoritiesConverter();
-        // 设置权限信息来源于JWT的"authorities"字段
-        authoritiesConverter.setAuthoritiesClaimName("authorities");
-        // 设置权限前缀为空（避免添加"SCOPE_"前缀）
-        authoritiesConverter.setAuthorityPrefix("");
+    public AuthoritySetJwtAuthenticationConverter jwtAuthenticationConverter() {
+        return new AuthoritySetJwtAuthenticationConverter("authorities");
+    }
+
+    /**
+     * JWT解码器
+     * 按jws-algorithms同时接受RS256和ES256签名。按issuer-uri发现的解码器只在创建时读取一次JWKS中的算法，
+     * SSO切换签名算法后会拒绝新令牌直到重启；这里按JWKS地址校验，密钥随JWKS刷新
+     */
+    @Bean
+    public JwtDecoder jwtDecoder(OAuth2ResourceServerProperties properties) {
+        OAuth2ResourceServerProperties.Jwt jwt = properties.getJwt();
+        return jwtDecoder(jwt.getIssuerUri(), jwt.getJwkSetUri(), jwt.getJwsAlgorithms(), new RestTemplate());
+    }
 
-        JwtAuthenticationConverter jwtConverter = new JwtAuthenticationConverter();
-        jwtConverter.setJwtGrantedAuthoritiesConverter(authoritiesConverter);
-        return jwtConverter;
+    static NimbusJwtDecoder jwtDecoder(String issuerUri, String jwkSetUri, List<String> jwsAlgorithms,
+            RestOperations restOperations) {
+        NimbusJwtDecoder decoder = NimbusJwtDecoder.withJwkSetUri(jwkSetUri)
+                .jwsAlgorithms(algorithms -> jwsAlgorithms
+                        .forEach(algorithm -> algorithms.add(SignatureAlgorithm.from(algorithm))))
+                .restOperations(restOperations)
+                .build();
+        decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(issuerUri));
+        return decoder;
+    }
+
+    /**
+     * 方法安全表达式处理器，@PreAuthorize中的hasAuthority按位图判断
+     */
+    @Bean
+    public static MethodSecurityExpressionHandler methodSecurityExpressionHandler() {
+        return new AuthoritySetMethodSecurityExpressionHandler();
     }
 
     @Bean
@@ -0,0 +1,74 @@
+package com.webapp.security.admin.controller.sysquotausage;
+
+import com.webapp.security.admin.controller.sysquotausage.vo.QuotaUsageVO;
+import com.webapp.security.admin.converter.QuotaUsageConverter;
+import com.webapp.security.core.entity.SysQuotaUsage;
+import com.webapp.security.core.entity.SysResource;
+import com.webapp.security.core.model.ResponseResult;
+import com.webapp.security.core.service.SysQuotaUsageService;
+import com.webapp.security.core.service.SysResourceService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * OPENAPI每日调用量查询
+ * 数据由SSO服务定时写入，相对实时计数有一个写入周期的延迟
+ */
+@RestController
+@RequestMapping("/api/sys-quota-usage")
+@RequiredArgsConstructor
+public class SysQuotaUsageController {
+
+    private final SysQuotaUsageService quotaUsageService;
+    private final SysResourceService resourceService;
+    private final QuotaUsageConverter quotaUsageConverter;
+
+    /**
+     * SSO服务计数使用的日期边界时区
+     */
+    @Value("${oauth2.quota.zone:Asia/Shanghai}")
+    private ZoneId quotaZone;
+
+    /**
+     * 查询某日的调用量，默认为计数时区的当天
+     */
+    @GetMapping
+    @PreAuthorize("hasAuthority('OPENAPI_RESOURCE_QUERY')")
+    public ResponseResult<List<QuotaUsageVO>> list(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) String appId) {
+        try {
+            List<SysQuotaUsage> usages = quotaUsageService.listUsages(date != null ? date : LocalDate.now(quotaZone), appId);
+            List<QuotaUsageVO> vos = quotaUsageConverter.toVOList(usages);
+
+            // 补充资源名称与每日上限
+            Set<Long> resourceIds = usages.stream().map(SysQuotaUsage::getResourceId).collect(Collectors.toSet());
+            if (!resourceIds.isEmpty()) {
+                Map<Long, SysResource> resources = resourceService.listByIds(resourceIds).stream()
+                        .collect(Collectors.toMap(SysResource::getResourceId, Function.identity()));
+                for (QuotaUsageVO vo : vos) {
+                    SysResource resource = resources.get(vo.getResourceId());
+                    if (resource != null) {
+                        vo.setResourceCode(resource.getResourceCode());
+                        vo.setResourceName(resource.getResourceName());
+                        vo.setDailyQuota(resource.getDailyQuota());
+                    }
+                }
+            }
+            return ResponseResult.success(vos);
+        } catch (Exception e) {
+            return ResponseResult.failed("查询失败: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.webapp.security.admin.controller.sysquotausage.vo;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+public class QuotaUsageVO {
+    private String appId;
+    private Long resourceId;
+    private String resourceCode;
+    private String resourceName;
+    private Integer dailyQuota;
+    private LocalDate usageDate;
+    private Long usedCount;
+}
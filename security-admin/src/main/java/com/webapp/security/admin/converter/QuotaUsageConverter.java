@@ -0,0 +1,14 @@
+package com.webapp.security.admin.converter;
+
+import com.webapp.security.admin.controller.sysquotausage.vo.QuotaUsageVO;
+import com.webapp.security.core.entity.SysQuotaUsage;
+import org.mapstruct.Mapper;
+
+import java.util.List;
+
+@Mapper(componentModel = "spring")
+public interface QuotaUsageConverter {
+    QuotaUsageVO toVO(SysQuotaUsage entity);
+
+    List<QuotaUsageVO> toVOList(List<SysQuotaUsage> list);
+}
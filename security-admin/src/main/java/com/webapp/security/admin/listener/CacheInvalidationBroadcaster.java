@@ -0,0 +1,97 @@
+package com.webapp.security.admin.listener;
+
+import com.webapp.security.core.event.ClientCredentialChangedEvent;
+import com.webapp.security.core.event.ResourceChangedEvent;
+import com.webapp.security.core.event.RolePermissionChangedEvent;
+import com.webapp.security.core.event.UserPermissionChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.stream.Collectors;
+
+/**
+ * 缓存失效广播
+ * 管理端修改的数据缓存在SSO服务中，通过Redis发布订阅通知SSO各节点清除
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheInvalidationBroadcaster {
+
+    /**
+     * 与SSO服务CredentialVerificationCache约定的凭证域
+     */
+    private static final String CLIENT_CREDENTIAL_REALM = "client-credential";
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${oauth2.credential-cache.evict-channel:oauth2:credential-cache:evict}")
+    private String credentialEvictChannel;
+
+    @Value("${oauth2.resource-matcher.reload-channel:oauth2:resource-matcher:reload}")
+    private String resourceReloadChannel;
+
+    @Value("${oauth2.user-permission-cache.evict-channel:oauth2:user-permission-cache:evict}")
+    private String userPermissionEvictChannel;
+
+    @Value("${oauth2.user-permission-index.reload-channel:oauth2:user-permission-index:reload}")
+    private String rolePermissionReloadChannel;
+
+    /**
+     * 凭证启用、禁用后清除SSO服务中的凭证校验缓存
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onClientCredentialChanged(ClientCredentialChangedEvent event) {
+        try {
+            redisTemplate.convertAndSend(credentialEvictChannel, CLIENT_CREDENTIAL_REALM + "\n" + event.getAppId());
+        } catch (Exception e) {
+            // 广播失败时SSO侧的缓存在TTL后自然过期，且每次请求仍会校验凭证状态
+            log.warn("Failed to broadcast credential cache eviction, appId: {}", event.getAppId(), e);
+        }
+    }
+
+    /**
+     * 资源新增、修改、删除后通知SSO服务重建资源匹配树
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onResourceChanged(ResourceChangedEvent event) {
+        try {
+            redisTemplate.convertAndSend(resourceReloadChannel, String.valueOf(event.getResourceId()));
+        } catch (Exception e) {
+            // 广播失败时SSO服务在定时重建时加载变更
+            log.warn("Failed to broadcast resource matcher reload, resourceId: {}", event.getResourceId(), e);
+        }
+    }
+
+    /**
+     * 用户角色分配、状态、密码变更提交后清除SSO服务中的用户缓存并重新加载用户的角色
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserPermissionChanged(UserPermissionChangedEvent event) {
+        String userIds = event.getUserIds().stream().map(String::valueOf).collect(Collectors.joining(","));
+        try {
+            redisTemplate.convertAndSend(userPermissionEvictChannel, userIds);
+        } catch (Exception e) {
+            // 广播失败时SSO侧的缓存在TTL后自然过期，用户角色在定时重建索引时加载
+            log.warn("Failed to broadcast user permission cache eviction, userIds: {}", userIds, e);
+        }
+    }
+
+    /**
+     * 角色权限分配、角色或权限变更提交后通知SSO服务重算这些角色的权限集合
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRolePermissionChanged(RolePermissionChangedEvent event) {
+        String roleIds = event.getRoleIds().stream().map(String::valueOf).collect(Collectors.joining(","));
+        try {
+            redisTemplate.convertAndSend(rolePermissionReloadChannel, roleIds);
+        } catch (Exception e) {
+            // 广播失败时SSO服务在定时重建索引时加载变更
+            log.warn("Failed to broadcast role permission reload, roleIds: {}", roleIds, e);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.webapp.security.admin.listener;
+
+import com.webapp.security.core.cache.CredentialPermissionSnapshotStore;
+import com.webapp.security.core.event.ClientCredentialChangedEvent;
+import com.webapp.security.core.event.CredentialPermissionChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collections;
+
+/**
+ * OpenAPI凭证权限快照重建
+ * 授权、资源或凭证状态变更提交后，按应用ID重建SSO服务使用的Redis权限快照，并广播通知SSO各节点清除本地快照
+ */
+@Component
+@RequiredArgsConstructor
+public class CredentialPermissionSnapshotRebuilder {
+
+    private final CredentialPermissionSnapshotStore snapshotStore;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCredentialPermissionChanged(CredentialPermissionChangedEvent event) {
+        snapshotStore.rebuild(event.getAppIds());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onClientCredentialChanged(ClientCredentialChangedEvent event) {
+        snapshotStore.rebuild(Collections.singletonList(event.getAppId()));
+    }
+}
@@ -0,0 +1,11 @@
+-- OPENAPI 每日调用量（SSO 服务按凭证+资源计数后批量写入）
+CREATE TABLE IF NOT EXISTS sys_quota_usage (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '主键ID',
+    app_id VARCHAR(100) NOT NULL COMMENT '应用唯一标识（AppID）',
+    resource_id BIGINT NOT NULL COMMENT '关联 sys_resource.resource_id',
+    usage_date DATE NOT NULL COMMENT '统计日期',
+    used_count BIGINT NOT NULL DEFAULT 0 COMMENT '当日已调用次数',
+    update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    UNIQUE KEY uk_app_resource_date (app_id, resource_id, usage_date),
+    INDEX idx_usage_date (usage_date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='OPENAPI每日调用量表';
@@ -0,0 +1,19 @@
+-- 用户授权版本：用户角色分配、状态，或其角色、权限变更时递增
+-- SSO 刷新令牌时版本未变化则复用授权记录中的权限，不再重新查询
+-- 管理端（递增版本）与SSO（V10，读取版本）各自包含本迁移，按列是否存在执行，部署先后顺序不限
+
+-- 安全地添加授权版本列（不使用存储过程，避免DELIMITER问题）
+SET @columnExists = (
+    SELECT COUNT(*)
+    FROM information_schema.COLUMNS
+    WHERE TABLE_SCHEMA = DATABASE()
+    AND TABLE_NAME = 'sys_user'
+    AND COLUMN_NAME = 'auth_version'
+);
+
+SET @sql = IF(@columnExists = 0,
+    'ALTER TABLE sys_user ADD COLUMN auth_version BIGINT NOT NULL DEFAULT 0 COMMENT \'授权版本\' AFTER status',
+    'SELECT 1');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
@@ -0,0 +1,125 @@
+package com.webapp.security.admin.config;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.RequestEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 管理端JWT解码器测试
+ * SSO服务切换签名算法前后签发的令牌都应通过校验
+ */
+public class SecurityConfigTest {
+
+    private static final String ISSUER = "http://127.0.0.1:9000";
+    private static final String JWK_SET_URI = ISSUER + "/oauth2/jwks";
+
+    private final List<JWK> publishedKeys = new ArrayList<>();
+    private JwtDecoder jwtDecoder;
+
+    @BeforeEach
+    public void setUp() {
+        jwtDecoder = SecurityConfig.jwtDecoder(ISSUER, JWK_SET_URI, Arrays.asList("RS256", "ES256"),
+                new JwkSetRestTemplate());
+    }
+
+    /**
+     * 测试ES256签名的令牌通过校验
+     */
+    @Test
+    public void testDecodeEs256Token() throws Exception {
+        ECKey key = new ECKeyGenerator(Curve.P_256).keyID("ec-1").generate();
+        publishedKeys.add(key.toPublicJWK());
+
+        Jwt jwt = jwtDecoder.decode(sign(new ECDSASigner(key), JWSAlgorithm.ES256, key.getKeyID(), ISSUER));
+
+        assertEquals("admin", jwt.getSubject());
+        assertEquals("ES256", String.valueOf(jwt.getHeaders().get("alg")));
+    }
+
+    /**
+     * 测试JWKS同时发布RSA和EC密钥时，切换算法前后签发的令牌都通过校验
+     */
+    @Test
+    public void testDecodeTokensAcrossAlgorithmSwitch() throws Exception {
+        RSAKey rsaKey = new RSAKeyGenerator(2048).keyID("rsa-1").generate();
+        ECKey ecKey = new ECKeyGenerator(Curve.P_256).keyID("ec-1").generate();
+        publishedKeys.add(rsaKey.toPublicJWK());
+        publishedKeys.add(ecKey.toPublicJWK());
+
+        String rsaToken = sign(new RSASSASigner(rsaKey), JWSAlgorithm.RS256, rsaKey.getKeyID(), ISSUER);
+        String ecToken = sign(new ECDSASigner(ecKey), JWSAlgorithm.ES256, ecKey.getKeyID(), ISSUER);
+
+        assertEquals("admin", jwtDecoder.decode(rsaToken).getSubject());
+        assertEquals("admin", jwtDecoder.decode(ecToken).getSubject());
+    }
+
+    /**
+     * 测试签发方不一致的令牌被拒绝
+     */
+    @Test
+    public void testRejectOtherIssuer() throws Exception {
+        ECKey key = new ECKeyGenerator(Curve.P_256).keyID("ec-1").generate();
+        publishedKeys.add(key.toPublicJWK());
+
+        String token = sign(new ECDSASigner(key), JWSAlgorithm.ES256, key.getKeyID(), "http://other");
+
+        assertThrows(JwtValidationException.class, () -> jwtDecoder.decode(token));
+    }
+
+    private static String sign(JWSSigner signer, JWSAlgorithm algorithm, String keyId, String issuer)
+            throws JOSEException {
+        Instant now = Instant.now();
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .issuer(issuer)
+                .subject("admin")
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plusSeconds(300)))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(algorithm).keyID(keyId).build(), claims);
+        jwt.sign(signer);
+        return jwt.serialize();
+    }
+
+    /**
+     * 返回当前发布的JWKS，代替访问SSO服务的jwk-set-uri
+     */
+    private final class JwkSetRestTemplate extends RestTemplate {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> ResponseEntity<T> exchange(RequestEntity<?> requestEntity, Class<T> responseType) {
+            assertEquals(JWK_SET_URI, requestEntity.getUrl().toString());
+            return new ResponseEntity<>((T) new JWKSet(publishedKeys).toString(), HttpStatus.OK);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.webapp.security.core.authority;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 全局权限驻留表
+ * 权限编码首次出现时分配连续的整数ID，之后始终返回同一个InternedAuthority实例；
+ * 权限编码来自数据库或已验签的令牌，数量与系统中的权限数同阶，不做淘汰
+ */
+public final class AuthorityRegistry {
+
+    private static final ConcurrentMap<String, InternedAuthority> BY_AUTHORITY = new ConcurrentHashMap<>();
+
+    /**
+     * 按ID索引的权限，先写入数组再发布到BY_AUTHORITY，读到权限实例的线程一定能按其ID读到数组元素
+     */
+    private static volatile InternedAuthority[] byId = new InternedAuthority[256];
+
+    private static int nextId;
+
+    private AuthorityRegistry() {
+    }
+
+    /**
+     * 驻留权限编码
+     */
+    public static InternedAuthority intern(String authority) {
+        InternedAuthority interned = BY_AUTHORITY.get(authority);
+        return interned != null ? interned : register(authority);
+    }
+
+    /**
+     * 查找已驻留的权限，不存在时返回null（不分配新ID）
+     */
+    public static InternedAuthority find(String authority) {
+        return authority != null ? BY_AUTHORITY.get(authority) : null;
+    }
+
+    /**
+     * 按ID获取权限
+     */
+    public static InternedAuthority get(int id) {
+        return byId[id];
+    }
+
+    /**
+     * 已驻留的权限数，也是下一个分配的ID
+     */
+    public static synchronized int size() {
+        return nextId;
+    }
+
+    private static synchronized InternedAuthority register(String authority) {
+        if (authority == null || authority.isEmpty()) {
+            throw new IllegalArgumentException("authority cannot be empty");
+        }
+        InternedAuthority interned = BY_AUTHORITY.get(authority);
+        if (interned != null) {
+            return interned;
+        }
+        interned = new InternedAuthority(nextId, authority);
+        InternedAuthority[] table = byId;
+        if (nextId == table.length) {
+            table = Arrays.copyOf(table, table.length * 2);
+        }
+        table[nextId++] = interned;
+        byId = table;
+        BY_AUTHORITY.put(authority, interned);
+        return interned;
+    }
+}
@@ -0,0 +1,221 @@
+package com.webapp.security.core.authority;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * 以位图表示的不可变权限集合
+ * 元素为AuthorityRegistry驻留的权限，按权限ID置位；contains和hasAuthority为O(1)，
+ * 迭代时按ID顺序返回驻留实例，不分配新的GrantedAuthority对象
+ */
+public final class AuthoritySet extends AbstractSet<GrantedAuthority> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final AuthoritySet EMPTY = new AuthoritySet(new long[0], 0);
+
+    private final transient long[] words;
+    private final transient int size;
+
+    private AuthoritySet(long[] words, int size) {
+        this.words = words;
+        this.size = size;
+    }
+
+    public static AuthoritySet empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 由权限编码构建
+     */
+    public static AuthoritySet of(Collection<String> authorities) {
+        if (authorities == null || authorities.isEmpty()) {
+            return EMPTY;
+        }
+        Builder builder = new Builder();
+        for (String authority : authorities) {
+            builder.add(AuthorityRegistry.intern(authority));
+        }
+        return builder.build();
+    }
+
+    /**
+     * 由任意GrantedAuthority集合构建，已是AuthoritySet时直接返回
+     */
+    public static AuthoritySet copyOf(Collection<? extends GrantedAuthority> authorities) {
+        if (authorities instanceof AuthoritySet) {
+            return (AuthoritySet) authorities;
+        }
+        if (authorities == null || authorities.isEmpty()) {
+            return EMPTY;
+        }
+        Builder builder = new Builder();
+        for (GrantedAuthority authority : authorities) {
+            builder.add(authority instanceof InternedAuthority ? (InternedAuthority) authority
+                    : AuthorityRegistry.intern(authority.getAuthority()));
+        }
+        return builder.build();
+    }
+
+    /**
+     * 是否包含指定权限编码，O(1)
+     */
+    public boolean hasAuthority(String authority) {
+        InternedAuthority interned = AuthorityRegistry.find(authority);
+        return interned != null && containsId(interned.getId());
+    }
+
+    /**
+     * 是否包含任一权限编码
+     */
+    public boolean hasAnyAuthority(String... authorities) {
+        for (String authority : authorities) {
+            if (hasAuthority(authority)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean containsId(int id) {
+        int index = id >>> 6;
+        return index < words.length && (words[index] & (1L << id)) != 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (o instanceof InternedAuthority) {
+            return containsId(((InternedAuthority) o).getId());
+        }
+        return o instanceof GrantedAuthority && hasAuthority(((GrantedAuthority) o).getAuthority());
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<GrantedAuthority> iterator() {
+        return new Iterator<GrantedAuthority>() {
+            private int index;
+            private long word = words.length > 0 ? words[0] : 0;
+
+            @Override
+            public boolean hasNext() {
+                while (word == 0) {
+                    if (++index >= words.length) {
+                        return false;
+                    }
+                    word = words[index];
+                }
+                return true;
+            }
+
+            @Override
+            public GrantedAuthority next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int bit = Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                return AuthorityRegistry.get((index << 6) + bit);
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof AuthoritySet) {
+            AuthoritySet other = (AuthoritySet) o;
+            return size == other.size && Arrays.equals(words, other.words);
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    /**
+     * 序列化时只写入权限编码，ID只在本进程内有效
+     */
+    private Object writeReplace() {
+        List<String> authorities = new ArrayList<>(size);
+        for (GrantedAuthority authority : this) {
+            authorities.add(authority.getAuthority());
+        }
+        return new SerializedForm(authorities.toArray(new String[0]));
+    }
+
+    private static final class SerializedForm implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String[] authorities;
+
+        private SerializedForm(String[] authorities) {
+            this.authorities = authorities;
+        }
+
+        private Object readResolve() {
+            return of(Arrays.asList(authorities));
+        }
+    }
+
+    /**
+     * 逐个添加权限构建AuthoritySet
+     */
+    public static final class Builder {
+        private long[] words = new long[(AuthorityRegistry.size() >>> 6) + 1];
+        private int size;
+
+        public Builder add(InternedAuthority authority) {
+            int id = authority.getId();
+            int index = id >>> 6;
+            if (index >= words.length) {
+                words = Arrays.copyOf(words, Math.max(index + 1, words.length * 2));
+            }
+            long mask = 1L << id;
+            if ((words[index] & mask) == 0) {
+                words[index] |= mask;
+                size++;
+            }
+            return this;
+        }
+
+        public Builder addAll(AuthoritySet authorities) {
+            if (authorities.words.length > words.length) {
+                words = Arrays.copyOf(words, authorities.words.length);
+            }
+            size = 0;
+            for (int i = 0; i < words.length; i++) {
+                if (i < authorities.words.length) {
+                    words[i] |= authorities.words[i];
+                }
+                size += Long.bitCount(words[i]);
+            }
+            return this;
+        }
+
+        public AuthoritySet build() {
+            if (size == 0) {
+                return EMPTY;
+            }
+            int length = words.length;
+            while (length > 0 && words[length - 1] == 0) {
+                length--;
+            }
+            return new AuthoritySet(Arrays.copyOf(words, length), size);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.webapp.security.core.authority;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * JWT认证转换器
+ * 从authorities声明构建AuthoritySet，认证对象直接返回该集合而不是复制成新的列表
+ */
+public class AuthoritySetJwtAuthenticationConverter implements Converter<Jwt, AbstractAuthenticationToken> {
+
+    private final String authoritiesClaimName;
+
+    public AuthoritySetJwtAuthenticationConverter(String authoritiesClaimName) {
+        this.authoritiesClaimName = authoritiesClaimName;
+    }
+
+    @Override
+    public AbstractAuthenticationToken convert(Jwt jwt) {
+        List<String> authorities = jwt.getClaimAsStringList(authoritiesClaimName);
+        return new AuthoritySetJwtAuthenticationToken(jwt, AuthoritySet.of(authorities));
+    }
+
+    /**
+     * getAuthorities()返回AuthoritySet的JwtAuthenticationToken
+     */
+    public static class AuthoritySetJwtAuthenticationToken extends JwtAuthenticationToken {
+
+        private static final long serialVersionUID = 1L;
+
+        private final AuthoritySet authoritySet;
+
+        public AuthoritySetJwtAuthenticationToken(Jwt jwt, AuthoritySet authorities) {
+            super(jwt, authorities, jwt.getSubject());
+            this.authoritySet = authorities;
+        }
+
+        @Override
+        public Collection<GrantedAuthority> getAuthorities() {
+            return authoritySet;
+        }
+    }
+}
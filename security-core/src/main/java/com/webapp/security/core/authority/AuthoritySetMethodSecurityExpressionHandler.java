@@ -0,0 +1,132 @@
+package com.webapp.security.core.authority;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionOperations;
+import org.springframework.security.core.Authentication;
+
+/**
+ * 方法安全表达式处理器
+ * 认证对象的权限为AuthoritySet时，hasAuthority/hasAnyAuthority直接按位图判断，
+ * 不再为每次@PreAuthorize求值构建权限字符串集合；其余表达式由默认实现处理
+ */
+public class AuthoritySetMethodSecurityExpressionHandler extends DefaultMethodSecurityExpressionHandler {
+
+    @Override
+    protected MethodSecurityExpressionOperations createSecurityExpressionRoot(Authentication authentication,
+            MethodInvocation invocation) {
+        MethodSecurityExpressionOperations root = super.createSecurityExpressionRoot(authentication, invocation);
+        if (authentication != null && authentication.getAuthorities() instanceof AuthoritySet) {
+            return new AuthoritySetSecurityExpressionRoot(root, (AuthoritySet) authentication.getAuthorities());
+        }
+        return root;
+    }
+
+    /**
+     * 权限判断走位图，其余方法委托给默认的表达式根对象
+     */
+    public static class AuthoritySetSecurityExpressionRoot implements MethodSecurityExpressionOperations {
+
+        private final MethodSecurityExpressionOperations delegate;
+        private final AuthoritySet authorities;
+
+        AuthoritySetSecurityExpressionRoot(MethodSecurityExpressionOperations delegate, AuthoritySet authorities) {
+            this.delegate = delegate;
+            this.authorities = authorities;
+        }
+
+        @Override
+        public boolean hasAuthority(String authority) {
+            return authorities.hasAuthority(authority);
+        }
+
+        @Override
+        public boolean hasAnyAuthority(String... authorities) {
+            return this.authorities.hasAnyAuthority(authorities);
+        }
+
+        @Override
+        public boolean hasRole(String role) {
+            return delegate.hasRole(role);
+        }
+
+        @Override
+        public boolean hasAnyRole(String... roles) {
+            return delegate.hasAnyRole(roles);
+        }
+
+        @Override
+        public Authentication getAuthentication() {
+            return delegate.getAuthentication();
+        }
+
+        public Object getPrincipal() {
+            return getAuthentication().getPrincipal();
+        }
+
+        @Override
+        public boolean permitAll() {
+            return delegate.permitAll();
+        }
+
+        @Override
+        public boolean denyAll() {
+            return delegate.denyAll();
+        }
+
+        @Override
+        public boolean isAnonymous() {
+            return delegate.isAnonymous();
+        }
+
+        @Override
+        public boolean isAuthenticated() {
+            return delegate.isAuthenticated();
+        }
+
+        @Override
+        public boolean isRememberMe() {
+            return delegate.isRememberMe();
+        }
+
+        @Override
+        public boolean isFullyAuthenticated() {
+            return delegate.isFullyAuthenticated();
+        }
+
+        @Override
+        public boolean hasPermission(Object target, Object permission) {
+            return delegate.hasPermission(target, permission);
+        }
+
+        @Override
+        public boolean hasPermission(Object targetId, String targetType, Object permission) {
+            return delegate.hasPermission(targetId, targetType, permission);
+        }
+
+        @Override
+        public void setFilterObject(Object filterObject) {
+            delegate.setFilterObject(filterObject);
+        }
+
+        @Override
+        public Object getFilterObject() {
+            return delegate.getFilterObject();
+        }
+
+        @Override
+        public void setReturnObject(Object returnObject) {
+            delegate.setReturnObject(returnObject);
+        }
+
+        @Override
+        public Object getReturnObject() {
+            return delegate.getReturnObject();
+        }
+
+        @Override
+        public Object getThis() {
+            return delegate.getThis();
+        }
+    }
+}
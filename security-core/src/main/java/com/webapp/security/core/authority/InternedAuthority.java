@@ -0,0 +1,62 @@
+package com.webapp.security.core.authority;
+
+import org.springframework.security.core.GrantedAuthority;
+
+/**
+ * 驻留的权限
+ * 每个权限编码在进程内只有一个实例，并分配一个连续的整数ID用于AuthoritySet的位图；
+ * ID只在本进程内有效，序列化时只写入权限编码，反序列化后重新驻留
+ */
+public final class InternedAuthority implements GrantedAuthority {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient int id;
+    private final String authority;
+
+    InternedAuthority(int id, String authority) {
+        this.id = id;
+        this.authority = authority;
+    }
+
+    /**
+     * 驻留权限编码，等同于AuthorityRegistry.intern
+     */
+    public static InternedAuthority of(String authority) {
+        return AuthorityRegistry.intern(authority);
+    }
+
+    /**
+     * 进程内的权限ID
+     */
+    public int getId() {
+        return id;
+    }
+
+    @Override
+    public String getAuthority() {
+        return authority;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        return obj instanceof InternedAuthority && authority.equals(((InternedAuthority) obj).authority);
+    }
+
+    @Override
+    public int hashCode() {
+        return authority.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return authority;
+    }
+
+    private Object readResolve() {
+        return AuthorityRegistry.intern(authority);
+    }
+}
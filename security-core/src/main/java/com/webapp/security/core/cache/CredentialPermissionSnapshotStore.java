@@ -0,0 +1,124 @@
+package com.webapp.security.core.cache;
+
+import com.webapp.security.core.service.SysCredentialResourceRelService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * OpenAPI凭证权限快照的Redis存储（管理端与SSO服务共用）
+ * Redis Hash：字段为应用ID，值为空格分隔的有效权限代码（凭证启用且资源启用）。
+ * 变更方按应用ID从数据库重建条目后在失效频道广播应用ID，SSO各节点据此清除本地快照；
+ * 读取未命中时从数据库加载并以HSETNX回写，不会覆盖变更方写入的新快照。
+ */
+@Slf4j
+@Component
+public class CredentialPermissionSnapshotStore {
+
+    public static final String DEFAULT_REDIS_KEY = "oauth2:credential-permissions";
+    public static final String DEFAULT_EVICT_CHANNEL = "oauth2:credential-permissions:evict";
+
+    private final SysCredentialResourceRelService credentialResourceRelService;
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${oauth2.permission-snapshot.redis-key:" + DEFAULT_REDIS_KEY + "}")
+    private String redisKey;
+
+    @Value("${oauth2.permission-snapshot.evict-channel:" + DEFAULT_EVICT_CHANNEL + "}")
+    private String evictChannel;
+
+    public CredentialPermissionSnapshotStore(SysCredentialResourceRelService credentialResourceRelService,
+            StringRedisTemplate redisTemplate) {
+        this.credentialResourceRelService = credentialResourceRelService;
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * 快照重建广播频道，消息体为应用ID
+     */
+    public String getEvictChannel() {
+        return evictChannel;
+    }
+
+    /**
+     * 读取凭证的有效权限代码，Redis未命中或不可用时从数据库加载
+     *
+     * @param appId 应用ID
+     * @return 不可修改的权限代码列表，凭证不存在或已禁用时为空列表
+     */
+    public List<String> load(String appId) {
+        try {
+            Object cached = redisTemplate.opsForHash().get(redisKey, appId);
+            if (cached != null) {
+                return parse((String) cached);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to read credential permission snapshot from redis, appId: {}", appId, e);
+        }
+
+        List<String> permissions = credentialResourceRelService.listActivePermissionCodes(appId);
+        try {
+            redisTemplate.opsForHash().putIfAbsent(redisKey, appId, String.join(" ", permissions));
+        } catch (Exception e) {
+            log.warn("Failed to write credential permission snapshot to redis, appId: {}", appId, e);
+        }
+        return Collections.unmodifiableList(permissions);
+    }
+
+    /**
+     * 按数据库重建指定凭证的快照，并广播通知SSO各节点清除本地条目
+     *
+     * @param appIds 应用ID
+     */
+    public void rebuild(Collection<String> appIds) {
+        if (appIds.isEmpty()) {
+            return;
+        }
+        Map<String, String> snapshots = new LinkedHashMap<>();
+        for (String appId : appIds) {
+            snapshots.put(appId, String.join(" ", credentialResourceRelService.listActivePermissionCodes(appId)));
+        }
+        try {
+            redisTemplate.opsForHash().putAll(redisKey, snapshots);
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                    RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                    for (String appId : snapshots.keySet()) {
+                        ops.convertAndSend(evictChannel, appId);
+                    }
+                    return null;
+                }
+            });
+            log.debug("Rebuilt credential permission snapshot, appIds: {}", appIds);
+        } catch (Exception e) {
+            // 重建失败时删除旧快照，下次读取时回源数据库
+            log.warn("Failed to rebuild credential permission snapshot, appIds: {}", appIds, e);
+            try {
+                redisTemplate.opsForHash().delete(redisKey, snapshots.keySet().toArray());
+            } catch (Exception ignored) {
+                // Redis不可用，SSO本地快照在TTL后过期
+            }
+        }
+    }
+
+    private static List<String> parse(String value) {
+        if (!StringUtils.hasText(value)) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(Arrays.asList(value.split(" ")));
+    }
+}
@@ -0,0 +1,55 @@
+package com.webapp.security.core.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * OPENAPI每日调用量实体类
+ * 按凭证+资源+日期记录调用次数，用于执行资源的每日调用上限
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@TableName("sys_quota_usage")
+public class SysQuotaUsage {
+
+    /**
+     * 主键ID
+     */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 应用ID
+     */
+    @TableField("app_id")
+    private String appId;
+
+    /**
+     * 资源ID
+     * 关联sys_resource表的resource_id字段
+     */
+    @TableField("resource_id")
+    private Long resourceId;
+
+    /**
+     * 统计日期
+     */
+    @TableField("usage_date")
+    private LocalDate usageDate;
+
+    /**
+     * 当日已调用次数
+     */
+    @TableField("used_count")
+    private Long usedCount;
+
+    /**
+     * 更新时间
+     */
+    @TableField("update_time")
+    private LocalDateTime updateTime;
+}
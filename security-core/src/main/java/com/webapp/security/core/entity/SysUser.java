@@ -56,6 +56,12 @@ public class SysUser {
     @TableField("status")
     private Integer status;
 
+    /**
+     * 授权版本：角色分配、状态或所属角色、权限变更时递增
+     */
+    @TableField("auth_version")
+    private Long authVersion;
+
     /**
      * 创建时间
      */
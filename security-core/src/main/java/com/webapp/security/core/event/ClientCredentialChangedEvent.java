@@ -0,0 +1,18 @@
+package com.webapp.security.core.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 客户端凭证变更事件
+ * 凭证被启用、禁用后发布，用于清除各服务中缓存的凭证校验结果
+ */
+@Getter
+@RequiredArgsConstructor
+public class ClientCredentialChangedEvent {
+
+    /**
+     * 应用ID
+     */
+    private final String appId;
+}
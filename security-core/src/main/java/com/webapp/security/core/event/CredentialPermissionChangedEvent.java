@@ -0,0 +1,20 @@
+package com.webapp.security.core.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Collection;
+
+/**
+ * 凭证权限变更事件
+ * 凭证的资源授权被替换，或其已授权资源被修改、删除后发布，用于重建凭证的权限快照
+ */
+@Getter
+@RequiredArgsConstructor
+public class CredentialPermissionChangedEvent {
+
+    /**
+     * 权限可能发生变化的应用ID
+     */
+    private final Collection<String> appIds;
+}
@@ -0,0 +1,18 @@
+package com.webapp.security.core.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * API资源变更事件
+ * 资源被新增、修改、删除后发布，用于重建资源路径匹配树
+ */
+@Getter
+@RequiredArgsConstructor
+public class ResourceChangedEvent {
+
+    /**
+     * 资源ID
+     */
+    private final Long resourceId;
+}
@@ -0,0 +1,20 @@
+package com.webapp.security.core.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Collection;
+
+/**
+ * 角色权限变更事件
+ * 角色的权限分配被替换、角色状态变更或删除，或其已分配权限被修改、删除后发布，用于重算角色的权限集合
+ */
+@Getter
+@RequiredArgsConstructor
+public class RolePermissionChangedEvent {
+
+    /**
+     * 权限可能发生变化的角色ID
+     */
+    private final Collection<Long> roleIds;
+}
@@ -0,0 +1,20 @@
+package com.webapp.security.core.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Collection;
+
+/**
+ * 用户权限变更事件
+ * 用户的角色分配、状态、密码被修改或用户被删除后发布，用于清除用户缓存并重新加载用户的角色
+ */
+@Getter
+@RequiredArgsConstructor
+public class UserPermissionChangedEvent {
+
+    /**
+     * 权限可能发生变化的用户ID
+     */
+    private final Collection<Long> userIds;
+}
@@ -6,9 +6,22 @@ import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
+import java.util.List;
+
 @Mapper
 public interface SysCredentialResourceRelMapper extends BaseMapper<SysCredentialResourceRel> {
 
     @Select("SELECT EXISTS(SELECT 1 FROM sys_credential_resource_rel WHERE credential_id = #{credentialId} AND resource_id = #{resourceId})")
     boolean exists(@Param("credentialId") Long credentialId, @Param("resourceId") Long resourceId);
+
+    @Select("SELECT r.resource_code FROM sys_client_credential c "
+            + "JOIN sys_credential_resource_rel cr ON cr.credential_id = c.id "
+            + "JOIN sys_resource r ON r.resource_id = cr.resource_id "
+            + "WHERE c.app_id = #{appId} AND c.status = 1 AND r.status = 1")
+    List<String> selectActivePermissionCodes(@Param("appId") String appId);
+
+    @Select("SELECT DISTINCT c.app_id FROM sys_credential_resource_rel cr "
+            + "JOIN sys_client_credential c ON c.id = cr.credential_id "
+            + "WHERE cr.resource_id = #{resourceId}")
+    List<String> selectAppIdsByResourceId(@Param("resourceId") Long resourceId);
 }
\ No newline at end of file
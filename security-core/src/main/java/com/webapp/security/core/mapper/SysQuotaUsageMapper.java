@@ -0,0 +1,25 @@
+package com.webapp.security.core.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.webapp.security.core.entity.SysQuotaUsage;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+
+@Mapper
+public interface SysQuotaUsageMapper extends BaseMapper<SysQuotaUsage> {
+
+    /**
+     * 批量写入调用量，已存在时保留较大值（各节点写入的都是全局累计值，重复写入幂等）
+     */
+    @Insert("<script>"
+            + "INSERT INTO sys_quota_usage (app_id, resource_id, usage_date, used_count) VALUES "
+            + "<foreach collection='usages' item='u' separator=','>"
+            + "(#{u.appId}, #{u.resourceId}, #{u.usageDate}, #{u.usedCount})"
+            + "</foreach>"
+            + " ON DUPLICATE KEY UPDATE used_count = GREATEST(used_count, VALUES(used_count))"
+            + "</script>")
+    int upsertMax(@Param("usages") Collection<SysQuotaUsage> usages);
+}
@@ -3,10 +3,7 @@ package com.webapp.security.core.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.webapp.security.core.entity.SysResource;
 import org.apache.ibatis.annotations.Mapper;
-import org.apache.ibatis.annotations.Param;
 
 @Mapper
 public interface SysResourceMapper extends BaseMapper<SysResource> {
-
-    Long matchResource(@Param("path") String path, @Param("method") String method);
 }
\ No newline at end of file
@@ -4,6 +4,8 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.webapp.security.core.entity.SysUser;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -51,4 +53,43 @@ public interface SysUserMapper extends BaseMapper<SysUser> {
          * @return 角色编码列表
          */
         List<String> selectUserRoles(@Param("userId") Long userId);
+
+        /**
+         * 递增用户的授权版本
+         *
+         * @param userId 用户ID
+         * @return 影响行数
+         */
+        int incrementAuthVersion(@Param("userId") Long userId);
+
+        /**
+         * 递增拥有指定角色的用户的授权版本
+         *
+         * @param roleIds 角色ID列表
+         * @return 影响行数
+         */
+        int incrementAuthVersionByRoleIds(@Param("roleIds") Collection<Long> roleIds);
+
+        /**
+         * 查询全部用户的授权版本
+         *
+         * @return 只包含用户ID与授权版本的用户列表
+         */
+        List<SysUser> selectAllAuthVersions();
+
+        /**
+         * 查询指定用户的授权版本
+         *
+         * @param userIds 用户ID列表
+         * @return 只包含用户ID与授权版本的用户列表
+         */
+        List<SysUser> selectAuthVersionsByUserIds(@Param("userIds") Collection<Long> userIds);
+
+        /**
+         * 按主键查询用户当前的授权版本
+         *
+         * @param userId 用户ID
+         * @return 授权版本，用户不存在或已删除时返回null
+         */
+        Long selectAuthVersion(@Param("userId") Long userId);
 }
@@ -0,0 +1,211 @@
+package com.webapp.security.core.matcher;
+
+import com.webapp.security.core.entity.SysResource;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 编译后的API资源路径匹配树
+ * 每个HTTP方法一棵按路径段组织的前缀树，支持Ant风格通配：
+ * '*'匹配单个路径段，'**'匹配零个或多个路径段，段内'*'（如user*）匹配段内任意字符。
+ * 多个资源同时匹配时取资源路径最长者，与原SQL的ORDER BY LENGTH(resource_path) DESC一致。
+ * 构建后不可变，可被多线程并发读取；资源变更时整体重建并替换引用。
+ */
+public final class ResourcePathTrie {
+
+    private static final String SINGLE_WILDCARD = "*";
+    private static final String MULTI_WILDCARD = "**";
+
+    private static final ResourcePathTrie EMPTY = new ResourcePathTrie(Collections.emptyMap(), 0);
+
+    /**
+     * HTTP方法（大写） -> 根节点
+     */
+    private final Map<String, Node> roots;
+
+    private final int size;
+
+    private ResourcePathTrie(Map<String, Node> roots, int size) {
+        this.roots = roots;
+        this.size = size;
+    }
+
+    public static ResourcePathTrie empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 由资源列表构建匹配树，忽略未启用及路径、方法为空的资源
+     *
+     * @param resources 资源列表
+     * @return 匹配树
+     */
+    public static ResourcePathTrie build(Collection<SysResource> resources) {
+        Map<String, Node> roots = new HashMap<>();
+        int size = 0;
+        for (SysResource resource : resources) {
+            if (resource.getStatus() == null || resource.getStatus() != 1
+                    || resource.getResourcePath() == null || resource.getMethod() == null) {
+                continue;
+            }
+            Node node = roots.computeIfAbsent(resource.getMethod().trim().toUpperCase(Locale.ROOT), m -> new Node());
+            for (String segment : split(resource.getResourcePath())) {
+                node = node.child(segment);
+            }
+            // 同一方法、同一路径重复定义时保留先出现的资源
+            if (node.resource == null) {
+                node.resource = resource;
+                node.patternLength = resource.getResourcePath().length();
+                size++;
+            }
+        }
+        return new ResourcePathTrie(roots, size);
+    }
+
+    /**
+     * 查找与请求匹配的资源
+     *
+     * @param method HTTP方法
+     * @param path   请求路径（不含查询参数）
+     * @return 匹配的资源，未匹配时返回null
+     */
+    public SysResource match(String method, String path) {
+        if (method == null || path == null) {
+            return null;
+        }
+        Node root = roots.get(method.toUpperCase(Locale.ROOT));
+        if (root == null) {
+            return null;
+        }
+        Node best = match(root, split(path), 0, null);
+        return best != null ? best.resource : null;
+    }
+
+    /**
+     * 已编译的资源数
+     */
+    public int size() {
+        return size;
+    }
+
+    private static Node match(Node node, String[] segments, int index, Node best) {
+        if (index == segments.length) {
+            best = better(node, best);
+        } else {
+            Node literal = node.literals.get(segments[index]);
+            if (literal != null) {
+                best = match(literal, segments, index + 1, best);
+            }
+            for (GlobChild glob : node.globs) {
+                if (glob.matches(segments[index])) {
+                    best = match(glob.node, segments, index + 1, best);
+                }
+            }
+        }
+        if (node.multiWildcard != null) {
+            // '**'依次尝试匹配0..n个剩余路径段
+            for (int next = index; next <= segments.length; next++) {
+                best = match(node.multiWildcard, segments, next, best);
+            }
+        }
+        return best;
+    }
+
+    private static Node better(Node candidate, Node best) {
+        if (candidate.resource == null) {
+            return best;
+        }
+        return best == null || candidate.patternLength > best.patternLength ? candidate : best;
+    }
+
+    private static String[] split(String path) {
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+        int length = path.length();
+        for (int i = 0; i <= length; i++) {
+            if (i == length || path.charAt(i) == '/') {
+                if (i > start) {
+                    segments.add(path.substring(start, i));
+                }
+                start = i + 1;
+            }
+        }
+        return segments.toArray(new String[0]);
+    }
+
+    private static final class Node {
+        private final Map<String, Node> literals = new HashMap<>();
+        private final List<GlobChild> globs = new ArrayList<>(0);
+        private Node multiWildcard;
+        private SysResource resource;
+        private int patternLength;
+
+        private Node child(String segment) {
+            if (MULTI_WILDCARD.equals(segment)) {
+                if (multiWildcard == null) {
+                    multiWildcard = new Node();
+                }
+                return multiWildcard;
+            }
+            if (segment.indexOf('*') < 0) {
+                return literals.computeIfAbsent(segment, s -> new Node());
+            }
+            for (GlobChild glob : globs) {
+                if (glob.pattern.equals(segment)) {
+                    return glob.node;
+                }
+            }
+            GlobChild glob = new GlobChild(segment, new Node());
+            globs.add(glob);
+            return glob.node;
+        }
+    }
+
+    /**
+     * 含'*'的路径段
+     */
+    private static final class GlobChild {
+        private final String pattern;
+        private final Node node;
+
+        private GlobChild(String pattern, Node node) {
+            this.pattern = pattern;
+            this.node = node;
+        }
+
+        private boolean matches(String segment) {
+            if (SINGLE_WILDCARD.equals(pattern)) {
+                return true;
+            }
+            // 贪心匹配，'*'回溯到上一个星号位置
+            int p = 0;
+            int s = 0;
+            int star = -1;
+            int mark = 0;
+            while (s < segment.length()) {
+                if (p < pattern.length() && pattern.charAt(p) == segment.charAt(s)) {
+                    p++;
+                    s++;
+                } else if (p < pattern.length() && pattern.charAt(p) == '*') {
+                    star = p++;
+                    mark = s;
+                } else if (star >= 0) {
+                    p = star + 1;
+                    s = ++mark;
+                } else {
+                    return false;
+                }
+            }
+            while (p < pattern.length() && pattern.charAt(p) == '*') {
+                p++;
+            }
+            return p == pattern.length();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.webapp.security.core.ratelimit;
+
+import java.time.Duration;
+
+/**
+ * 集群共享的并发槽位存储
+ * 各节点以租约形式持有一定数量的并发槽位，所有节点未过期的持有数之和不超过上限
+ */
+public interface ConcurrencyLeaseStore {
+
+    /**
+     * 将本节点在指定键上持有的槽位数设置为最多wanted个，并续期租约
+     *
+     * @param key    并发隔离键
+     * @param owner  节点标识
+     * @param limit  集群并发上限
+     * @param wanted 希望持有的槽位数，0表示归还全部槽位
+     * @param ttl    租约有效期，节点未按时续期时其槽位自动释放
+     * @return 实际持有的槽位数
+     * @throws RuntimeException 存储不可用
+     */
+    int lease(String key, String owner, int limit, int wanted, Duration ttl);
+}
@@ -0,0 +1,178 @@
+package com.webapp.security.core.ratelimit;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 每日调用量计数器（写后回写）
+ * 请求路径上只累加本地LongAdder，由flush()定期把本地增量批量累加到QuotaStore并取回全局累计值；
+ * 已用量按“上次取回的全局值 + 之后的本地增量”估算，超额量不超过各节点一个回写周期内的调用量。
+ * 计数按日期分开，跨天后新请求计入新的一天，前一天的剩余增量在下次flush时回写后丢弃。
+ */
+public class DailyQuotaCounter {
+
+    private final QuotaStore store;
+    private final Clock clock;
+
+    private volatile Day current;
+
+    /**
+     * 已跨天但仍有未回写增量的前一天
+     */
+    private volatile Day previous;
+
+    /**
+     * @param store 全局调用量存储
+     * @param clock 时钟，其时区决定日期边界
+     */
+    public DailyQuotaCounter(QuotaStore store, Clock clock) {
+        this.store = store;
+        this.clock = clock;
+        this.current = new Day(LocalDate.now(clock));
+    }
+
+    /**
+     * 尝试计入一次调用
+     *
+     * @param key   计数键（如凭证+资源）
+     * @param quota 每日上限，不大于0表示不限制
+     * @return 未超过上限时计数并返回true，已用尽返回false
+     */
+    public boolean tryConsume(String key, long quota) {
+        Day day = today();
+        Counter counter = day.counters.get(key);
+        if (counter == null) {
+            // 在computeIfAbsent之外读取存储，远程调用期间不占用ConcurrentHashMap的桶锁；
+            // 并发首次访问同一键时可能重复读取，以先放入的计数器为准
+            Counter loaded = newCounter(day.date, key);
+            Counter existing = day.counters.putIfAbsent(key, loaded);
+            counter = existing != null ? existing : loaded;
+        }
+        if (quota > 0 && counter.used() >= quota) {
+            return false;
+        }
+        counter.local.increment();
+        return true;
+    }
+
+    /**
+     * 本节点估算的当日已用量
+     */
+    public long getUsed(String key) {
+        Counter counter = today().counters.get(key);
+        return counter != null ? counter.used() : 0;
+    }
+
+    /**
+     * 把本地增量回写到全局存储
+     *
+     * @return 日期 -> 计数键 -> 回写后的全局调用量（仅包含本次有增量的键）
+     * @throws RuntimeException 存储不可用，未回写的增量保留到下次
+     */
+    public Map<LocalDate, Map<String, Long>> flush() {
+        Map<LocalDate, Map<String, Long>> totals = new LinkedHashMap<>();
+        Day stale = previous;
+        if (stale != null) {
+            totals.put(stale.date, flush(stale));
+            previous = null;
+        }
+        Day day = today();
+        totals.put(day.date, flush(day));
+        return totals;
+    }
+
+    private Map<String, Long> flush(Day day) {
+        Map<String, Long> deltas = new HashMap<>();
+        Map<String, Long> snapshots = new HashMap<>();
+        day.counters.forEach((key, counter) -> {
+            long sum = counter.local.sum();
+            long delta = sum - counter.flushed;
+            if (delta > 0) {
+                deltas.put(key, delta);
+                snapshots.put(key, sum);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Long> totals = store.increment(day.date, deltas);
+        totals.forEach((key, total) -> {
+            Counter counter = day.counters.get(key);
+            if (counter != null) {
+                counter.update(total, snapshots.get(key));
+            }
+        });
+        return totals;
+    }
+
+    private Day today() {
+        Day day = current;
+        LocalDate date = LocalDate.now(clock);
+        if (date.equals(day.date)) {
+            return day;
+        }
+        synchronized (this) {
+            day = current;
+            if (!date.equals(day.date)) {
+                previous = day;
+                day = new Day(date);
+                current = day;
+            }
+            return day;
+        }
+    }
+
+    private Counter newCounter(LocalDate date, String key) {
+        long global;
+        try {
+            // 每个键每天只读取一次，取得重启或其他节点已产生的调用量
+            global = store.get(date, key);
+        } catch (RuntimeException e) {
+            global = 0;
+        }
+        return new Counter(global);
+    }
+
+    private static final class Day {
+        private final LocalDate date;
+        private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+
+        private Day(LocalDate date) {
+            this.date = date;
+        }
+    }
+
+    private static final class Counter {
+        private final LongAdder local = new LongAdder();
+
+        /**
+         * 上次回写时local的累计值
+         */
+        private volatile long flushed;
+
+        /**
+         * 上次回写后取回的全局调用量（已包含flushed）
+         */
+        private volatile long global;
+
+        private Counter(long global) {
+            this.global = global;
+        }
+
+        private long used() {
+            return global + local.sum() - flushed;
+        }
+
+        private synchronized void update(long global, long flushed) {
+            this.global = global;
+            this.flushed = flushed;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.webapp.security.core.ratelimit;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 分布式并发隔离（舱壁）
+ * 各节点从ConcurrencyLeaseStore租借一批并发槽位后在本地以计数信号量控制在途请求数，
+ * 槽位用完才再次访问存储；存储中没有可用槽位时在重试间隔内直接在本地拒绝，不阻塞等待。
+ * 租约由renew()定期续期，并把空闲槽位归还给其他节点；节点宕机后其槽位随租约过期释放。
+ * 存储不可用时在退避期内降级为本节点按完整上限放行。
+ */
+public class DistributedBulkhead {
+
+    private final ConcurrencyLeaseStore store;
+    private final String owner;
+    private final Duration leaseTtl;
+    private final long leaseTtlNanos;
+    private final int leaseSize;
+    private final long retryIntervalNanos;
+    private final long failureBackoffNanos;
+
+    private final ConcurrentMap<String, Compartment> compartments = new ConcurrentHashMap<>();
+
+    /**
+     * 存储恢复可用的时间（System.nanoTime），0表示可用
+     */
+    private final AtomicLong storeRetryAt = new AtomicLong();
+
+    /**
+     * @param store          集群并发槽位存储
+     * @param owner          本节点标识
+     * @param leaseTtl       槽位租约有效期，应大于续期间隔
+     * @param leaseSize      每次扩充时在当前在途数之上多租借的槽位数
+     * @param retryInterval  集群槽位已满后再次访问存储的最小间隔
+     * @param failureBackoff 存储访问失败后降级为本地隔离的时长
+     */
+    public DistributedBulkhead(ConcurrencyLeaseStore store, String owner, Duration leaseTtl, int leaseSize,
+            Duration retryInterval, Duration failureBackoff) {
+        this.store = store;
+        this.owner = owner;
+        this.leaseTtl = leaseTtl;
+        this.leaseTtlNanos = leaseTtl.toNanos();
+        this.leaseSize = Math.max(1, leaseSize);
+        this.retryIntervalNanos = retryInterval.toNanos();
+        this.failureBackoffNanos = failureBackoff.toNanos();
+    }
+
+    /**
+     * 尝试占用一个并发槽位
+     *
+     * @param key   并发隔离键（如资源、凭证+资源）
+     * @param limit 集群并发上限，不大于0时不限制
+     * @return 占用成功返回许可，调用结束后必须release；槽位已满返回null
+     */
+    public Permit tryAcquire(String key, int limit) {
+        if (limit <= 0) {
+            return Permit.NOOP;
+        }
+        while (true) {
+            Compartment compartment = compartments.computeIfAbsent(key, Compartment::new);
+            compartment.limit = limit;
+            compartment.lastAccess = System.nanoTime();
+            compartment.used = true;
+            boolean acquired = compartment.tryAcquire();
+            if (!compartment.retired) {
+                return acquired ? new CompartmentPermit(compartment) : null;
+            }
+            // 隔离舱刚被清除，在新的隔离舱上重试
+            if (acquired) {
+                compartment.inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 续期各隔离舱的槽位租约，保留在途数加一批余量，其余槽位归还给其他节点；
+     * 同时清除空闲超时且没有在途请求的隔离舱
+     *
+     * @param idleTimeout 空闲时长
+     */
+    public void renew(Duration idleTimeout) {
+        long now = System.nanoTime();
+        long deadline = now - idleTimeout.toNanos();
+        for (Map.Entry<String, Compartment> entry : compartments.entrySet()) {
+            Compartment compartment = entry.getValue();
+            synchronized (compartment) {
+                int inFlight = compartment.inFlight.get();
+                if (inFlight == 0 && compartment.lastAccess - deadline < 0) {
+                    compartment.retired = true;
+                    compartments.remove(entry.getKey(), compartment);
+                    release(compartment, now);
+                    continue;
+                }
+                if (compartment.granted == 0 && inFlight == 0) {
+                    continue;
+                }
+                int wanted = compartment.used ? Math.min(compartment.limit, inFlight + leaseSize) : inFlight;
+                compartment.used = false;
+                lease(compartment, wanted, now);
+            }
+        }
+    }
+
+    /**
+     * 当前本地隔离舱数
+     */
+    public int size() {
+        return compartments.size();
+    }
+
+    /**
+     * 本节点指定隔离舱的在途请求数
+     */
+    public int inFlight(String key) {
+        Compartment compartment = compartments.get(key);
+        return compartment != null ? compartment.inFlight.get() : 0;
+    }
+
+    private void release(Compartment compartment, long now) {
+        if (compartment.granted > 0 && !storeUnavailable(now)) {
+            try {
+                store.lease(compartment.key, owner, compartment.limit, 0, leaseTtl);
+            } catch (RuntimeException e) {
+                storeRetryAt.set(now + failureBackoffNanos);
+            }
+        }
+        compartment.granted = 0;
+    }
+
+    /**
+     * 向存储申请持有wanted个槽位，调用方需持有隔离舱的锁
+     */
+    private void lease(Compartment compartment, int wanted, long now) {
+        if (storeUnavailable(now)) {
+            compartment.grant(compartment.limit, now + failureBackoffNanos);
+            return;
+        }
+        try {
+            int granted = store.lease(compartment.key, owner, compartment.limit, wanted, leaseTtl);
+            compartment.grant(granted, now + leaseTtlNanos);
+            if (granted < wanted) {
+                compartment.exhaustedUntil = now + retryIntervalNanos;
+            }
+        } catch (RuntimeException e) {
+            storeRetryAt.set(now + failureBackoffNanos);
+            compartment.grant(compartment.limit, now + failureBackoffNanos);
+        }
+    }
+
+    private boolean storeUnavailable(long now) {
+        long retryAt = storeRetryAt.get();
+        if (retryAt == 0) {
+            return false;
+        }
+        if (now - retryAt < 0) {
+            return true;
+        }
+        storeRetryAt.compareAndSet(retryAt, 0);
+        return false;
+    }
+
+    /**
+     * 并发许可，release可重复调用
+     */
+    public interface Permit {
+
+        Permit NOOP = () -> {
+        };
+
+        void release();
+    }
+
+    private static final class CompartmentPermit implements Permit {
+        private final Compartment compartment;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private CompartmentPermit(Compartment compartment) {
+            this.compartment = compartment;
+        }
+
+        @Override
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                compartment.inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 单个隔离键在本节点的状态
+     */
+    private final class Compartment {
+        private final String key;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile int limit;
+        private volatile int granted;
+        private volatile long expiresAt;
+        private volatile long exhaustedUntil;
+        private volatile long lastAccess;
+        private volatile boolean used;
+        private volatile boolean retired;
+
+        private Compartment(String key) {
+            this.key = key;
+            long now = System.nanoTime();
+            this.expiresAt = now;
+            this.exhaustedUntil = now;
+        }
+
+        private boolean tryAcquire() {
+            while (true) {
+                int current = inFlight.get();
+                if (current >= limit || retired) {
+                    return false;
+                }
+                if (current < granted && System.nanoTime() - expiresAt < 0) {
+                    if (inFlight.compareAndSet(current, current + 1)) {
+                        return true;
+                    }
+                    continue;
+                }
+                if (!expand(current)) {
+                    return false;
+                }
+            }
+        }
+
+        /**
+         * 本地槽位用完或租约过期时向存储扩充，返回是否获得了可用槽位
+         */
+        private boolean expand(int observed) {
+            long now = System.nanoTime();
+            if (now - exhaustedUntil < 0 && now - expiresAt < 0) {
+                // 集群槽位刚被占满，重试间隔内直接在本地拒绝
+                return false;
+            }
+            synchronized (this) {
+                if (retired) {
+                    return false;
+                }
+                if (inFlight.get() < granted && now - expiresAt < 0) {
+                    // 其他线程已经扩充
+                    return true;
+                }
+                lease(this, Math.min(limit, Math.max(observed, inFlight.get()) + leaseSize), now);
+                return inFlight.get() < granted;
+            }
+        }
+
+        private void grant(int granted, long expiresAt) {
+            this.granted = granted;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.webapp.security.core.ratelimit;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 分布式令牌桶限流器
+ * 全局令牌桶保存在TokenLeaseStore中（如Redis Lua脚本），各节点按批租借令牌后在本地无锁扣减，
+ * 租借的令牌用完或超过租期才再次访问存储，限速较高时大部分请求不产生远程调用；
+ * 全局令牌桶被取空后，在补充出一批令牌所需的时间内直接在本地拒绝。
+ * 存储不可用时在退避期内降级为本节点的本地令牌桶（单节点按完整速率放行）。
+ */
+public class DistributedRateLimiter {
+
+    private final TokenLeaseStore store;
+    private final long leaseTtlNanos;
+    private final double leaseFraction;
+    private final int maxLeaseSize;
+    private final long failureBackoffNanos;
+
+    private final ConcurrentMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * 存储恢复可用的时间（System.nanoTime），0表示可用
+     */
+    private final AtomicLong storeRetryAt = new AtomicLong();
+
+    /**
+     * @param store          全局令牌桶存储
+     * @param leaseTtl       租借令牌的有效期，过期未用完的令牌作废
+     * @param leaseFraction  每次租借的令牌数占每秒速率的比例
+     * @param maxLeaseSize   每次租借的最大令牌数
+     * @param failureBackoff 存储访问失败后降级为本地令牌桶的时长
+     */
+    public DistributedRateLimiter(TokenLeaseStore store, Duration leaseTtl, double leaseFraction, int maxLeaseSize,
+            Duration failureBackoff) {
+        this.store = store;
+        this.leaseTtlNanos = leaseTtl.toNanos();
+        this.leaseFraction = leaseFraction;
+        this.maxLeaseSize = Math.max(1, maxLeaseSize);
+        this.failureBackoffNanos = failureBackoff.toNanos();
+    }
+
+    /**
+     * 尝试通过一次请求
+     *
+     * @param key              限流键（如凭证+资源）
+     * @param permitsPerSecond 每秒允许的请求数
+     * @param burstCapacity    突发容量，不大于0时等于每秒请求数
+     * @return 允许通过返回true
+     */
+    public boolean tryAcquire(String key, int permitsPerSecond, int burstCapacity) {
+        if (permitsPerSecond <= 0) {
+            return true;
+        }
+        int capacity = burstCapacity > 0 ? burstCapacity : permitsPerSecond;
+        Bucket bucket = buckets.get(key);
+        if (bucket == null || bucket.permitsPerSecond != permitsPerSecond || bucket.capacity != capacity) {
+            // 首次访问或资源限额被修改
+            bucket = new Bucket(permitsPerSecond, capacity);
+            buckets.put(key, bucket);
+        }
+        long now = System.nanoTime();
+        bucket.lastAccess = now;
+
+        if (bucket.lease.get().tryTake(now)) {
+            return true;
+        }
+        if (storeUnavailable(now)) {
+            return bucket.fallback.tryAcquire();
+        }
+        if (now - bucket.exhaustedUntil < 0) {
+            // 全局令牌桶刚被取空，补充出一批令牌之前直接在本地拒绝，超限流量不访问存储
+            return false;
+        }
+        return refill(key, bucket, now);
+    }
+
+    /**
+     * 清除长时间未访问的令牌桶
+     *
+     * @param idleTimeout 空闲时长
+     */
+    public void evictIdle(Duration idleTimeout) {
+        long deadline = System.nanoTime() - idleTimeout.toNanos();
+        buckets.values().removeIf(bucket -> bucket.lastAccess - deadline < 0);
+    }
+
+    /**
+     * 当前本地令牌桶数
+     */
+    public int size() {
+        return buckets.size();
+    }
+
+    private boolean refill(String key, Bucket bucket, long now) {
+        // 同一时刻只有一个线程为本节点续租整批令牌，其他线程各自只租借一个
+        boolean leader = bucket.refilling.compareAndSet(false, true);
+        try {
+            int requested = leader ? leaseSize(bucket.permitsPerSecond, bucket.capacity) : 1;
+            long granted;
+            try {
+                granted = store.lease(key, bucket.permitsPerSecond, bucket.capacity, requested);
+            } catch (RuntimeException e) {
+                storeRetryAt.set(now + failureBackoffNanos);
+                return bucket.fallback.tryAcquire();
+            }
+            if (granted <= 0) {
+                bucket.exhaustedUntil = now + TimeUnit.SECONDS.toNanos(requested) / bucket.permitsPerSecond;
+                return false;
+            }
+            if (leader && granted > 1) {
+                bucket.lease.set(new Lease(granted - 1, now + leaseTtlNanos));
+            }
+            return true;
+        } finally {
+            if (leader) {
+                bucket.refilling.set(false);
+            }
+        }
+    }
+
+    private int leaseSize(int permitsPerSecond, int capacity) {
+        int size = (int) Math.ceil(permitsPerSecond * leaseFraction);
+        return Math.max(1, Math.min(Math.min(size, capacity), maxLeaseSize));
+    }
+
+    private boolean storeUnavailable(long now) {
+        long retryAt = storeRetryAt.get();
+        if (retryAt == 0) {
+            return false;
+        }
+        if (now - retryAt < 0) {
+            return true;
+        }
+        storeRetryAt.compareAndSet(retryAt, 0);
+        return false;
+    }
+
+    private static final class Bucket {
+        private final int permitsPerSecond;
+        private final int capacity;
+        private final TokenBucket fallback;
+        private final AtomicReference<Lease> lease = new AtomicReference<>(Lease.EMPTY);
+        private final AtomicBoolean refilling = new AtomicBoolean();
+        private volatile long lastAccess;
+        private volatile long exhaustedUntil;
+
+        private Bucket(int permitsPerSecond, int capacity) {
+            this.permitsPerSecond = permitsPerSecond;
+            this.capacity = capacity;
+            this.fallback = new TokenBucket(permitsPerSecond, capacity);
+            this.exhaustedUntil = System.nanoTime();
+        }
+    }
+
+    /**
+     * 本节点从全局令牌桶租借的一批令牌
+     */
+    private static final class Lease {
+        private static final Lease EMPTY = new Lease(0, 0);
+
+        private final AtomicLong remaining;
+        private final long expiresAt;
+
+        private Lease(long remaining, long expiresAt) {
+            this.remaining = new AtomicLong(remaining);
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean tryTake(long now) {
+            if (now - expiresAt >= 0) {
+                return false;
+            }
+            while (true) {
+                long current = remaining.get();
+                if (current <= 0) {
+                    return false;
+                }
+                if (remaining.compareAndSet(current, current - 1)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.webapp.security.core.ratelimit;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * 集群共享的每日调用量存储
+ */
+public interface QuotaStore {
+
+    /**
+     * 查询某日的全局调用量
+     *
+     * @param day 日期
+     * @param key 计数键
+     * @return 全局调用量，不存在时为0
+     * @throws RuntimeException 存储不可用
+     */
+    long get(LocalDate day, String key);
+
+    /**
+     * 批量累加某日的调用量
+     *
+     * @param day    日期
+     * @param deltas 计数键 -> 本节点新增的调用次数
+     * @return 计数键 -> 累加后的全局调用量
+     * @throws RuntimeException 存储不可用
+     */
+    Map<String, Long> increment(LocalDate day, Map<String, Long> deltas);
+}
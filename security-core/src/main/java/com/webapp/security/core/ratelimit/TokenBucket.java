@@ -0,0 +1,57 @@
+package com.webapp.security.core.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 本地无锁令牌桶
+ * 状态为不可变对象，取令牌时按流逝时间补充后以CAS替换，多线程竞争时重试而不加锁
+ */
+public final class TokenBucket {
+
+    private final double permitsPerNano;
+    private final double capacity;
+    private final AtomicReference<State> state;
+
+    /**
+     * @param permitsPerSecond 每秒补充的令牌数
+     * @param capacity         桶容量（允许的突发请求数）
+     */
+    public TokenBucket(double permitsPerSecond, double capacity) {
+        if (permitsPerSecond <= 0 || capacity < 1) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive and capacity at least 1");
+        }
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = capacity;
+        this.state = new AtomicReference<>(new State(capacity, System.nanoTime()));
+    }
+
+    /**
+     * 尝试取一个令牌
+     *
+     * @return 取到返回true，桶内令牌不足返回false
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            State current = state.get();
+            long now = System.nanoTime();
+            double tokens = Math.min(capacity, current.tokens + Math.max(0, now - current.time) * permitsPerNano);
+            if (tokens < 1) {
+                return false;
+            }
+            if (state.compareAndSet(current, new State(tokens - 1, now))) {
+                return true;
+            }
+        }
+    }
+
+    private static final class State {
+        private final double tokens;
+        private final long time;
+
+        private State(double tokens, long time) {
+            this.tokens = tokens;
+            this.time = time;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.webapp.security.core.ratelimit;
+
+/**
+ * 集群共享的令牌桶存储
+ * 一次调用从全局令牌桶中原子地租借最多requested个令牌
+ */
+public interface TokenLeaseStore {
+
+    /**
+     * 从全局令牌桶租借令牌
+     *
+     * @param key              令牌桶键
+     * @param permitsPerSecond 每秒补充的令牌数
+     * @param capacity         桶容量
+     * @param requested        希望租借的令牌数
+     * @return 实际租借到的令牌数，0表示桶内无可用令牌
+     * @throws RuntimeException 存储不可用
+     */
+    long lease(String key, int permitsPerSecond, int capacity, int requested);
+}
@@ -35,4 +35,20 @@ public interface SysCredentialResourceRelService extends IService<SysCredentialR
      * @param resourceIds  资源ID列表
      */
     void replaceAssignments(Long credentialId, List<Long> resourceIds);
+
+    /**
+     * 获取启用凭证的有效权限代码（仅包含启用的资源），凭证不存在或已禁用时返回空列表
+     * 
+     * @param appId 应用ID
+     * @return 资源权限代码列表
+     */
+    List<String> listActivePermissionCodes(String appId);
+
+    /**
+     * 获取被授权了指定资源的凭证应用ID列表
+     * 
+     * @param resourceId 资源ID
+     * @return 应用ID列表
+     */
+    List<String> listAppIdsByResourceId(Long resourceId);
 }
\ No newline at end of file
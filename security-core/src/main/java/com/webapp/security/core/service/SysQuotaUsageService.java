@@ -0,0 +1,30 @@
+package com.webapp.security.core.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.webapp.security.core.entity.SysQuotaUsage;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * OPENAPI每日调用量服务接口
+ */
+public interface SysQuotaUsageService extends IService<SysQuotaUsage> {
+
+    /**
+     * 批量写入调用量累计值，已存在的记录保留较大值
+     * 
+     * @param usages 调用量
+     */
+    void saveUsages(Collection<SysQuotaUsage> usages);
+
+    /**
+     * 查询某日的调用量
+     * 
+     * @param usageDate 统计日期
+     * @param appId     应用ID，为空时查询全部凭证
+     * @return 调用量列表
+     */
+    List<SysQuotaUsage> listUsages(LocalDate usageDate, String appId);
+}
@@ -3,6 +3,8 @@ package com.webapp.security.core.service;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.webapp.security.core.entity.SysResource;
 
+import java.util.List;
+
 /**
  * API资源服务接口
  */
@@ -34,4 +36,11 @@ public interface SysResourceService extends IService<SysResource> {
      * @throws RuntimeException 如果资源不存在或删除失败
      */
     void deleteResource(Long id) throws RuntimeException;
+
+    /**
+     * 获取全部启用的API资源，用于构建资源路径匹配树
+     * 
+     * @return 启用的资源列表
+     */
+    List<SysResource> listEnabledResources();
 }
\ No newline at end of file
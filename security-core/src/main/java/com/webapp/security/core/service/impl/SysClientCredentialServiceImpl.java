@@ -2,10 +2,12 @@ package com.webapp.security.core.service.impl;
 
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.webapp.security.core.entity.SysClientCredential;
+import com.webapp.security.core.event.ClientCredentialChangedEvent;
 import com.webapp.security.core.mapper.SysClientCredentialMapper;
 import com.webapp.security.core.service.SysClientCredentialService;
 import com.webapp.security.core.config.ClientIdConfig;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -23,6 +25,7 @@ public class SysClientCredentialServiceImpl extends ServiceImpl<SysClientCredent
     private final SysClientCredentialMapper credentialMapper;
     private final PasswordEncoder passwordEncoder;
     private final ClientIdConfig clientIdConfig;
+    private final ApplicationEventPublisher eventPublisher;
     private static final SecureRandom RANDOM = new SecureRandom();
 
     @Override
@@ -36,7 +39,11 @@ public class SysClientCredentialServiceImpl extends ServiceImpl<SysClientCredent
         if (cred == null)
             return false;
         cred.setStatus(0);
-        return credentialMapper.updateById(cred) > 0;
+        boolean updated = credentialMapper.updateById(cred) > 0;
+        if (updated) {
+            eventPublisher.publishEvent(new ClientCredentialChangedEvent(appId));
+        }
+        return updated;
     }
 
     @Override
@@ -106,6 +113,7 @@ public class SysClientCredentialServiceImpl extends ServiceImpl<SysClientCredent
         if (!updated) {
             throw new RuntimeException("更新状态失败");
         }
+        eventPublisher.publishEvent(new ClientCredentialChangedEvent(appId));
     }
 
     private String generateId() {
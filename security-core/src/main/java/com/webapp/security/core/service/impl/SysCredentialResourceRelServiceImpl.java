@@ -5,14 +5,17 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.webapp.security.core.entity.SysClientCredential;
 import com.webapp.security.core.entity.SysCredentialResourceRel;
 import com.webapp.security.core.entity.SysResource;
+import com.webapp.security.core.event.CredentialPermissionChangedEvent;
 import com.webapp.security.core.mapper.SysClientCredentialMapper;
 import com.webapp.security.core.mapper.SysCredentialResourceRelMapper;
 import com.webapp.security.core.mapper.SysResourceMapper;
 import com.webapp.security.core.service.SysCredentialResourceRelService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -24,6 +27,7 @@ public class SysCredentialResourceRelServiceImpl
 
     private final SysClientCredentialMapper credentialMapper;
     private final SysResourceMapper resourceMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public List<Long> listResourceIdsByCredentialId(Long credentialId) {
@@ -74,5 +78,20 @@ public class SysCredentialResourceRelServiceImpl
                 this.save(rel);
             }
         }
+        SysClientCredential credential = credentialMapper.selectById(credentialId);
+        if (credential != null) {
+            eventPublisher.publishEvent(
+                    new CredentialPermissionChangedEvent(Collections.singletonList(credential.getAppId())));
+        }
+    }
+
+    @Override
+    public List<String> listActivePermissionCodes(String appId) {
+        return baseMapper.selectActivePermissionCodes(appId);
+    }
+
+    @Override
+    public List<String> listAppIdsByResourceId(Long resourceId) {
+        return baseMapper.selectAppIdsByResourceId(resourceId);
     }
 }
\ No newline at end of file
@@ -4,11 +4,14 @@ import cn.hutool.core.util.StrUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.webapp.security.core.entity.SysPermission;
+import com.webapp.security.core.event.RolePermissionChangedEvent;
 import com.webapp.security.core.exception.BizException;
 import com.webapp.security.core.mapper.SysPermissionMapper;
 import com.webapp.security.core.mapper.SysRolePermissionMapper;
+import com.webapp.security.core.mapper.SysUserMapper;
 import com.webapp.security.core.service.SysPermissionService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -27,6 +30,8 @@ public class SysPermissionServiceImpl extends ServiceImpl<SysPermissionMapper, S
         implements SysPermissionService {
 
     private final SysRolePermissionMapper rolePermissionMapper;
+    private final SysUserMapper userMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public SysPermission getByCode(String code) {
@@ -77,7 +82,9 @@ public class SysPermissionServiceImpl extends ServiceImpl<SysPermissionMapper, S
         }
 
         permission.setUpdateTime(LocalDateTime.now());
-        return updateById(permission);
+        boolean updated = updateById(permission);
+        publishRolePermissionChanged(rolePermissionMapper.selectRoleIdsByPermissionId(permission.getPermissionId()));
+        return updated;
     }
 
     @Override
@@ -98,14 +105,20 @@ public class SysPermissionServiceImpl extends ServiceImpl<SysPermissionMapper, S
             throw PermissionBizExceptionBuilder.hasChildren("存在子权限，无法删除");
         }
 
+        // 删除前记录已分配该权限的角色
+        List<Long> affectedRoleIds = rolePermissionMapper.selectRoleIdsByPermissionId(permissionId);
+
         // 删除角色权限关联
         rolePermissionMapper.deleteByPermissionId(permissionId);
 
         // 使用MyBatis-Plus的逻辑删除方法
-        return removeById(permissionId);
+        boolean removed = removeById(permissionId);
+        publishRolePermissionChanged(affectedRoleIds);
+        return removed;
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public boolean updatePermissionStatus(Long permissionId, Integer status) {
         if (permissionId == null || status == null) {
             return false;
@@ -118,7 +131,9 @@ public class SysPermissionServiceImpl extends ServiceImpl<SysPermissionMapper, S
 
         permission.setStatus(status);
         permission.setUpdateTime(LocalDateTime.now());
-        return updateById(permission);
+        boolean updated = updateById(permission);
+        publishRolePermissionChanged(rolePermissionMapper.selectRoleIdsByPermissionId(permissionId));
+        return updated;
     }
 
     @Override
@@ -197,6 +212,13 @@ public class SysPermissionServiceImpl extends ServiceImpl<SysPermissionMapper, S
         }
     }
 
+    private void publishRolePermissionChanged(List<Long> roleIds) {
+        if (!roleIds.isEmpty()) {
+            userMapper.incrementAuthVersionByRoleIds(roleIds);
+            eventPublisher.publishEvent(new RolePermissionChangedEvent(roleIds));
+        }
+    }
+
     private static class PermissionBizExceptionBuilder {
         public static BizException of(String code, String message) {
             return new BizException("PERMISSION_" + code, message);
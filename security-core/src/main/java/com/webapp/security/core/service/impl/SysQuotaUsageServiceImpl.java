@@ -0,0 +1,47 @@
+package com.webapp.security.core.service.impl;
+
+import cn.hutool.core.util.StrUtil;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.webapp.security.core.entity.SysQuotaUsage;
+import com.webapp.security.core.mapper.SysQuotaUsageMapper;
+import com.webapp.security.core.service.SysQuotaUsageService;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+@Service
+public class SysQuotaUsageServiceImpl extends ServiceImpl<SysQuotaUsageMapper, SysQuotaUsage>
+        implements SysQuotaUsageService {
+
+    /**
+     * 单条INSERT语句最多写入的记录数
+     */
+    private static final int BATCH_SIZE = 500;
+
+    @Override
+    public void saveUsages(Collection<SysQuotaUsage> usages) {
+        List<SysQuotaUsage> batch = new ArrayList<>(Math.min(usages.size(), BATCH_SIZE));
+        for (SysQuotaUsage usage : usages) {
+            batch.add(usage);
+            if (batch.size() == BATCH_SIZE) {
+                baseMapper.upsertMax(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            baseMapper.upsertMax(batch);
+        }
+    }
+
+    @Override
+    public List<SysQuotaUsage> listUsages(LocalDate usageDate, String appId) {
+        return this.list(new LambdaQueryWrapper<SysQuotaUsage>()
+                .eq(SysQuotaUsage::getUsageDate, usageDate)
+                .eq(StrUtil.isNotBlank(appId), SysQuotaUsage::getAppId, appId)
+                .orderByDesc(SysQuotaUsage::getUsedCount));
+    }
+}
@@ -1,17 +1,26 @@
 package com.webapp.security.core.service.impl;
 
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.webapp.security.core.entity.SysResource;
+import com.webapp.security.core.event.CredentialPermissionChangedEvent;
+import com.webapp.security.core.event.ResourceChangedEvent;
+import com.webapp.security.core.mapper.SysCredentialResourceRelMapper;
 import com.webapp.security.core.mapper.SysResourceMapper;
 import com.webapp.security.core.service.SysResourceService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Service
 @RequiredArgsConstructor
 public class SysResourceServiceImpl extends ServiceImpl<SysResourceMapper, SysResource> implements SysResourceService {
 
     private final SysResourceMapper resourceMapper;
+    private final SysCredentialResourceRelMapper credentialResourceRelMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public SysResource createResource(SysResource resource) throws RuntimeException {
@@ -19,6 +28,7 @@ public class SysResourceServiceImpl extends ServiceImpl<SysResourceMapper, SysRe
         if (!success) {
             throw new RuntimeException("创建资源失败");
         }
+        eventPublisher.publishEvent(new ResourceChangedEvent(resource.getResourceId()));
         return resource;
     }
 
@@ -38,6 +48,8 @@ public class SysResourceServiceImpl extends ServiceImpl<SysResourceMapper, SysRe
         if (!success) {
             throw new RuntimeException("更新资源失败，ID: " + id);
         }
+        eventPublisher.publishEvent(new ResourceChangedEvent(id));
+        publishCredentialPermissionChanged(credentialResourceRelMapper.selectAppIdsByResourceId(id));
 
         return resource;
     }
@@ -50,10 +62,26 @@ public class SysResourceServiceImpl extends ServiceImpl<SysResourceMapper, SysRe
             throw new RuntimeException("资源不存在，ID: " + id);
         }
 
+        // 删除前记录已授权该资源的凭证
+        List<String> affectedAppIds = credentialResourceRelMapper.selectAppIdsByResourceId(id);
+
         // 删除资源
         boolean success = this.removeById(id);
         if (!success) {
             throw new RuntimeException("删除资源失败，ID: " + id);
         }
+        eventPublisher.publishEvent(new ResourceChangedEvent(id));
+        publishCredentialPermissionChanged(affectedAppIds);
+    }
+
+    @Override
+    public List<SysResource> listEnabledResources() {
+        return this.list(new LambdaQueryWrapper<SysResource>().eq(SysResource::getStatus, 1));
+    }
+
+    private void publishCredentialPermissionChanged(List<String> appIds) {
+        if (!appIds.isEmpty()) {
+            eventPublisher.publishEvent(new CredentialPermissionChangedEvent(appIds));
+        }
     }
 }
\ No newline at end of file
@@ -7,17 +7,21 @@ import com.google.common.collect.Lists;
 import com.webapp.security.core.entity.SysPermission;
 import com.webapp.security.core.entity.SysRole;
 import com.webapp.security.core.entity.SysRolePermission;
+import com.webapp.security.core.event.RolePermissionChangedEvent;
 import com.webapp.security.core.exception.BizException;
 import com.webapp.security.core.mapper.SysRoleMapper;
 import com.webapp.security.core.mapper.SysRolePermissionMapper;
+import com.webapp.security.core.mapper.SysUserMapper;
 import com.webapp.security.core.mapper.SysUserRoleMapper;
 import com.webapp.security.core.service.SysRoleService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -31,6 +35,8 @@ public class SysRoleServiceImpl extends ServiceImpl<SysRoleMapper, SysRole> impl
 
     private final SysRolePermissionMapper rolePermissionMapper;
     private final SysUserRoleMapper userRoleMapper;
+    private final SysUserMapper userMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public SysRole getByCode(String code) {
@@ -98,14 +104,20 @@ public class SysRoleServiceImpl extends ServiceImpl<SysRoleMapper, SysRole> impl
         // 删除角色权限关联
         rolePermissionMapper.deleteByRoleId(roleId);
 
+        // 删除关联前递增拥有该角色的用户的授权版本
+        userMapper.incrementAuthVersionByRoleIds(Collections.singletonList(roleId));
+
         // 删除用户角色关联
         userRoleMapper.deleteByRoleId(roleId);
 
         // 使用MyBatis-Plus的逻辑删除方法
-        return removeById(roleId);
+        boolean removed = removeById(roleId);
+        publishRolePermissionChanged(roleId);
+        return removed;
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public boolean updateRoleStatus(Long roleId, Integer status) {
         if (roleId == null || status == null) {
             return false;
@@ -118,7 +130,10 @@ public class SysRoleServiceImpl extends ServiceImpl<SysRoleMapper, SysRole> impl
 
         role.setStatus(status);
         role.setUpdateTime(LocalDateTime.now());
-        return updateById(role);
+        boolean updated = updateById(role);
+        userMapper.incrementAuthVersionByRoleIds(Collections.singletonList(roleId));
+        publishRolePermissionChanged(roleId);
+        return updated;
     }
 
     @Override
@@ -153,6 +168,8 @@ public class SysRoleServiceImpl extends ServiceImpl<SysRoleMapper, SysRole> impl
             }
         }
 
+        userMapper.incrementAuthVersionByRoleIds(Collections.singletonList(roleId));
+        publishRolePermissionChanged(roleId);
         return true;
     }
 
@@ -189,6 +206,10 @@ public class SysRoleServiceImpl extends ServiceImpl<SysRoleMapper, SysRole> impl
         return list(wrapper);
     }
 
+    private void publishRolePermissionChanged(Long roleId) {
+        eventPublisher.publishEvent(new RolePermissionChangedEvent(Collections.singletonList(roleId)));
+    }
+
     private static class RoleBizExceptionBuilder {
         public static BizException of(String code, String message) {
             return new BizException("ROLE_" + code, message);
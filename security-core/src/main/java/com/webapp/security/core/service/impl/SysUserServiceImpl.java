@@ -5,16 +5,19 @@ import cn.hutool.crypto.digest.BCrypt;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.webapp.security.core.entity.SysUser;
 import com.webapp.security.core.entity.SysUserRole;
+import com.webapp.security.core.event.UserPermissionChangedEvent;
 import com.webapp.security.core.exception.BizException;
 import com.webapp.security.core.mapper.SysUserMapper;
 import com.webapp.security.core.mapper.SysUserRoleMapper;
 import com.webapp.security.core.service.SysUserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 import com.google.common.collect.*;
@@ -28,6 +31,7 @@ import com.google.common.collect.*;
 public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> implements SysUserService {
 
     private final SysUserRoleMapper userRoleMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public SysUser getByUsername(String username) {
@@ -124,7 +128,11 @@ public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> impl
         }
 
         user.setUpdateTime(LocalDateTime.now());
-        return updateById(user);
+        boolean updated = updateById(user);
+        // 用户名、状态可能被修改，已签发令牌的权限不再可复用
+        baseMapper.incrementAuthVersion(user.getUserId());
+        publishUserPermissionChanged(user.getUserId());
+        return updated;
     }
 
     @Override
@@ -143,7 +151,9 @@ public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> impl
         userRoleMapper.deleteByUserId(userId);
 
         // 使用MyBatis-Plus的逻辑删除方法
-        return removeById(userId);
+        boolean removed = removeById(userId);
+        publishUserPermissionChanged(userId);
+        return removed;
     }
 
     @Override
@@ -160,10 +170,13 @@ public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> impl
 
         user.setPassword(BCrypt.hashpw(newPassword));
         user.setUpdateTime(LocalDateTime.now());
-        return updateById(user);
+        boolean updated = updateById(user);
+        publishUserPermissionChanged(userId);
+        return updated;
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public boolean updateUserStatus(Long userId, Integer status) {
         if (userId == null || status == null) {
             return false;
@@ -176,7 +189,10 @@ public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> impl
 
         user.setStatus(status);
         user.setUpdateTime(LocalDateTime.now());
-        return updateById(user);
+        boolean updated = updateById(user);
+        baseMapper.incrementAuthVersion(userId);
+        publishUserPermissionChanged(userId);
+        return updated;
     }
 
     @Override
@@ -211,6 +227,8 @@ public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> impl
             }
         }
 
+        baseMapper.incrementAuthVersion(userId);
+        publishUserPermissionChanged(userId);
         return true;
     }
 
@@ -244,6 +262,10 @@ public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> impl
         return BCrypt.checkpw(password, user.getPassword());
     }
 
+    private void publishUserPermissionChanged(Long userId) {
+        eventPublisher.publishEvent(new UserPermissionChangedEvent(Collections.singletonList(userId)));
+    }
+
     private static class UserBizExceptionBuilder {
         public static BizException of(String code, String message) {
             return new BizException("USER_" + code, message);
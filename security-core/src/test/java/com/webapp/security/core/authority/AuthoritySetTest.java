@@ -0,0 +1,178 @@
+package com.webapp.security.core.authority;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 位图权限集合与权限驻留表测试
+ * 驻留表是进程全局的，各用例使用带前缀的独立权限编码
+ */
+public class AuthoritySetTest {
+
+    /**
+     * 测试同一权限编码始终驻留为同一实例，ID连续且可按ID取回
+     */
+    @Test
+    public void testRegistryInternsOnce() {
+        InternedAuthority first = AuthorityRegistry.intern("registry:a");
+        InternedAuthority second = AuthorityRegistry.intern("registry:b");
+
+        assertSame(first, AuthorityRegistry.intern("registry:a"));
+        assertSame(first, InternedAuthority.of("registry:a"));
+        assertSame(first, AuthorityRegistry.find("registry:a"));
+        assertSame(first, AuthorityRegistry.get(first.getId()));
+        assertEquals(first.getId() + 1, second.getId());
+        assertNull(AuthorityRegistry.find("registry:missing"));
+        assertNull(AuthorityRegistry.find(null));
+        assertThrows(IllegalArgumentException.class, () -> AuthorityRegistry.intern(""));
+    }
+
+    /**
+     * 测试按权限编码和任意GrantedAuthority判断包含关系，迭代返回驻留实例
+     */
+    @Test
+    public void testContainsAndIteration() {
+        AuthoritySet set = AuthoritySet.of(Arrays.asList("contains:a", "contains:b", "contains:a"));
+
+        assertEquals(2, set.size());
+        assertTrue(set.hasAuthority("contains:a"));
+        assertTrue(set.hasAnyAuthority("contains:x", "contains:b"));
+        assertFalse(set.hasAuthority("contains:x"));
+        assertTrue(set.contains(new SimpleGrantedAuthority("contains:b")));
+        assertTrue(set.contains(InternedAuthority.of("contains:a")));
+        assertFalse(set.contains("contains:a"));
+        for (GrantedAuthority authority : set) {
+            assertSame(AuthorityRegistry.find(authority.getAuthority()), authority);
+        }
+        assertSame(set, AuthoritySet.copyOf(set));
+        assertSame(AuthoritySet.empty(), AuthoritySet.of(Collections.emptyList()));
+        assertSame(AuthoritySet.empty(), AuthoritySet.copyOf(null));
+    }
+
+    /**
+     * 测试addAll按合并后的位图重新计数，重复元素不重复计入
+     */
+    @Test
+    public void testBuilderAddAllRecountsSize() {
+        InternedAuthority a = InternedAuthority.of("builder:a");
+        InternedAuthority b = InternedAuthority.of("builder:b");
+        InternedAuthority c = InternedAuthority.of("builder:c");
+        AuthoritySet ab = new AuthoritySet.Builder().add(a).add(b).build();
+        AuthoritySet bc = new AuthoritySet.Builder().add(b).add(c).build();
+
+        AuthoritySet merged = new AuthoritySet.Builder().add(a).addAll(ab).addAll(bc).add(c).build();
+
+        assertEquals(3, merged.size());
+        assertEquals(3, countIterated(merged));
+        assertEquals(AuthoritySet.of(Arrays.asList("builder:a", "builder:b", "builder:c")), merged);
+    }
+
+    /**
+     * 测试Builder创建后新驻留的权限ID超出其位图长度时，add与addAll都会扩容
+     */
+    @Test
+    public void testBuilderGrowsForLaterInternedAuthorities() {
+        AuthoritySet.Builder builder = new AuthoritySet.Builder().add(InternedAuthority.of("grow:first"));
+
+        List<String> later = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            later.add("grow:" + i);
+        }
+        AuthoritySet laterSet = AuthoritySet.of(later);
+        builder.addAll(laterSet);
+        builder.add(InternedAuthority.of("grow:last"));
+        AuthoritySet merged = builder.build();
+
+        assertEquals(202, merged.size());
+        assertEquals(202, countIterated(merged));
+        assertTrue(merged.containsAll(laterSet));
+        assertTrue(merged.hasAuthority("grow:first"));
+        assertTrue(merged.hasAuthority("grow:last"));
+    }
+
+    /**
+     * 测试与其他Set实现的equals和hashCode一致
+     */
+    @Test
+    public void testEqualsAndHashCodeAgainstOtherSets() {
+        AuthoritySet set = AuthoritySet.of(Arrays.asList("equals:a", "equals:b"));
+        Set<GrantedAuthority> hashSet = new HashSet<>(Arrays.asList(
+                InternedAuthority.of("equals:b"), InternedAuthority.of("equals:a")));
+
+        assertEquals(hashSet, set);
+        assertEquals(set, hashSet);
+        assertEquals(hashSet.hashCode(), set.hashCode());
+        assertEquals(set, AuthoritySet.copyOf(hashSet));
+        assertEquals(set.hashCode(), AuthoritySet.copyOf(hashSet).hashCode());
+        assertEquals(set, AuthoritySet.copyOf(Arrays.asList(
+                new SimpleGrantedAuthority("equals:a"), new SimpleGrantedAuthority("equals:b"))));
+        // 按权限编码比较其他GrantedAuthority实现
+        assertTrue(set.equals(new HashSet<>(Arrays.asList(
+                new SimpleGrantedAuthority("equals:a"), new SimpleGrantedAuthority("equals:b")))));
+
+        assertNotEquals(AuthoritySet.of(Collections.singletonList("equals:a")), set);
+        assertNotEquals(set, new HashSet<>(Collections.singletonList(InternedAuthority.of("equals:a"))));
+        assertEquals(Collections.emptySet(), AuthoritySet.empty());
+    }
+
+    /**
+     * 测试序列化时按权限编码写出，反序列化后重新驻留
+     */
+    @Test
+    public void testSerializationReplacement() throws Exception {
+        AuthoritySet set = AuthoritySet.of(Arrays.asList("serial:a", "serial:b"));
+
+        Object restored = deserialize(serialize(set));
+
+        assertTrue(restored instanceof AuthoritySet);
+        assertEquals(set, restored);
+        assertTrue(((AuthoritySet) restored).hasAuthority("serial:b"));
+        assertSame(AuthoritySet.empty(), deserialize(serialize(AuthoritySet.empty())));
+
+        InternedAuthority authority = InternedAuthority.of("serial:a");
+        assertSame(authority, deserialize(serialize(authority)));
+    }
+
+    private static int countIterated(AuthoritySet set) {
+        int count = 0;
+        for (GrantedAuthority ignored : set) {
+            count++;
+        }
+        return count;
+    }
+
+    private static byte[] serialize(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.webapp.security.core.matcher;
+
+import com.webapp.security.core.entity.SysResource;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * API资源路径匹配树测试
+ */
+public class ResourcePathTrieTest {
+
+    /**
+     * 测试字面路径匹配，方法不区分大小写，查询路径中的多余斜杠被忽略
+     */
+    @Test
+    public void testLiteralMatch() {
+        SysResource users = resource("GET", "/api/users");
+        ResourcePathTrie trie = ResourcePathTrie.build(Collections.singletonList(users));
+
+        assertSame(users, trie.match("GET", "/api/users"));
+        assertSame(users, trie.match("get", "/api/users/"));
+        assertSame(users, trie.match("GET", "//api//users"));
+        assertNull(trie.match("POST", "/api/users"));
+        assertNull(trie.match("GET", "/api/users/1"));
+        assertNull(trie.match("GET", "/api"));
+    }
+
+    /**
+     * 测试'*'只匹配单个且非空的路径段
+     */
+    @Test
+    public void testSingleWildcardMatchesExactlyOneSegment() {
+        SysResource user = resource("GET", "/api/users/*");
+        ResourcePathTrie trie = ResourcePathTrie.build(Collections.singletonList(user));
+
+        assertSame(user, trie.match("GET", "/api/users/1"));
+        assertSame(user, trie.match("GET", "/api/users/abc"));
+        assertNull(trie.match("GET", "/api/users"));
+        assertNull(trie.match("GET", "/api/users/1/roles"));
+    }
+
+    /**
+     * 测试段内'*'匹配段内任意字符，但不跨越路径段
+     */
+    @Test
+    public void testWildcardInsideSegment() {
+        SysResource export = resource("GET", "/api/user*/export-*.csv");
+        ResourcePathTrie trie = ResourcePathTrie.build(Collections.singletonList(export));
+
+        assertSame(export, trie.match("GET", "/api/user/export-.csv"));
+        assertSame(export, trie.match("GET", "/api/users/export-2024.csv"));
+        assertSame(export, trie.match("GET", "/api/userGroups/export-a-b.csv"));
+        assertNull(trie.match("GET", "/api/member/export-1.csv"));
+        assertNull(trie.match("GET", "/api/users/export-1.xlsx"));
+        assertNull(trie.match("GET", "/api/users/x/export-1.csv"));
+    }
+
+    /**
+     * 测试'**'匹配零个或多个路径段，包括位于路径中间的情况
+     */
+    @Test
+    public void testMultiWildcardMatchesZeroOrMoreSegments() {
+        SysResource all = resource("GET", "/api/**");
+        SysResource detail = resource("GET", "/files/**/detail");
+        ResourcePathTrie trie = ResourcePathTrie.build(Arrays.asList(all, detail));
+
+        assertSame(all, trie.match("GET", "/api"));
+        assertSame(all, trie.match("GET", "/api/users"));
+        assertSame(all, trie.match("GET", "/api/users/1/roles"));
+        assertSame(detail, trie.match("GET", "/files/detail"));
+        assertSame(detail, trie.match("GET", "/files/a/b/c/detail"));
+        assertNull(trie.match("GET", "/files/a/b"));
+        assertNull(trie.match("GET", "/other"));
+    }
+
+    /**
+     * 测试多个资源同时匹配时取资源路径最长者，与插入顺序无关
+     */
+    @Test
+    public void testLongestPatternWins() {
+        SysResource all = resource("GET", "/api/**");
+        SysResource users = resource("GET", "/api/users/**");
+        SysResource user = resource("GET", "/api/users/*");
+        SysResource roles = resource("GET", "/api/users/*/roles");
+
+        for (ResourcePathTrie trie : Arrays.asList(
+                ResourcePathTrie.build(Arrays.asList(all, users, user, roles)),
+                ResourcePathTrie.build(Arrays.asList(roles, user, users, all)))) {
+            assertSame(roles, trie.match("GET", "/api/users/1/roles"));
+            assertSame(users, trie.match("GET", "/api/users/1"));
+            assertSame(users, trie.match("GET", "/api/users/1/orders"));
+            assertSame(all, trie.match("GET", "/api/orders/1"));
+        }
+    }
+
+    /**
+     * 测试字面路径优先于更短的通配模式
+     */
+    @Test
+    public void testLiteralPreferredOverShorterWildcard() {
+        SysResource any = resource("GET", "/api/*");
+        SysResource me = resource("GET", "/api/me");
+        ResourcePathTrie trie = ResourcePathTrie.build(Arrays.asList(any, me));
+
+        assertSame(me, trie.match("GET", "/api/me"));
+        assertSame(any, trie.match("GET", "/api/you"));
+    }
+
+    /**
+     * 测试构建时忽略未启用或不完整的资源，重复定义保留先出现者
+     */
+    @Test
+    public void testBuildSkipsInvalidAndDuplicateResources() {
+        SysResource first = resource("GET", "/api/users");
+        SysResource duplicate = resource("GET", "/api/users");
+        SysResource disabled = resource("GET", "/api/roles");
+        disabled.setStatus(0);
+        SysResource noMethod = resource(null, "/api/menus");
+        SysResource noPath = resource("GET", null);
+        ResourcePathTrie trie = ResourcePathTrie.build(Arrays.asList(first, duplicate, disabled, noMethod, noPath));
+
+        assertEquals(1, trie.size());
+        assertSame(first, trie.match("GET", "/api/users"));
+        assertNull(trie.match("GET", "/api/roles"));
+        assertNull(trie.match("GET", "/api/menus"));
+        assertNull(trie.match(null, "/api/users"));
+        assertNull(trie.match("GET", null));
+        assertEquals(0, ResourcePathTrie.empty().size());
+        assertNull(ResourcePathTrie.empty().match("GET", "/api/users"));
+    }
+
+    private static SysResource resource(String method, String path) {
+        SysResource resource = new SysResource();
+        resource.setMethod(method);
+        resource.setResourcePath(path);
+        resource.setStatus(1);
+        return resource;
+    }
+}
@@ -0,0 +1,203 @@
+package com.webapp.security.core.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 每日调用量计数器测试
+ */
+public class DailyQuotaCounterTest {
+
+    private static final LocalDate DAY1 = LocalDate.of(2024, 1, 1);
+    private static final LocalDate DAY2 = DAY1.plusDays(1);
+
+    /**
+     * 测试已用量 = 首次读取的全局值 + 本地增量，回写后改为取回的全局值 + 之后的本地增量
+     */
+    @Test
+    public void testUsedCombinesGlobalAndLocalCounts() {
+        FakeQuotaStore store = new FakeQuotaStore();
+        store.set(DAY1, "k", 5);
+        DailyQuotaCounter counter = new DailyQuotaCounter(store, new MutableClock(DAY1));
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(counter.tryConsume("k", 0));
+        }
+        assertEquals(8, counter.getUsed("k"));
+
+        // 其他节点在此期间回写了10次
+        store.set(DAY1, "k", 15);
+        Map<LocalDate, Map<String, Long>> totals = counter.flush();
+        assertEquals(Collections.singletonMap("k", 18L), totals.get(DAY1));
+        assertEquals(Collections.singletonList(Collections.singletonMap("k", 3L)), store.increments);
+        assertEquals(18, counter.getUsed("k"));
+
+        assertTrue(counter.tryConsume("k", 0));
+        assertEquals(19, counter.getUsed("k"));
+        counter.flush();
+        assertEquals(Collections.singletonMap("k", 1L), store.increments.get(1));
+        assertEquals(19, counter.getUsed("k"));
+
+        // 没有新增量时不访问存储
+        counter.flush();
+        assertEquals(2, store.increments.size());
+    }
+
+    /**
+     * 测试达到每日上限后拒绝，上限不大于0时不限制
+     */
+    @Test
+    public void testQuotaIsEnforced() {
+        FakeQuotaStore store = new FakeQuotaStore();
+        store.set(DAY1, "k", 1);
+        DailyQuotaCounter counter = new DailyQuotaCounter(store, new MutableClock(DAY1));
+
+        assertTrue(counter.tryConsume("k", 3));
+        assertTrue(counter.tryConsume("k", 3));
+        assertFalse(counter.tryConsume("k", 3));
+        assertEquals(3, counter.getUsed("k"));
+
+        assertTrue(counter.tryConsume("k", 0));
+        assertEquals(4, counter.getUsed("k"));
+    }
+
+    /**
+     * 测试跨天后计入新的一天，前一天的剩余增量在下次回写时写入前一天后丢弃
+     */
+    @Test
+    public void testDayRollover() {
+        FakeQuotaStore store = new FakeQuotaStore();
+        MutableClock clock = new MutableClock(DAY1);
+        DailyQuotaCounter counter = new DailyQuotaCounter(store, clock);
+
+        assertTrue(counter.tryConsume("k", 2));
+        assertTrue(counter.tryConsume("k", 2));
+        assertFalse(counter.tryConsume("k", 2));
+
+        clock.advance(Duration.ofDays(1));
+        assertEquals(0, counter.getUsed("k"));
+        assertTrue(counter.tryConsume("k", 2));
+        assertEquals(1, counter.getUsed("k"));
+
+        Map<LocalDate, Map<String, Long>> totals = counter.flush();
+        assertEquals(Collections.singletonMap("k", 2L), totals.get(DAY1));
+        assertEquals(Collections.singletonMap("k", 1L), totals.get(DAY2));
+        assertEquals(2, store.get(DAY1, "k"));
+        assertEquals(1, store.get(DAY2, "k"));
+
+        totals = counter.flush();
+        assertFalse(totals.containsKey(DAY1));
+    }
+
+    /**
+     * 测试回写失败时保留本地增量，下次回写一并写入
+     */
+    @Test
+    public void testFailedFlushKeepsDeltas() {
+        FakeQuotaStore store = new FakeQuotaStore();
+        DailyQuotaCounter counter = new DailyQuotaCounter(store, new MutableClock(DAY1));
+
+        counter.tryConsume("k", 0);
+        counter.tryConsume("k", 0);
+        store.failing = true;
+        assertThrows(IllegalStateException.class, counter::flush);
+        assertEquals(2, counter.getUsed("k"));
+
+        counter.tryConsume("k", 0);
+        store.failing = false;
+        counter.flush();
+        assertEquals(3, store.get(DAY1, "k"));
+        assertEquals(3, counter.getUsed("k"));
+    }
+
+    /**
+     * 测试首次读取全局值失败时从0开始计数
+     */
+    @Test
+    public void testInitialReadFailureStartsFromZero() {
+        FakeQuotaStore store = new FakeQuotaStore();
+        store.set(DAY1, "k", 100);
+        store.failing = true;
+        DailyQuotaCounter counter = new DailyQuotaCounter(store, new MutableClock(DAY1));
+
+        assertTrue(counter.tryConsume("k", 10));
+        assertEquals(1, counter.getUsed("k"));
+        assertEquals(0, counter.getUsed("missing"));
+    }
+
+    /**
+     * 可手动推进的UTC时钟
+     */
+    private static final class MutableClock extends Clock {
+        private Instant instant;
+
+        private MutableClock(LocalDate date) {
+            this.instant = date.atStartOfDay(ZoneOffset.UTC).toInstant().plus(Duration.ofHours(12));
+        }
+
+        private void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+
+    private static final class FakeQuotaStore implements QuotaStore {
+        private final Map<LocalDate, Map<String, Long>> counts = new HashMap<>();
+        private final List<Map<String, Long>> increments = new ArrayList<>();
+        private boolean failing;
+
+        private void set(LocalDate day, String key, long value) {
+            counts.computeIfAbsent(day, d -> new HashMap<>()).put(key, value);
+        }
+
+        @Override
+        public long get(LocalDate day, String key) {
+            if (failing) {
+                throw new IllegalStateException("store unavailable");
+            }
+            return counts.getOrDefault(day, Collections.emptyMap()).getOrDefault(key, 0L);
+        }
+
+        @Override
+        public Map<String, Long> increment(LocalDate day, Map<String, Long> deltas) {
+            if (failing) {
+                throw new IllegalStateException("store unavailable");
+            }
+            increments.add(new HashMap<>(deltas));
+            Map<String, Long> totals = new HashMap<>();
+            Map<String, Long> dayCounts = counts.computeIfAbsent(day, d -> new HashMap<>());
+            deltas.forEach((key, delta) -> totals.put(key, dayCounts.merge(key, delta, Long::sum)));
+            return totals;
+        }
+    }
+}
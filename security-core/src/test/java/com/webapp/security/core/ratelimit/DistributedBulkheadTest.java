@@ -0,0 +1,226 @@
+package com.webapp.security.core.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * 分布式并发隔离测试
+ */
+public class DistributedBulkheadTest {
+
+    private static final String OWNER = "node-1";
+
+    /**
+     * 测试按批租借槽位：本地槽位用完才在在途数之上再扩充一批
+     */
+    @Test
+    public void testExpandsLeaseInBatches() {
+        FakeConcurrencyStore store = new FakeConcurrencyStore();
+        DistributedBulkhead bulkhead = bulkhead(store, Duration.ofMinutes(1));
+
+        assertNotNull(bulkhead.tryAcquire("k", 10));
+        assertNotNull(bulkhead.tryAcquire("k", 10));
+        assertEquals(1, store.requests.size());
+        assertNotNull(bulkhead.tryAcquire("k", 10));
+
+        assertEquals(listOf(2, 4), store.requests);
+        assertEquals(4, store.held("k", OWNER));
+        assertEquals(3, bulkhead.inFlight("k"));
+    }
+
+    /**
+     * 测试本地在途数不超过上限，许可重复释放只计一次
+     */
+    @Test
+    public void testLimitAndIdempotentRelease() {
+        FakeConcurrencyStore store = new FakeConcurrencyStore();
+        DistributedBulkhead bulkhead = bulkhead(store, Duration.ZERO);
+
+        DistributedBulkhead.Permit first = bulkhead.tryAcquire("k", 2);
+        DistributedBulkhead.Permit second = bulkhead.tryAcquire("k", 2);
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNull(bulkhead.tryAcquire("k", 2));
+
+        first.release();
+        first.release();
+        assertEquals(1, bulkhead.inFlight("k"));
+        assertNotNull(bulkhead.tryAcquire("k", 2));
+        assertEquals(2, bulkhead.inFlight("k"));
+
+        assertSame(DistributedBulkhead.Permit.NOOP, bulkhead.tryAcquire("k", 0));
+    }
+
+    /**
+     * 测试集群槽位已被其他节点占满时拒绝，重试间隔内不再访问存储
+     */
+    @Test
+    public void testRejectsLocallyWhenClusterIsFull() {
+        FakeConcurrencyStore store = new FakeConcurrencyStore();
+        store.hold("k", "node-2", 3);
+        DistributedBulkhead bulkhead = bulkhead(store, Duration.ofMinutes(1));
+
+        assertNull(bulkhead.tryAcquire("k", 3));
+        assertNull(bulkhead.tryAcquire("k", 3));
+        assertEquals(1, store.requests.size());
+    }
+
+    /**
+     * 测试续期时收缩租约：最近有请求时保留在途数加一批余量，之后一直空闲则归还到在途数
+     */
+    @Test
+    public void testRenewShrinksLease() {
+        FakeConcurrencyStore store = new FakeConcurrencyStore();
+        DistributedBulkhead bulkhead = bulkhead(store, Duration.ofMinutes(1));
+
+        List<DistributedBulkhead.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            permits.add(bulkhead.tryAcquire("k", 10));
+        }
+        assertEquals(6, store.held("k", OWNER));
+        permits.subList(0, 4).forEach(DistributedBulkhead.Permit::release);
+
+        bulkhead.renew(Duration.ofMinutes(10));
+        assertEquals(3, store.held("k", OWNER));
+
+        bulkhead.renew(Duration.ofMinutes(10));
+        assertEquals(1, store.held("k", OWNER));
+
+        permits.get(4).release();
+        bulkhead.renew(Duration.ofMinutes(10));
+        assertEquals(0, store.held("k", OWNER));
+        assertEquals(1, bulkhead.size());
+    }
+
+    /**
+     * 测试空闲隔离舱被清除并归还槽位，之后的请求在新的隔离舱上重新租借
+     */
+    @Test
+    public void testIdleCompartmentIsRetired() throws InterruptedException {
+        FakeConcurrencyStore store = new FakeConcurrencyStore();
+        DistributedBulkhead bulkhead = bulkhead(store, Duration.ofMinutes(1));
+
+        DistributedBulkhead.Permit permit = bulkhead.tryAcquire("k", 10);
+        bulkhead.renew(Duration.ZERO);
+        // 仍有在途请求时不清除
+        assertEquals(1, bulkhead.size());
+
+        permit.release();
+        Thread.sleep(2);
+        bulkhead.renew(Duration.ZERO);
+        assertEquals(0, bulkhead.size());
+        assertEquals(0, store.held("k", OWNER));
+
+        assertNotNull(bulkhead.tryAcquire("k", 10));
+        assertEquals(1, bulkhead.size());
+        assertEquals(2, store.held("k", OWNER));
+    }
+
+    /**
+     * 测试扩充期间隔离舱被清除时，请求在新建的隔离舱上重试成功
+     */
+    @Test
+    public void testReacquiresWhenCompartmentIsRetiredDuringExpand() {
+        FakeConcurrencyStore store = new FakeConcurrencyStore();
+        DistributedBulkhead bulkhead = bulkhead(store, Duration.ofMinutes(1));
+        store.beforeLease = () -> {
+            // 模拟扩充时恰好执行续期并清除了该隔离舱（同一线程可重入隔离舱的锁）
+            store.beforeLease = null;
+            sleepQuietly();
+            bulkhead.renew(Duration.ZERO);
+        };
+
+        DistributedBulkhead.Permit permit = bulkhead.tryAcquire("k", 10);
+
+        assertNotNull(permit);
+        assertEquals(1, bulkhead.size());
+        assertEquals(1, bulkhead.inFlight("k"));
+        permit.release();
+        assertEquals(0, bulkhead.inFlight("k"));
+    }
+
+    /**
+     * 测试存储不可用时降级为本节点按完整上限放行
+     */
+    @Test
+    public void testFallsBackToLocalLimitWhenStoreFails() {
+        FakeConcurrencyStore store = new FakeConcurrencyStore();
+        store.failing = true;
+        DistributedBulkhead bulkhead = bulkhead(store, Duration.ofMinutes(1));
+
+        assertNotNull(bulkhead.tryAcquire("k", 3));
+        assertNotNull(bulkhead.tryAcquire("k", 3));
+        assertNotNull(bulkhead.tryAcquire("k", 3));
+        assertNull(bulkhead.tryAcquire("k", 3));
+        assertEquals(1, store.requests.size());
+    }
+
+    private static DistributedBulkhead bulkhead(ConcurrencyLeaseStore store, Duration retryInterval) {
+        return new DistributedBulkhead(store, OWNER, Duration.ofMinutes(1), 2, retryInterval, Duration.ofMinutes(1));
+    }
+
+    private static List<Integer> listOf(Integer... values) {
+        List<Integer> list = new ArrayList<>();
+        for (Integer value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    private static void sleepQuietly() {
+        try {
+            Thread.sleep(2);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 不过期的内存槽位存储，记录非归还的租借请求
+     */
+    private static final class FakeConcurrencyStore implements ConcurrencyLeaseStore {
+        private final Map<String, Map<String, Integer>> holders = new HashMap<>();
+        private final List<Integer> requests = new ArrayList<>();
+        private Runnable beforeLease;
+        private boolean failing;
+
+        private void hold(String key, String owner, int slots) {
+            holders.computeIfAbsent(key, k -> new HashMap<>()).put(owner, slots);
+        }
+
+        private int held(String key, String owner) {
+            return holders.getOrDefault(key, new HashMap<>()).getOrDefault(owner, 0);
+        }
+
+        @Override
+        public int lease(String key, String owner, int limit, int wanted, Duration ttl) {
+            if (beforeLease != null) {
+                beforeLease.run();
+            }
+            if (wanted > 0) {
+                requests.add(wanted);
+            }
+            if (failing) {
+                throw new IllegalStateException("store unavailable");
+            }
+            Map<String, Integer> owners = holders.computeIfAbsent(key, k -> new HashMap<>());
+            int others = owners.entrySet().stream()
+                    .filter(e -> !e.getKey().equals(owner))
+                    .mapToInt(Map.Entry::getValue)
+                    .sum();
+            int granted = Math.max(0, Math.min(wanted, limit - others));
+            owners.put(owner, granted);
+            return granted;
+        }
+    }
+}
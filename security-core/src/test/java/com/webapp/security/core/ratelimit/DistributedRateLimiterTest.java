@@ -0,0 +1,168 @@
+package com.webapp.security.core.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 分布式令牌桶限流器测试
+ */
+public class DistributedRateLimiterTest {
+
+    /**
+     * 测试按批租借令牌：一次存储访问后，同批令牌在本地扣减，用完才再次租借
+     */
+    @Test
+    public void testLeasedPermitsAreServedLocally() {
+        FakeLeaseStore store = new FakeLeaseStore(100);
+        DistributedRateLimiter limiter = limiter(store, Duration.ofMinutes(1));
+
+        // 每秒100个，按0.1的比例每批租借10个
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire("k", 100, 100));
+        }
+        assertEquals(1, store.requests.size());
+        assertEquals(10, (int) store.requests.get(0));
+
+        assertTrue(limiter.tryAcquire("k", 100, 100));
+        assertEquals(2, store.requests.size());
+        assertEquals(80, store.available);
+    }
+
+    /**
+     * 测试租借数量不超过突发容量与单次租借上限
+     */
+    @Test
+    public void testLeaseSizeIsBounded() {
+        FakeLeaseStore store = new FakeLeaseStore(10_000);
+        DistributedRateLimiter limiter = limiter(store, Duration.ofMinutes(1));
+
+        assertTrue(limiter.tryAcquire("capacity", 100, 4));
+        assertTrue(limiter.tryAcquire("max", 10_000, 10_000));
+
+        assertEquals(4, (int) store.requests.get(0));
+        assertEquals(50, (int) store.requests.get(1));
+    }
+
+    /**
+     * 测试租期过期后未用完的令牌作废，重新向存储租借
+     */
+    @Test
+    public void testExpiredLeaseIsDiscarded() throws InterruptedException {
+        FakeLeaseStore store = new FakeLeaseStore(100);
+        DistributedRateLimiter limiter = limiter(store, Duration.ofMillis(1));
+
+        assertTrue(limiter.tryAcquire("k", 100, 100));
+        Thread.sleep(10);
+        assertTrue(limiter.tryAcquire("k", 100, 100));
+
+        assertEquals(2, store.requests.size());
+    }
+
+    /**
+     * 测试全局令牌桶取空后在补充窗口内本地拒绝，不再访问存储
+     */
+    @Test
+    public void testExhaustedBucketRejectsLocally() {
+        FakeLeaseStore store = new FakeLeaseStore(0);
+        DistributedRateLimiter limiter = limiter(store, Duration.ofMinutes(1));
+
+        assertFalse(limiter.tryAcquire("k", 1, 1));
+        assertFalse(limiter.tryAcquire("k", 1, 1));
+        assertFalse(limiter.tryAcquire("k", 1, 1));
+
+        assertEquals(1, store.requests.size());
+    }
+
+    /**
+     * 测试存储不可用时在退避期内降级为本地令牌桶，且不再访问存储
+     */
+    @Test
+    public void testFallsBackToLocalBucketWhenStoreFails() {
+        FakeLeaseStore store = new FakeLeaseStore(100);
+        store.failing = true;
+        DistributedRateLimiter limiter = limiter(store, Duration.ofMinutes(1));
+
+        assertTrue(limiter.tryAcquire("k", 1, 2));
+        assertTrue(limiter.tryAcquire("k", 1, 2));
+        assertFalse(limiter.tryAcquire("k", 1, 2));
+
+        assertEquals(1, store.requests.size());
+    }
+
+    /**
+     * 测试退避期过后恢复访问存储
+     */
+    @Test
+    public void testStoreIsRetriedAfterBackoff() throws InterruptedException {
+        FakeLeaseStore store = new FakeLeaseStore(100);
+        store.failing = true;
+        DistributedRateLimiter limiter = new DistributedRateLimiter(store, Duration.ofMinutes(1), 0.1, 50,
+                Duration.ofMillis(1));
+
+        assertTrue(limiter.tryAcquire("k", 100, 100));
+        store.failing = false;
+        Thread.sleep(10);
+        assertTrue(limiter.tryAcquire("k", 100, 100));
+
+        assertEquals(2, store.requests.size());
+        assertEquals(90, store.available);
+    }
+
+    /**
+     * 测试未配置限速时直接放行，修改限额后重建本地令牌桶，空闲令牌桶被清除
+     */
+    @Test
+    public void testUnlimitedLimitChangeAndEviction() throws InterruptedException {
+        FakeLeaseStore store = new FakeLeaseStore(100);
+        DistributedRateLimiter limiter = limiter(store, Duration.ofMinutes(1));
+
+        assertTrue(limiter.tryAcquire("k", 0, 0));
+        assertEquals(0, store.requests.size());
+        assertEquals(0, limiter.size());
+
+        assertTrue(limiter.tryAcquire("k", 100, 100));
+        assertTrue(limiter.tryAcquire("k", 200, 200));
+        // 限额变化后原批租借的令牌不再使用
+        assertEquals(2, store.requests.size());
+        assertEquals(1, limiter.size());
+
+        Thread.sleep(5);
+        limiter.evictIdle(Duration.ZERO);
+        assertEquals(0, limiter.size());
+    }
+
+    private static DistributedRateLimiter limiter(TokenLeaseStore store, Duration leaseTtl) {
+        return new DistributedRateLimiter(store, leaseTtl, 0.1, 50, Duration.ofMinutes(1));
+    }
+
+    /**
+     * 不补充令牌的全局令牌桶，记录每次租借请求的数量
+     */
+    private static final class FakeLeaseStore implements TokenLeaseStore {
+        private final List<Integer> requests = new ArrayList<>();
+        private long available;
+        private boolean failing;
+
+        private FakeLeaseStore(long available) {
+            this.available = available;
+        }
+
+        @Override
+        public long lease(String key, int permitsPerSecond, int capacity, int requested) {
+            requests.add(requested);
+            if (failing) {
+                throw new IllegalStateException("store unavailable");
+            }
+            long granted = Math.min(available, requested);
+            available -= granted;
+            return granted;
+        }
+    }
+}
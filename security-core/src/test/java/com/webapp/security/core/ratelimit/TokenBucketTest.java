@@ -0,0 +1,58 @@
+package com.webapp.security.core.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 本地令牌桶测试
+ */
+public class TokenBucketTest {
+
+    /**
+     * 测试初始满桶允许突发容量个请求，取空后拒绝
+     */
+    @Test
+    public void testBurstUpToCapacityThenReject() {
+        TokenBucket bucket = new TokenBucket(1, 3);
+
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+    }
+
+    /**
+     * 测试取空后按流逝时间补充令牌
+     */
+    @Test
+    public void testRefillsOverTime() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1000, 1);
+
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+        Thread.sleep(20);
+        assertTrue(bucket.tryAcquire());
+    }
+
+    /**
+     * 测试空闲再久补充的令牌也不超过桶容量
+     */
+    @Test
+    public void testRefillIsCappedAtCapacity() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1000, 2);
+
+        Thread.sleep(20);
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    public void testRejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(1, 0.5));
+    }
+}
@@ -3,7 +3,8 @@ package com.webapp.security.sso.api.controller;
 import com.webapp.security.core.entity.SysClientCredential;
 import com.webapp.security.core.model.OAuth2ErrorResponse;
 import com.webapp.security.core.service.SysClientCredentialService;
-import com.webapp.security.sso.api.service.TokenIntrospectionService;
+import com.webapp.security.sso.api.service.CredentialPermissionSnapshot;
+import com.webapp.security.sso.api.service.CredentialVerificationCache;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -53,7 +54,13 @@ public class OpenApiTokenController {
     private final RegisteredClientRepository registeredClientRepository;
     private final OAuth2AuthorizationService authorizationService;
     private final OAuth2TokenGenerator<OAuth2Token> tokenGenerator;
-    private final TokenIntrospectionService introspectionService;
+    private final CredentialPermissionSnapshot permissionSnapshot;
+    private final CredentialVerificationCache credentialVerificationCache;
+
+    /**
+     * 已校验通过固定客户端密钥的注册客户端密钥密文，注册客户端密钥变更后重新校验
+     */
+    private volatile String verifiedClientSecret;
 
     @Value("${oauth2.server.base-url:http://localhost:8080}")
     private String serverBaseUrl;
@@ -130,11 +137,16 @@ public class OpenApiTokenController {
                         "Client credentials disabled", 401);
             }
 
-            // 验证密钥
-            if (!passwordEncoder.matches(appSecret, credential.getAppSecret())) {
-                log.warn("Invalid appSecret for appId: {}", appId);
-                return createErrorResponse("invalid_client",
-                        "Invalid client credentials", 401);
+            // 验证密钥，短时间内已校验通过的凭证跳过BCrypt
+            if (!credentialVerificationCache.isVerified(CredentialVerificationCache.CLIENT_CREDENTIAL, appId,
+                    appSecret, credential.getAppSecret())) {
+                if (!passwordEncoder.matches(appSecret, credential.getAppSecret())) {
+                    log.warn("Invalid appSecret for appId: {}", appId);
+                    return createErrorResponse("invalid_client",
+                            "Invalid client credentials", 401);
+                }
+                credentialVerificationCache.markVerified(CredentialVerificationCache.CLIENT_CREDENTIAL, appId,
+                        appSecret, credential.getAppSecret());
             }
 
             // 6. 验证clientId匹配
@@ -157,8 +169,8 @@ public class OpenApiTokenController {
                 return createErrorResponse("invalid_client", "OAuth2 client not found", 401);
             }
 
-            // 7.2 验证客户端密钥
-            if (!passwordEncoder.matches(OAUTH2_CLIENT_SECRET, registeredClient.getClientSecret())) {
+            // 7.2 验证客户端密钥，固定密钥对同一版本的注册客户端只校验一次
+            if (!isFixedClientSecretValid(registeredClient)) {
                 log.error("Invalid client secret for client: {}", OAUTH2_CLIENT_ID);
                 return createErrorResponse("invalid_client", "Invalid client credentials", 401);
             }
@@ -184,7 +196,7 @@ public class OpenApiTokenController {
 
             OAuth2AccessToken accessToken = (OAuth2AccessToken) generatedToken;
 
-            List<String> permissions = introspectionService.getPermissionsFromDatabase(appId);
+            List<String> permissions = permissionSnapshot.getPermissions(appId);
 
             // 7.6 创建OAuth2Authorization并包含appId
             OAuth2Authorization.Builder authorizationBuilder = OAuth2Authorization.withRegisteredClient(registeredClient)
@@ -222,6 +234,25 @@ public class OpenApiTokenController {
         }
     }
 
+    /**
+     * 固定客户端密钥是否与注册客户端的密钥密文匹配
+     * 结果只取决于密钥密文，密文未变化时复用上次的校验结果
+     */
+    private boolean isFixedClientSecretValid(RegisteredClient registeredClient) {
+        String encodedSecret = registeredClient.getClientSecret();
+        if (encodedSecret == null) {
+            return false;
+        }
+        if (encodedSecret.equals(verifiedClientSecret)) {
+            return true;
+        }
+        if (!passwordEncoder.matches(OAUTH2_CLIENT_SECRET, encodedSecret)) {
+            return false;
+        }
+        verifiedClientSecret = encodedSecret;
+        return true;
+    }
+
     /**
      * 创建错误响应
      */
@@ -1,10 +1,14 @@
 package com.webapp.security.sso.api.controller;
 
 import com.webapp.security.core.model.OAuth2ErrorResponse;
+import com.webapp.security.sso.api.service.CredentialVerificationCache;
 import com.webapp.security.sso.api.service.TokenIntrospectionService;
+import com.webapp.security.sso.oauth2.expand.OAuth2AuthorizationView;
+import com.webapp.security.sso.oauth2.expand.OAuth2AuthorizationViewService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -24,6 +28,7 @@ import org.springframework.security.oauth2.server.authorization.client.Registere
 import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -46,17 +51,27 @@ public class TokenIntrospectionController {
     private final RegisteredClientRepository registeredClientRepository;
     private final TokenIntrospectionService tokenIntrospectionService;
     private final PasswordEncoder passwordEncoder;
+    private final CredentialVerificationCache credentialVerificationCache;
+
+    /**
+     * 批量自省单次最多令牌数
+     */
+    private final int batchMaxSize;
 
     @Autowired
     public TokenIntrospectionController(
             OAuth2AuthorizationService authorizationService,
             RegisteredClientRepository registeredClientRepository,
             TokenIntrospectionService tokenIntrospectionService,
-            PasswordEncoder passwordEncoder) {
+            PasswordEncoder passwordEncoder,
+            CredentialVerificationCache credentialVerificationCache,
+            @Value("${oauth2.introspection.batch-max-size:100}") int batchMaxSize) {
         this.authorizationService = authorizationService;
         this.registeredClientRepository = registeredClientRepository;
         this.tokenIntrospectionService = tokenIntrospectionService;
         this.passwordEncoder = passwordEncoder;
+        this.credentialVerificationCache = credentialVerificationCache;
+        this.batchMaxSize = batchMaxSize;
     }
 
     /**
@@ -83,8 +98,8 @@ public class TokenIntrospectionController {
         // 设置认证上下文
         SecurityContextHolder.getContext().setAuthentication(clientAuthentication);
 
-        // 查找并验证令牌
-        OAuth2Authorization authorization = authorizationService.findByToken(token, OAuth2TokenType.ACCESS_TOKEN);
+        // 查找并验证令牌（延迟解码视图，只解码自省用到的字段）
+        OAuth2AuthorizationView authorization = findAuthorizationView(token);
 
         // 如果仍然找不到，令牌无效
         if (authorization == null) {
@@ -96,8 +111,7 @@ public class TokenIntrospectionController {
         }
 
         // 检查令牌是否过期
-        OAuth2Authorization.Token<?> tokenMetadata = authorization.getToken(token);
-        if (tokenMetadata == null || !tokenMetadata.isActive()) {
+        if (!authorization.isActive(token)) {
             Map<String, Object> inactiveResponse = new HashMap<>();
             inactiveResponse.put("active", false);
             inactiveResponse.put("error", "invalid_token");
@@ -111,6 +125,92 @@ public class TokenIntrospectionController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * 批量令牌自省
+     * 客户端只认证一次，所有令牌通过一次多键查询解析，按请求顺序返回每个令牌的自省结果
+     *
+     * @param request 令牌列表
+     * @return 自省结果列表，与请求中的令牌一一对应
+     */
+    @PostMapping("/v1/oauth2/introspect/batch")
+    public ResponseEntity<?> introspectBatch(
+            @RequestBody BatchIntrospectionRequest request,
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        List<String> tokens = request != null ? request.getTokens() : null;
+        if (tokens == null || tokens.isEmpty()) {
+            return OAuth2ErrorResponse.error(OAuth2ErrorResponse.INVALID_REQUEST, "tokens is required",
+                    HttpStatus.BAD_REQUEST);
+        }
+        if (tokens.size() > batchMaxSize) {
+            return OAuth2ErrorResponse.error(OAuth2ErrorResponse.INVALID_REQUEST,
+                    "Too many tokens, maximum is " + batchMaxSize, HttpStatus.BAD_REQUEST);
+        }
+        logger.info("Received batch introspection request for {} tokens", tokens.size());
+
+        OAuth2ClientAuthenticationToken clientAuthentication;
+        try {
+            clientAuthentication = authenticateClient(authHeader);
+        } catch (BadCredentialsException e) {
+            logger.warn("Client authentication failed: {}", e.getMessage());
+            return OAuth2ErrorResponse.error(OAuth2ErrorResponse.UNAUTHORIZED_CLIENT, e.getMessage(), HttpStatus.UNAUTHORIZED);
+        }
+        SecurityContextHolder.getContext().setAuthentication(clientAuthentication);
+
+        Set<String> distinctTokens = new LinkedHashSet<>();
+        for (String token : tokens) {
+            if (StringUtils.hasText(token)) {
+                distinctTokens.add(token);
+            }
+        }
+        Map<String, OAuth2AuthorizationView> authorizations = findAuthorizationViews(distinctTokens);
+
+        List<Map<String, Object>> results = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            OAuth2AuthorizationView authorization = token != null ? authorizations.get(token) : null;
+            if (authorization == null || !authorization.isActive(token)) {
+                Map<String, Object> inactiveResponse = new HashMap<>();
+                inactiveResponse.put("active", false);
+                results.add(inactiveResponse);
+            } else {
+                results.add(tokenIntrospectionService.introspect(authorization));
+            }
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("results", results);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 按多个访问令牌一次查找授权记录视图
+     */
+    private Map<String, OAuth2AuthorizationView> findAuthorizationViews(Collection<String> tokens) {
+        if (authorizationService instanceof OAuth2AuthorizationViewService) {
+            return ((OAuth2AuthorizationViewService) authorizationService)
+                    .findViewsByTokens(tokens, OAuth2TokenType.ACCESS_TOKEN);
+        }
+        Map<String, OAuth2AuthorizationView> views = new HashMap<>();
+        for (String token : tokens) {
+            OAuth2AuthorizationView view = findAuthorizationView(token);
+            if (view != null) {
+                views.put(token, view);
+            }
+        }
+        return views;
+    }
+
+    /**
+     * 按访问令牌查找授权记录视图，授权服务不支持视图时包装完整的授权对象
+     */
+    private OAuth2AuthorizationView findAuthorizationView(String token) {
+        if (authorizationService instanceof OAuth2AuthorizationViewService) {
+            return ((OAuth2AuthorizationViewService) authorizationService)
+                    .findViewByToken(token, OAuth2TokenType.ACCESS_TOKEN);
+        }
+        OAuth2Authorization authorization = authorizationService.findByToken(token, OAuth2TokenType.ACCESS_TOKEN);
+        return authorization != null ? OAuth2AuthorizationView.of(authorization) : null;
+    }
+
     /**
      * 验证客户端身份并返回RegisteredClient
      *
@@ -146,10 +246,15 @@ public class TokenIntrospectionController {
             throw new BadCredentialsException("Client not found");
         }
 
-        // 验证客户端密钥
-        if (!passwordEncoder.matches(clientSecret, client.getClientSecret())) {
-            logger.warn("Invalid client secret for client: {}", clientId);
-            throw new BadCredentialsException("Invalid client secret");
+        // 验证客户端密钥，短时间内已校验通过的凭证跳过BCrypt
+        if (!credentialVerificationCache.isVerified(CredentialVerificationCache.REGISTERED_CLIENT, clientId,
+                clientSecret, client.getClientSecret())) {
+            if (!passwordEncoder.matches(clientSecret, client.getClientSecret())) {
+                logger.warn("Invalid client secret for client: {}", clientId);
+                throw new BadCredentialsException("Invalid client secret");
+            }
+            credentialVerificationCache.markVerified(CredentialVerificationCache.REGISTERED_CLIENT, clientId,
+                    clientSecret, client.getClientSecret());
         }
 
         logger.info("Client authentication successful: {}", clientId);
@@ -158,4 +263,19 @@ public class TokenIntrospectionController {
                 ClientAuthenticationMethod.CLIENT_SECRET_BASIC,
                 client.getClientSecret());
     }
-}
\ No newline at end of file
+
+    /**
+     * 批量自省请求
+     */
+    public static class BatchIntrospectionRequest {
+        private List<String> tokens;
+
+        public List<String> getTokens() {
+            return tokens;
+        }
+
+        public void setTokens(List<String> tokens) {
+            this.tokens = tokens;
+        }
+    }
+}
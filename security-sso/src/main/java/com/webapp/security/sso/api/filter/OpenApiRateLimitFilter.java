@@ -0,0 +1,193 @@
+package com.webapp.security.sso.api.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.webapp.security.core.entity.SysResource;
+import com.webapp.security.core.model.OAuth2ErrorResponse;
+import com.webapp.security.core.ratelimit.DistributedBulkhead.Permit;
+import com.webapp.security.sso.api.service.OpenApiBulkhead;
+import com.webapp.security.sso.api.service.OpenApiQuotaService;
+import com.webapp.security.sso.api.service.OpenApiRateLimiter;
+import com.webapp.security.sso.api.service.ResourceMatcher;
+import com.webapp.security.sso.oauth2.expand.OAuth2AuthorizationView;
+import com.webapp.security.sso.oauth2.expand.OAuth2AuthorizationViewService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * OpenAPI流量控制过滤器
+ * 按请求方法和路径匹配资源，以凭证+资源为维度执行资源配置的每秒限额和每日调用上限，
+ * 并按资源和凭证限制在途请求数，超限时返回429
+ */
+@Slf4j
+public class OpenApiRateLimitFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final String RATE_LIMIT_EXCEEDED = "rate_limit_exceeded";
+    private static final String QUOTA_EXCEEDED = "quota_exceeded";
+    private static final String CONCURRENCY_LIMIT_EXCEEDED = "concurrency_limit_exceeded";
+
+    private final ResourceMatcher resourceMatcher;
+    private final OpenApiRateLimiter rateLimiter;
+    private final OpenApiQuotaService quotaService;
+    private final OpenApiBulkhead bulkhead;
+    private final OAuth2AuthorizationService authorizationService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public OpenApiRateLimitFilter(ResourceMatcher resourceMatcher, OpenApiRateLimiter rateLimiter,
+            OpenApiQuotaService quotaService, OpenApiBulkhead bulkhead,
+            OAuth2AuthorizationService authorizationService) {
+        this.resourceMatcher = resourceMatcher;
+        this.rateLimiter = rateLimiter;
+        this.quotaService = quotaService;
+        this.bulkhead = bulkhead;
+        this.authorizationService = authorizationService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+        SysResource resource = resourceMatcher.match(request.getMethod(), request.getRequestURI()
+                .substring(request.getContextPath().length()));
+        if (resource == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        String credential = resolveCredential(request);
+        if (credential == null) {
+            // 未识别调用方的请求由后续的认证授权处理
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        if (!rateLimiter.tryAcquire(credential, resource)) {
+            log.debug("Rate limit exceeded, credential: {}, resource: {}", credential, resource.getResourceCode());
+            reject(response, RATE_LIMIT_EXCEEDED, "Rate limit exceeded for resource " + resource.getResourceCode(), 1);
+            return;
+        }
+        Permit permit = bulkhead.tryAcquire(credential, resource);
+        if (permit == null) {
+            log.debug("Concurrency limit exceeded, credential: {}, resource: {}", credential,
+                    resource.getResourceCode());
+            reject(response, CONCURRENCY_LIMIT_EXCEEDED,
+                    "Too many concurrent requests for resource " + resource.getResourceCode(), 1);
+            return;
+        }
+        boolean async = false;
+        try {
+            if (!quotaService.tryConsume(credential, resource)) {
+                log.debug("Daily quota exhausted, credential: {}, resource: {}", credential,
+                        resource.getResourceCode());
+                reject(response, QUOTA_EXCEEDED, "Daily quota exhausted for resource " + resource.getResourceCode(),
+                        quotaService.secondsUntilReset());
+                return;
+            }
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                // 异步请求在处理完成时才释放并发槽位
+                request.getAsyncContext().addListener(new PermitReleasingListener(permit));
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                permit.release();
+            }
+        }
+    }
+
+    /**
+     * 解析调用方凭证：有效Bearer令牌对应授权记录的app_id，其次为已认证主体名称
+     * 已作废或过期的令牌不计入其应用的限额，由后续的认证拒绝
+     */
+    private String resolveCredential(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith(BEARER_PREFIX)) {
+            String token = header.substring(BEARER_PREFIX.length()).trim();
+            if (StringUtils.hasText(token)) {
+                String appId = findAppId(token);
+                if (appId != null) {
+                    return appId;
+                }
+            }
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return authentication.getName();
+        }
+        return null;
+    }
+
+    private String findAppId(String token) {
+        if (authorizationService instanceof OAuth2AuthorizationViewService) {
+            OAuth2AuthorizationView view = ((OAuth2AuthorizationViewService) authorizationService)
+                    .findViewByToken(token, OAuth2TokenType.ACCESS_TOKEN);
+            return view != null && view.isActive(token) ? view.getAttribute("app_id") : null;
+        }
+        OAuth2Authorization authorization = authorizationService.findByToken(token, OAuth2TokenType.ACCESS_TOKEN);
+        if (authorization == null) {
+            return null;
+        }
+        OAuth2Authorization.Token<?> accessToken = authorization.getToken(token);
+        return accessToken != null && accessToken.isActive() ? authorization.getAttribute("app_id") : null;
+    }
+
+    private static final class PermitReleasingListener implements AsyncListener {
+        private final Permit permit;
+
+        private PermitReleasingListener(Permit permit) {
+            this.permit = permit;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            permit.release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            permit.release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            permit.release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // 异步处理重新开始时监听器会被移除，重新注册以保证最终释放
+            event.getAsyncContext().addListener(this);
+        }
+    }
+
+    private void reject(HttpServletResponse response, String error, String description, long retryAfterSeconds)
+            throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        OAuth2ErrorResponse body = OAuth2ErrorResponse.builder()
+                .error(error)
+                .error_description(description)
+                .build();
+        objectMapper.writeValue(response.getWriter(), body);
+    }
+}
@@ -0,0 +1,85 @@
+package com.webapp.security.sso.api.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.webapp.security.core.cache.CredentialPermissionSnapshotStore;
+import com.webapp.security.core.event.ClientCredentialChangedEvent;
+import com.webapp.security.core.event.CredentialPermissionChangedEvent;
+import com.webapp.security.sso.config.CredentialPermissionSnapshotProperties;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * OpenAPI凭证权限快照
+ * 应用ID -> 有效权限代码（凭证启用且资源启用），本地缓存未命中时通过CredentialPermissionSnapshotStore
+ * 依次查找Redis Hash和数据库；授权或资源变更时由变更方（通常为管理端）重建Redis条目并广播，各节点据此清除本地条目。
+ */
+@Component
+public class CredentialPermissionSnapshot implements MessageListener {
+
+    private final CredentialPermissionSnapshotStore snapshotStore;
+
+    /**
+     * 应用ID -> 权限代码
+     */
+    private final Cache<String, List<String>> localSnapshot;
+
+    public CredentialPermissionSnapshot(CredentialPermissionSnapshotStore snapshotStore,
+            CredentialPermissionSnapshotProperties properties,
+            RedisMessageListenerContainer listenerContainer) {
+        this.snapshotStore = snapshotStore;
+        this.localSnapshot = Caffeine.newBuilder()
+                .maximumSize(properties.getLocalMaximumSize())
+                .expireAfterWrite(properties.getLocalMaxTtl())
+                .build();
+
+        listenerContainer.addMessageListener(this, new ChannelTopic(snapshotStore.getEvictChannel()));
+    }
+
+    /**
+     * 获取凭证的有效权限代码
+     *
+     * @param appId 应用ID
+     * @return 权限代码列表，凭证不存在或已禁用时为空列表
+     */
+    public List<String> getPermissions(String appId) {
+        return localSnapshot.get(appId, snapshotStore::load);
+    }
+
+    /**
+     * 按数据库重建指定凭证的快照，并通知所有节点清除本地条目
+     *
+     * @param appIds 应用ID
+     */
+    public void rebuild(Collection<String> appIds) {
+        snapshotStore.rebuild(appIds);
+        localSnapshot.invalidateAll(appIds);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCredentialPermissionChanged(CredentialPermissionChangedEvent event) {
+        rebuild(event.getAppIds());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onClientCredentialChanged(ClientCredentialChangedEvent event) {
+        rebuild(Collections.singletonList(event.getAppId()));
+    }
+
+    /**
+     * 接收重建广播，清除本地条目，下次读取时从Redis加载
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        localSnapshot.invalidate(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,175 @@
+package com.webapp.security.sso.api.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.webapp.security.core.event.ClientCredentialChangedEvent;
+import com.webapp.security.sso.config.CredentialVerificationCacheProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * 客户端凭证校验结果缓存
+ * 以进程内随机密钥对（域、客户端ID、明文密钥）做HMAC作为缓存键，缓存中不保存明文密钥，
+ * 也无法由缓存键反推密钥；条目同时记录校验时的密钥密文，存储中的密钥被轮换后旧条目自然不再命中。
+ * 客户端变更时按客户端ID清除本节点条目，并通过Redis发布订阅通知其他节点。
+ */
+@Slf4j
+@Component
+public class CredentialVerificationCache implements MessageListener {
+
+    /**
+     * OAuth2注册客户端（oauth2_registered_client）凭证域
+     */
+    public static final String REGISTERED_CLIENT = "registered-client";
+
+    /**
+     * OpenAPI客户端凭证（sys_client_credential，appId/appSecret）凭证域
+     */
+    public static final String CLIENT_CREDENTIAL = "client-credential";
+
+    /**
+     * 失效消息中域与客户端ID的分隔符
+     */
+    private static final char SEPARATOR = '\n';
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final CredentialVerificationCacheProperties properties;
+    private final StringRedisTemplate redisTemplate;
+    private final SecretKeySpec hmacKey;
+    private final ThreadLocal<Mac> mac;
+
+    /**
+     * HMAC(域, 客户端ID, 明文密钥) -> 校验结果
+     */
+    private final Cache<String, VerifiedCredential> cache;
+
+    public CredentialVerificationCache(CredentialVerificationCacheProperties properties,
+            StringRedisTemplate redisTemplate,
+            RedisMessageListenerContainer listenerContainer) {
+        this.properties = properties;
+        this.redisTemplate = redisTemplate;
+
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.hmacKey = new SecretKeySpec(key, HMAC_ALGORITHM);
+        this.mac = ThreadLocal.withInitial(this::newMac);
+
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .build();
+
+        listenerContainer.addMessageListener(this, new ChannelTopic(properties.getEvictChannel()));
+    }
+
+    /**
+     * 该凭证是否已针对当前密钥密文校验通过
+     *
+     * @param realm         凭证所属域，区分不同来源的客户端ID
+     * @param clientId      客户端ID
+     * @param secret        请求中的明文密钥
+     * @param encodedSecret 存储中的密钥密文
+     * @return 已校验通过返回true
+     */
+    public boolean isVerified(String realm, String clientId, String secret, String encodedSecret) {
+        if (!properties.isEnabled() || encodedSecret == null) {
+            return false;
+        }
+        VerifiedCredential verified = cache.getIfPresent(key(realm, clientId, secret));
+        return verified != null && encodedSecret.equals(verified.encodedSecret);
+    }
+
+    /**
+     * 记录校验通过的凭证
+     */
+    public void markVerified(String realm, String clientId, String secret, String encodedSecret) {
+        if (!properties.isEnabled() || encodedSecret == null) {
+            return;
+        }
+        cache.put(key(realm, clientId, secret), new VerifiedCredential(realm, clientId, encodedSecret));
+    }
+
+    /**
+     * 清除某个客户端的全部校验结果，并通知其他节点
+     */
+    public void evict(String realm, String clientId) {
+        evictLocal(realm, clientId);
+        try {
+            redisTemplate.convertAndSend(properties.getEvictChannel(), realm + SEPARATOR + clientId);
+        } catch (Exception e) {
+            log.warn("Failed to broadcast credential cache eviction, clientId: {}", clientId, e);
+        }
+    }
+
+    /**
+     * 本进程内凭证被启用、禁用时清除对应的校验结果（管理端的变更通过失效广播到达）
+     */
+    @EventListener
+    public void onClientCredentialChanged(ClientCredentialChangedEvent event) {
+        evict(CLIENT_CREDENTIAL, event.getAppId());
+    }
+
+    /**
+     * 接收其他节点的失效广播，清除本地条目
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int index = body.indexOf(SEPARATOR);
+        if (index > 0) {
+            evictLocal(body.substring(0, index), body.substring(index + 1));
+        }
+    }
+
+    private void evictLocal(String realm, String clientId) {
+        cache.asMap().values().removeIf(verified -> verified.realm.equals(realm)
+                && verified.clientId.equals(clientId));
+        log.debug("Evicted credential verification cache, realm: {}, clientId: {}", realm, clientId);
+    }
+
+    private String key(String realm, String clientId, String secret) {
+        Mac hmac = mac.get();
+        hmac.update(realm.getBytes(StandardCharsets.UTF_8));
+        hmac.update((byte) 0);
+        hmac.update(clientId.getBytes(StandardCharsets.UTF_8));
+        hmac.update((byte) 0);
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(hmac.doFinal(secret.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac hmac = Mac.getInstance(HMAC_ALGORITHM);
+            hmac.init(hmacKey);
+            return hmac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    private static final class VerifiedCredential {
+        private final String realm;
+        private final String clientId;
+        private final String encodedSecret;
+
+        private VerifiedCredential(String realm, String clientId, String encodedSecret) {
+            this.realm = realm;
+            this.clientId = clientId;
+            this.encodedSecret = encodedSecret;
+        }
+    }
+}
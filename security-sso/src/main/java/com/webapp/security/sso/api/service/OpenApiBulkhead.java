@@ -0,0 +1,116 @@
+package com.webapp.security.sso.api.service;
+
+import com.webapp.security.core.entity.SysResource;
+import com.webapp.security.core.ratelimit.DistributedBulkhead;
+import com.webapp.security.core.ratelimit.DistributedBulkhead.Permit;
+import com.webapp.security.sso.config.OpenApiBulkheadProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * OpenAPI并发隔离服务
+ * 按资源执行concurrencyLimit，并按credentialShare限制单个凭证可占用的比例，
+ * 避免单个慢接口或单个调用方占满容器线程池
+ */
+@Component
+public class OpenApiBulkhead {
+
+    private final OpenApiBulkheadProperties properties;
+    private final DistributedBulkhead bulkhead;
+    private final MeterRegistry meterRegistry;
+    private final Counter resourceRejectedCounter;
+    private final Counter credentialRejectedCounter;
+    private final Set<String> gaugedResources = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public OpenApiBulkhead(OpenApiBulkheadProperties properties, StringRedisTemplate redisTemplate,
+            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.bulkhead = new DistributedBulkhead(
+                new RedisConcurrencyLeaseStore(redisTemplate, properties.getKeyPrefix()),
+                UUID.randomUUID().toString(), properties.getLeaseTtl(), properties.getLeaseSize(),
+                properties.getRetryInterval(), properties.getFailureBackoff());
+        this.resourceRejectedCounter = Counter.builder("oauth2.openapi.bulkhead.rejected")
+                .tag("scope", "resource")
+                .description("Requests rejected by the OpenAPI bulkhead")
+                .register(meterRegistry);
+        this.credentialRejectedCounter = Counter.builder("oauth2.openapi.bulkhead.rejected")
+                .tag("scope", "credential")
+                .description("Requests rejected by the OpenAPI bulkhead")
+                .register(meterRegistry);
+        Gauge.builder("oauth2.openapi.bulkhead.in-flight.total", inFlight, AtomicInteger::get)
+                .description("In-flight OpenAPI requests holding a bulkhead permit on this node")
+                .register(meterRegistry);
+        Gauge.builder("oauth2.openapi.bulkhead.compartments", bulkhead, DistributedBulkhead::size)
+                .description("Local compartments held by the OpenAPI bulkhead")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 尝试为一次凭证对资源的调用占用并发槽位
+     *
+     * @param credential 凭证标识（应用ID）
+     * @param resource   匹配到的资源
+     * @return 占用成功返回许可，调用结束后必须release；资源未配置concurrencyLimit时返回空许可；超限返回null
+     */
+    public Permit tryAcquire(String credential, SysResource resource) {
+        Integer limit = resource.getConcurrencyLimit();
+        if (!properties.isEnabled() || limit == null || limit <= 0) {
+            return Permit.NOOP;
+        }
+        String resourceKey = "resource:" + resource.getResourceId();
+        registerGauge(resourceKey, resource);
+
+        Permit credentialPermit = Permit.NOOP;
+        if (properties.getCredentialShare() < 1) {
+            int credentialLimit = Math.max(1, (int) Math.ceil(limit * properties.getCredentialShare()));
+            credentialPermit = bulkhead.tryAcquire("credential:" + credential + ":" + resource.getResourceId(),
+                    credentialLimit);
+            if (credentialPermit == null) {
+                credentialRejectedCounter.increment();
+                return null;
+            }
+        }
+        Permit resourcePermit = bulkhead.tryAcquire(resourceKey, limit);
+        if (resourcePermit == null) {
+            credentialPermit.release();
+            resourceRejectedCounter.increment();
+            return null;
+        }
+        Permit acquiredCredentialPermit = credentialPermit;
+        AtomicBoolean released = new AtomicBoolean();
+        inFlight.incrementAndGet();
+        return () -> {
+            if (released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+                resourcePermit.release();
+                acquiredCredentialPermit.release();
+            }
+        };
+    }
+
+    @Scheduled(fixedDelayString = "${oauth2.bulkhead.renew-interval:PT1S}")
+    public void renewLeases() {
+        bulkhead.renew(properties.getIdleTimeout());
+    }
+
+    private void registerGauge(String resourceKey, SysResource resource) {
+        if (gaugedResources.add(resourceKey)) {
+            Gauge.builder("oauth2.openapi.bulkhead.in-flight", bulkhead, b -> b.inFlight(resourceKey))
+                    .tag("resource", resource.getResourceCode())
+                    .description("In-flight OpenAPI requests on this node for a resource")
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.webapp.security.sso.api.service;
+
+import com.webapp.security.core.entity.SysQuotaUsage;
+import com.webapp.security.core.entity.SysResource;
+import com.webapp.security.core.ratelimit.DailyQuotaCounter;
+import com.webapp.security.core.service.SysQuotaUsageService;
+import com.webapp.security.sso.config.OpenApiQuotaProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * OpenAPI每日调用上限服务
+ * 请求路径上只做本地计数；定时把增量回写Redis（全局计数），再把全局累计值批量写入sys_quota_usage供管理端查询。
+ */
+@Slf4j
+@Component
+public class OpenApiQuotaService implements DisposableBean {
+
+    private final OpenApiQuotaProperties properties;
+    private final SysQuotaUsageService quotaUsageService;
+    private final DailyQuotaCounter counter;
+    private final Counter rejectedCounter;
+
+    /**
+     * 日期+计数键 -> 待写入MySQL的全局累计值
+     */
+    private final ConcurrentMap<String, SysQuotaUsage> pendingUsages = new ConcurrentHashMap<>();
+
+    public OpenApiQuotaService(OpenApiQuotaProperties properties, SysQuotaUsageService quotaUsageService,
+            StringRedisTemplate redisTemplate, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.quotaUsageService = quotaUsageService;
+        this.counter = new DailyQuotaCounter(
+                new RedisQuotaStore(redisTemplate, properties.getKeyPrefix(),
+                        properties.getRedisTtl()),
+                Clock.system(properties.getZone()));
+        this.rejectedCounter = Counter.builder("oauth2.openapi.quota.rejected")
+                .description("Requests rejected because the daily quota is exhausted")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 尝试计入一次凭证对资源的调用
+     *
+     * @param credential 凭证标识（应用ID）
+     * @param resource   匹配到的资源
+     * @return 未超过每日上限时计数并返回true，资源未配置dailyQuota时总是通过
+     */
+    public boolean tryConsume(String credential, SysResource resource) {
+        if (!properties.isEnabled() || resource.getDailyQuota() == null || resource.getDailyQuota() <= 0) {
+            return true;
+        }
+        boolean consumed = counter.tryConsume(credential + ":" + resource.getResourceId(), resource.getDailyQuota());
+        if (!consumed) {
+            rejectedCounter.increment();
+        }
+        return consumed;
+    }
+
+    /**
+     * 距离每日调用量重置的秒数
+     */
+    public long secondsUntilReset() {
+        ZonedDateTime now = ZonedDateTime.now(properties.getZone());
+        ZonedDateTime midnight = now.toLocalDate().plusDays(1).atStartOfDay(properties.getZone());
+        return Math.max(1, Duration.between(now, midnight).getSeconds());
+    }
+
+    /**
+     * 把本地计数回写Redis
+     */
+    @Scheduled(fixedDelayString = "${oauth2.quota.flush-interval:PT1S}")
+    public void flush() {
+        Map<LocalDate, Map<String, Long>> totals;
+        try {
+            totals = counter.flush();
+        } catch (Exception e) {
+            // 增量保留在本地，下次回写
+            log.warn("Failed to flush quota counters to redis", e);
+            return;
+        }
+        totals.forEach((day, usages) -> usages.forEach((key, total) -> {
+            int separator = key.lastIndexOf(':');
+            SysQuotaUsage usage = new SysQuotaUsage();
+            usage.setAppId(key.substring(0, separator));
+            usage.setResourceId(Long.valueOf(key.substring(separator + 1)));
+            usage.setUsageDate(day);
+            usage.setUsedCount(total);
+            pendingUsages.put(day + ":" + key, usage);
+        }));
+    }
+
+    /**
+     * 把全局累计值批量写入MySQL
+     */
+    @Scheduled(fixedDelayString = "${oauth2.quota.persist-interval:PT30S}")
+    public void persist() {
+        if (pendingUsages.isEmpty()) {
+            return;
+        }
+        List<SysQuotaUsage> usages = new ArrayList<>(pendingUsages.size());
+        pendingUsages.forEach((key, usage) -> {
+            if (pendingUsages.remove(key, usage)) {
+                usages.add(usage);
+            }
+        });
+        try {
+            quotaUsageService.saveUsages(usages);
+        } catch (Exception e) {
+            // 放回待写入集合，保留期间产生的较新值
+            for (SysQuotaUsage usage : usages) {
+                pendingUsages.putIfAbsent(usage.getUsageDate() + ":" + usage.getAppId() + ":" + usage.getResourceId(),
+                        usage);
+            }
+            log.warn("Failed to persist {} quota usages", usages.size(), e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        flush();
+        persist();
+    }
+}
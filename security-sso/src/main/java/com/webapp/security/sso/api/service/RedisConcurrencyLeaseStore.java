@@ -0,0 +1,69 @@
+package com.webapp.security.sso.api.service;
+
+import com.webapp.security.core.ratelimit.ConcurrencyLeaseStore;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * 基于Redis Lua脚本的集群并发槽位
+ * 各节点的持有数和租约到期时间分别保存在两个Hash中，以Redis服务器时间清理过期节点后原子地分配槽位
+ */
+public class RedisConcurrencyLeaseStore implements ConcurrencyLeaseStore {
+
+    /**
+     * KEYS[1]: 节点持有数Hash，KEYS[2]: 节点租约到期时间Hash；ARGV: 节点标识、并发上限、希望持有数、租约毫秒数
+     */
+    private static final DefaultRedisScript<Long> LEASE_SCRIPT = new DefaultRedisScript<>(
+            "redis.replicate_commands() "
+                    + "local owner = ARGV[1] "
+                    + "local limit = tonumber(ARGV[2]) "
+                    + "local wanted = tonumber(ARGV[3]) "
+                    + "local ttl = tonumber(ARGV[4]) "
+                    + "local time = redis.call('TIME') "
+                    + "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) "
+                    + "local expiry = redis.call('HGETALL', KEYS[2]) "
+                    + "local used = 0 "
+                    + "for i = 1, #expiry, 2 do "
+                    + "  local node = expiry[i] "
+                    + "  if node ~= owner then "
+                    + "    if tonumber(expiry[i + 1]) <= now then "
+                    + "      redis.call('HDEL', KEYS[1], node) "
+                    + "      redis.call('HDEL', KEYS[2], node) "
+                    + "    else "
+                    + "      used = used + (tonumber(redis.call('HGET', KEYS[1], node)) or 0) "
+                    + "    end "
+                    + "  end "
+                    + "end "
+                    + "local granted = math.max(0, math.min(wanted, limit - used)) "
+                    + "if granted > 0 then "
+                    + "  redis.call('HSET', KEYS[1], owner, granted) "
+                    + "  redis.call('HSET', KEYS[2], owner, now + ttl) "
+                    + "  redis.call('PEXPIRE', KEYS[1], ttl) "
+                    + "  redis.call('PEXPIRE', KEYS[2], ttl) "
+                    + "else "
+                    + "  redis.call('HDEL', KEYS[1], owner) "
+                    + "  redis.call('HDEL', KEYS[2], owner) "
+                    + "end "
+                    + "return granted",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final String keyPrefix;
+
+    public RedisConcurrencyLeaseStore(StringRedisTemplate redisTemplate, String keyPrefix) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+    }
+
+    @Override
+    public int lease(String key, String owner, int limit, int wanted, Duration ttl) {
+        // 两个Hash使用相同的hash tag，集群模式下落在同一槽
+        String base = keyPrefix + "{" + key + "}";
+        Long granted = redisTemplate.execute(LEASE_SCRIPT, Arrays.asList(base + ":holders", base + ":expiry"),
+                owner, String.valueOf(limit), String.valueOf(wanted), String.valueOf(ttl.toMillis()));
+        return granted != null ? granted.intValue() : 0;
+    }
+}
@@ -0,0 +1,68 @@
+package com.webapp.security.sso.api.service;
+
+import com.webapp.security.core.ratelimit.QuotaStore;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基于Redis的每日调用量存储
+ * 每个日期+计数键一个计数器，批量累加时在一次管道中执行INCRBY和EXPIRE
+ */
+public class RedisQuotaStore implements QuotaStore {
+
+    private final StringRedisTemplate redisTemplate;
+    private final String keyPrefix;
+    private final Duration ttl;
+
+    public RedisQuotaStore(StringRedisTemplate redisTemplate, String keyPrefix, Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+        this.ttl = ttl;
+    }
+
+    @Override
+    public long get(LocalDate day, String key) {
+        String value = redisTemplate.opsForValue().get(redisKey(day, key));
+        return value != null ? Long.parseLong(value) : 0;
+    }
+
+    @Override
+    public Map<String, Long> increment(LocalDate day, Map<String, Long> deltas) {
+        List<String> keys = new ArrayList<>(deltas.keySet());
+        List<Object> results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                for (String key : keys) {
+                    String redisKey = redisKey(day, key);
+                    ops.opsForValue().increment(redisKey, deltas.get(key));
+                    ops.expire(redisKey, ttl);
+                }
+                return null;
+            }
+        });
+        Map<String, Long> totals = new HashMap<>(keys.size() * 2);
+        for (int i = 0; i < keys.size(); i++) {
+            Object total = results.get(i * 2);
+            if (total instanceof Long) {
+                totals.put(keys.get(i), (Long) total);
+            }
+        }
+        return totals;
+    }
+
+    private String redisKey(LocalDate day, String key) {
+        return keyPrefix + day.format(DateTimeFormatter.BASIC_ISO_DATE) + ":" + key;
+    }
+}
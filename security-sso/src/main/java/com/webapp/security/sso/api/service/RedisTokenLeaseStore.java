@@ -0,0 +1,51 @@
+package com.webapp.security.sso.api.service;
+
+import com.webapp.security.core.ratelimit.TokenLeaseStore;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.util.Collections;
+
+/**
+ * 基于Redis Lua脚本的全局令牌桶
+ * 令牌数和上次补充时间保存在Hash中，以Redis服务器时间补充后原子地扣减本次租借的令牌
+ */
+public class RedisTokenLeaseStore implements TokenLeaseStore {
+
+    /**
+     * KEYS[1]: 令牌桶键；ARGV: 每秒令牌数、桶容量、租借数
+     */
+    private static final DefaultRedisScript<Long> LEASE_SCRIPT = new DefaultRedisScript<>(
+            "redis.replicate_commands() "
+                    + "local rate = tonumber(ARGV[1]) "
+                    + "local capacity = tonumber(ARGV[2]) "
+                    + "local requested = tonumber(ARGV[3]) "
+                    + "local time = redis.call('TIME') "
+                    + "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) "
+                    + "local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts') "
+                    + "local tokens = tonumber(state[1]) "
+                    + "local ts = tonumber(state[2]) "
+                    + "if tokens == nil or ts == nil then tokens = capacity ts = now end "
+                    + "tokens = math.min(capacity, tokens + math.max(0, now - ts) * rate / 1000) "
+                    + "local granted = math.min(requested, math.floor(tokens)) "
+                    + "tokens = tokens - granted "
+                    + "redis.call('HMSET', KEYS[1], 'tokens', tostring(tokens), 'ts', now) "
+                    + "redis.call('PEXPIRE', KEYS[1], math.ceil(capacity * 1000 / rate) + 1000) "
+                    + "return granted",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final String keyPrefix;
+
+    public RedisTokenLeaseStore(StringRedisTemplate redisTemplate, String keyPrefix) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+    }
+
+    @Override
+    public long lease(String key, int permitsPerSecond, int capacity, int requested) {
+        Long granted = redisTemplate.execute(LEASE_SCRIPT, Collections.singletonList(keyPrefix + key),
+                String.valueOf(permitsPerSecond), String.valueOf(capacity), String.valueOf(requested));
+        return granted != null ? granted : 0;
+    }
+}
@@ -0,0 +1,93 @@
+package com.webapp.security.sso.api.service;
+
+import com.webapp.security.core.entity.SysResource;
+import com.webapp.security.core.event.ResourceChangedEvent;
+import com.webapp.security.core.matcher.ResourcePathTrie;
+import com.webapp.security.core.service.SysResourceService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * OpenAPI资源匹配器
+ * 持有由全部启用资源编译的路径匹配树，按HTTP方法和路径在内存中解析请求对应的资源。
+ * 首次匹配时加载；资源变更时收到广播（管理端）或本地事件后整体重建，并定时重建以兜底丢失的广播。
+ */
+@Slf4j
+@Component
+public class ResourceMatcher implements MessageListener {
+
+    private final SysResourceService resourceService;
+
+    private volatile ResourcePathTrie trie;
+
+    public ResourceMatcher(SysResourceService resourceService,
+            RedisMessageListenerContainer listenerContainer,
+            @Value("${oauth2.resource-matcher.reload-channel:oauth2:resource-matcher:reload}") String reloadChannel) {
+        this.resourceService = resourceService;
+        listenerContainer.addMessageListener(this, new ChannelTopic(reloadChannel));
+    }
+
+    /**
+     * 匹配请求对应的资源
+     *
+     * @param method HTTP方法
+     * @param path   请求路径
+     * @return 匹配的资源，未匹配时返回null
+     */
+    public SysResource match(String method, String path) {
+        ResourcePathTrie current = trie;
+        if (current == null) {
+            current = loadIfAbsent();
+        }
+        return current.match(method, path);
+    }
+
+    /**
+     * 从数据库重建匹配树
+     */
+    public void reload() {
+        long start = System.nanoTime();
+        ResourcePathTrie reloaded = ResourcePathTrie.build(resourceService.listEnabledResources());
+        trie = reloaded;
+        log.info("Reloaded resource matcher, {} resources compiled in {} ms", reloaded.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Scheduled(fixedDelayString = "${oauth2.resource-matcher.refresh-interval:PT5M}",
+            initialDelayString = "${oauth2.resource-matcher.refresh-interval:PT5M}")
+    public void refresh() {
+        try {
+            reload();
+        } catch (Exception e) {
+            // 保留当前匹配树，等待下次重建
+            log.warn("Failed to refresh resource matcher", e);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onResourceChanged(ResourceChangedEvent event) {
+        refresh();
+    }
+
+    /**
+     * 接收管理端的资源变更广播
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        refresh();
+    }
+
+    private synchronized ResourcePathTrie loadIfAbsent() {
+        if (trie == null) {
+            reload();
+        }
+        return trie;
+    }
+}
@@ -47,6 +47,22 @@ public class ShortOpaqueTokenGenerator implements OAuth2TokenGenerator<OAuth2Tok
                 context.getAuthorizedScopes());
     }
 
+    /**
+     * 是否符合本生成器的令牌格式（32位小写16进制）
+     */
+    public static boolean isShortOpaqueToken(String tokenValue) {
+        if (tokenValue == null || tokenValue.length() != 32) {
+            return false;
+        }
+        for (int i = 0; i < tokenValue.length(); i++) {
+            char c = tokenValue.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * 生成16进制格式的令牌值
      * 格式类似: 5a89faa7b4fe1ba7537679c0d7c94039
@@ -1,26 +1,15 @@
 package com.webapp.security.sso.api.service;
 
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
-import com.webapp.security.core.entity.SysClientCredential;
-import com.webapp.security.core.entity.SysCredentialResourceRel;
-import com.webapp.security.core.entity.SysResource;
-import com.webapp.security.core.service.SysClientCredentialService;
-import com.webapp.security.core.service.SysCredentialResourceRelService;
-import com.webapp.security.core.service.SysResourceService;
+import com.webapp.security.sso.oauth2.expand.OAuth2AuthorizationView;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
 import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
-import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationService;
-import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * 令牌自省服务
@@ -31,20 +20,6 @@ public class TokenIntrospectionService {
 
     private static final Logger logger = LoggerFactory.getLogger(TokenIntrospectionService.class);
 
-    private final SysClientCredentialService clientCredentialService;
-    private final SysCredentialResourceRelService credentialResourceRelService;
-    private final SysResourceService resourceService;
-
-    @Autowired
-    public TokenIntrospectionService(
-            SysClientCredentialService clientCredentialService,
-            SysCredentialResourceRelService credentialResourceRelService,
-            SysResourceService resourceService) {
-        this.clientCredentialService = clientCredentialService;
-        this.credentialResourceRelService = credentialResourceRelService;
-        this.resourceService = resourceService;
-    }
-
     /**
      * 处理令牌自省请求
      *
@@ -52,6 +27,16 @@ public class TokenIntrospectionService {
      * @return 令牌自省结果
      */
     public Map<String, Object> introspect(OAuth2Authorization authorization) {
+        return introspect(OAuth2AuthorizationView.of(authorization));
+    }
+
+    /**
+     * 处理令牌自省请求（延迟解码视图，只读取访问令牌时间和少量属性）
+     *
+     * @param authorization 授权记录视图
+     * @return 令牌自省结果
+     */
+    public Map<String, Object> introspect(OAuth2AuthorizationView authorization) {
         try {
             // 获取令牌属性
             Map<String, Object> claims = new HashMap<>();
@@ -65,27 +50,18 @@ public class TokenIntrospectionService {
                 claims.put("username", authorization.getPrincipalName());
             }
 
-            OAuth2Authorization.Token<?> accessToken = authorization.getToken(OAuth2TokenType.ACCESS_TOKEN.getValue());
+            OAuth2AccessToken accessToken = authorization.getAccessToken();
             if (accessToken != null) {
-                if (accessToken.getToken().getIssuedAt() != null) {
-                    claims.put("iat", accessToken.getToken().getIssuedAt().getEpochSecond());
+                if (accessToken.getIssuedAt() != null) {
+                    claims.put("iat", accessToken.getIssuedAt().getEpochSecond());
                 }
-                if (accessToken.getToken().getExpiresAt() != null) {
-                    claims.put("exp", accessToken.getToken().getExpiresAt().getEpochSecond());
+                if (accessToken.getExpiresAt() != null) {
+                    claims.put("exp", accessToken.getExpiresAt().getEpochSecond());
                 }
             }
 
             // 添加受众
             claims.put("aud", Arrays.asList("api://default"));
-            String appId = authorization.getAttribute("app_id");
-            // 从数据库获取权限信息
-            //List<String> permissions = getPermissionsFromDatabase(appId);
-            //if (!permissions.isEmpty()) {
-            //    claims.put("authorities", String.join(" ", permissions));
-            //    claims.put("scope", String.join(" ", permissions));
-            //} else {
-            //    logger.warn("No permissions found for client: {}", clientId);
-            //}
 
             String permissions = authorization.getAttribute("permissions");
             if (permissions != null) {
@@ -103,77 +79,4 @@ public class TokenIntrospectionService {
             return response;
         }
     }
-
-    /**
-     * 从数据库获取客户端对应的权限
-     *
-     * @param appId 客户端ID
-     * @return 权限列表
-     */
-    public List<String> getPermissionsFromDatabase(String appId) {
-        logger.info("Getting permissions from database for client: {}", appId);
-
-        List<String> permissions = new ArrayList<>();
-        try {
-            // 1. 首先根据clientId查找对应的凭证
-            logger.info("Looking up credential for appId: {}", appId);
-            SysClientCredential credential = clientCredentialService.getOne(
-                    new LambdaQueryWrapper<SysClientCredential>()
-                            .eq(SysClientCredential::getAppId, appId)
-                            .eq(SysClientCredential::getStatus, 1));
-
-            if (credential == null) {
-                logger.warn("No active credential found for client_id: {}", appId);
-                return permissions;
-            }
-
-            logger.info("Found credential: id={}, app_id={} for client_id: {}",
-                    credential.getId(), credential.getAppId(), appId);
-
-            // 2. 获取凭证对应的资源ID列表
-            List<Long> resourceIds = new ArrayList<>();
-            // 查询关联表
-            logger.info("Looking up resource relations for credential id: {}", credential.getId());
-            List<SysCredentialResourceRel> relations = credentialResourceRelService.list(
-                    new LambdaQueryWrapper<SysCredentialResourceRel>()
-                            .eq(SysCredentialResourceRel::getCredentialId, credential.getId()));
-
-            logger.info("Found {} resource relations for credential id: {}", relations.size(), credential.getId());
-
-            // 提取资源ID
-            for (SysCredentialResourceRel rel : relations) {
-                resourceIds.add(rel.getResourceId());
-                logger.debug("Added resource id: {} to list", rel.getResourceId());
-            }
-
-            if (resourceIds.isEmpty()) {
-                logger.warn("No resources assigned to credential: {}", credential.getId());
-                return permissions;
-            }
-
-            logger.info("Found {} resource IDs: {}", resourceIds.size(), resourceIds);
-
-            // 3. 获取资源详情
-            logger.info("Looking up resource details for resource ids: {}", resourceIds);
-            List<SysResource> resources = resourceService.listByIds(resourceIds)
-                    .stream()
-                    .filter(r -> r.getStatus() == 1) // 只获取启用的资源
-                    .collect(Collectors.toList());
-
-            logger.info("Found {} active resources", resources.size());
-
-            // 4. 提取资源权限代码
-            for (SysResource resource : resources) {
-                permissions.add(resource.getResourceCode());
-                logger.debug("Added permission: {}", resource.getResourceCode());
-            }
-
-            logger.info("Final permissions list: {}", permissions);
-        } catch (Exception e) {
-            logger.error("Error getting permissions for client: " + appId, e);
-            logger.error("Exception details:", e);
-        }
-
-        return permissions;
-    }
 }
@@ -0,0 +1,47 @@
+package com.webapp.security.sso.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * OAuth2授权记录缓存配置
+ * 本地Caffeine缓存(L1) + Redis共享缓存(L2)
+ */
+@Configuration
+@ConfigurationProperties(prefix = "oauth2.authorization.cache")
+@Data
+public class AuthorizationCacheProperties {
+
+    /**
+     * 是否启用授权记录缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 本地缓存最大条目数
+     */
+    private long localMaximumSize = 10000;
+
+    /**
+     * 本地缓存最长存活时间，防止失效广播丢失时长期使用旧数据
+     */
+    private Duration localMaxTtl = Duration.ofMinutes(5);
+
+    /**
+     * Redis缓存最长存活时间，令牌无过期时间时使用
+     */
+    private Duration redisMaxTtl = Duration.ofHours(2);
+
+    /**
+     * Redis键前缀
+     */
+    private String keyPrefix = "oauth2:authorization:";
+
+    /**
+     * 缓存失效广播频道
+     */
+    private String evictChannel = "oauth2:authorization:evict";
+}
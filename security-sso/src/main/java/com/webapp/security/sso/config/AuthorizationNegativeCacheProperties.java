@@ -0,0 +1,52 @@
+package com.webapp.security.sso.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * 无效令牌负缓存配置
+ * 已签发访问令牌的布隆过滤器（Redis位图） + 短期的已知无效令牌集合
+ */
+@Configuration
+@ConfigurationProperties(prefix = "oauth2.authorization.negative-cache")
+@Data
+public class AuthorizationNegativeCacheProperties {
+
+    /**
+     * 是否启用负缓存（仅MySQL存储生效）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 每代布隆过滤器的位数，默认2^24位（2MB），约可容纳100万令牌、误判率1%
+     */
+    private long bitSize = 1L << 24;
+
+    /**
+     * 哈希函数个数
+     */
+    private int hashFunctions = 7;
+
+    /**
+     * 每代过滤器覆盖的签发时间跨度，必须不小于访问令牌的最长有效期
+     */
+    private Duration generation = Duration.ofDays(1);
+
+    /**
+     * 已知无效令牌的缓存时间
+     */
+    private Duration invalidTtl = Duration.ofMinutes(5);
+
+    /**
+     * 重建过滤器时每批读取的记录数
+     */
+    private int rebuildBatchSize = 1000;
+
+    /**
+     * Redis键前缀
+     */
+    private String keyPrefix = "oauth2:authorization:negative:";
+}
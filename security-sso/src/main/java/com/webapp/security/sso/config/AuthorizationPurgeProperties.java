@@ -0,0 +1,46 @@
+package com.webapp.security.sso.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * 过期OAuth2授权记录清理配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "oauth2.authorization.purge")
+@Data
+public class AuthorizationPurgeProperties {
+
+    /**
+     * 是否启用清理任务
+     */
+    private boolean enabled = true;
+
+    /**
+     * 每批删除的最大行数
+     */
+    private int batchSize = 1000;
+
+    /**
+     * 单次执行最多删除的批次数，剩余数据留到下次执行
+     */
+    private int maxBatchesPerRun = 100;
+
+    /**
+     * 批次之间的间隔，避免长时间占用数据库
+     */
+    private Duration batchInterval = Duration.ofMillis(200);
+
+    /**
+     * 过期后的保留时间，超过保留时间才删除
+     */
+    private Duration retention = Duration.ofHours(1);
+
+    /**
+     * 分布式锁的持有时间，防止多个节点同时清理
+     */
+    private Duration lockTtl = Duration.ofMinutes(10);
+}
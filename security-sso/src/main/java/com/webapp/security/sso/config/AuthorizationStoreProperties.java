@@ -0,0 +1,43 @@
+package com.webapp.security.sso.config;
+
+import com.webapp.security.sso.oauth2.expand.OAuth2AuthorizationConverter;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * OAuth2授权记录存储配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "oauth2.authorization.store")
+@Data
+public class AuthorizationStoreProperties {
+
+    /**
+     * 存储类型：mysql 或 redis
+     */
+    private StoreType type = StoreType.MYSQL;
+
+    /**
+     * 授权属性与令牌元数据的写入格式：json 或 binary
+     * 读取时自动识别两种格式，所有节点升级后再切换为binary
+     */
+    private OAuth2AuthorizationConverter.CodecType codec = OAuth2AuthorizationConverter.CodecType.JSON;
+
+    /**
+     * Redis存储的键前缀
+     */
+    private String keyPrefix = "oauth2:authorization:store:";
+
+    /**
+     * 令牌均无过期时间时Redis键的默认存活时间
+     */
+    private Duration defaultTtl = Duration.ofHours(2);
+
+    public enum StoreType {
+        MYSQL,
+        REDIS
+    }
+}
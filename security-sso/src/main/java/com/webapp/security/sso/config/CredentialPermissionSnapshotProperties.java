@@ -0,0 +1,28 @@
+package com.webapp.security.sso.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * OpenAPI凭证权限快照配置
+ * 应用ID -> 有效权限代码，本地缓存 + Redis Hash；
+ * Redis键（redis-key）与广播频道（evict-channel）由管理端共用的CredentialPermissionSnapshotStore读取
+ */
+@Configuration
+@ConfigurationProperties(prefix = "oauth2.permission-snapshot")
+@Data
+public class CredentialPermissionSnapshotProperties {
+
+    /**
+     * 本地快照最大条目数
+     */
+    private long localMaximumSize = 10000;
+
+    /**
+     * 本地快照最长存活时间，防止失效广播丢失时长期使用旧权限
+     */
+    private Duration localMaxTtl = Duration.ofMinutes(10);
+}
@@ -0,0 +1,37 @@
+package com.webapp.security.sso.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * 客户端凭证校验结果缓存配置
+ * 同一客户端ID与密钥在短时间内重复认证时跳过BCrypt
+ */
+@Configuration
+@ConfigurationProperties(prefix = "oauth2.credential-cache")
+@Data
+public class CredentialVerificationCacheProperties {
+
+    /**
+     * 是否启用凭证校验缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 校验结果的存活时间，失效广播丢失时旧密钥最多在此时间内仍可用
+     */
+    private Duration ttl = Duration.ofMinutes(1);
+
+    /**
+     * 最大条目数
+     */
+    private long maximumSize = 10000;
+
+    /**
+     * 缓存失效广播频道
+     */
+    private String evictChannel = "oauth2:credential-cache:evict";
+}
@@ -0,0 +1,47 @@
+package com.webapp.security.sso.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * JWK签名密钥轮换配置
+ * 下一把密钥在当前密钥到期前rotateBefore生成并发布到JWKS，发布满publishLead后才用于签名
+ */
+@Configuration
+@ConfigurationProperties(prefix = "oauth2.jwk")
+@Data
+public class JwkRotationProperties {
+
+    /**
+     * 新密钥的签名算法：RS256（RSA-2048）或ES256（EC P-256），修改后按轮换流程切换
+     */
+    private String algorithm = "RS256";
+
+    /**
+     * 密钥有效期
+     */
+    private Duration keyLifetime = Duration.ofDays(30);
+
+    /**
+     * 当前签名密钥到期前多久生成下一把密钥
+     */
+    private Duration rotateBefore = Duration.ofDays(7);
+
+    /**
+     * 新密钥发布到JWKS后多久开始用于签名，应大于资源服务器缓存JWKS的时长
+     */
+    private Duration publishLead = Duration.ofHours(1);
+
+    /**
+     * JWKS响应的Cache-Control max-age
+     */
+    private Duration cacheMaxAge = Duration.ofMinutes(5);
+
+    /**
+     * 验签遇到未知kid时重新加载密钥的最小间隔
+     */
+    private Duration unknownKeyReloadInterval = Duration.ofSeconds(30);
+}
@@ -1,11 +1,16 @@
 package com.webapp.security.sso.config;
 
+import com.nimbusds.jose.jwk.JWK;
+import com.webapp.security.sso.oauth2.service.AuthorizationVersionService;
+import com.webapp.security.sso.oauth2.service.JwkService;
+import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
 import org.springframework.security.oauth2.server.authorization.token.JwtEncodingContext;
 import org.springframework.security.oauth2.server.authorization.token.OAuth2TokenCustomizer;
 
@@ -19,10 +24,14 @@ import java.util.stream.Collectors;
  * JWT令牌自定义配置
  */
 @Configuration
+@RequiredArgsConstructor
 public class JwtConfig {
 
     private static final Logger log = LoggerFactory.getLogger(JwtConfig.class);
 
+    private final JwkService jwkService;
+    private final AuthorizationVersionService authorizationVersionService;
+
     /**
      * 自定义JWT令牌内容
      * 将用户权限信息添加到令牌中
@@ -32,6 +41,13 @@ public class JwtConfig {
         return context -> {
             log.info("JWT customizer invoked for token type: {}", context.getTokenType().getValue());
 
+            // JWS算法跟随当前签名密钥（RS256或ES256），切换算法时无需修改客户端配置
+            JWK signingKey = jwkService.getKeyRing().getSigningKey();
+            SignatureAlgorithm algorithm = SignatureAlgorithm.from(signingKey.getAlgorithm().getName());
+            if (algorithm != null) {
+                context.getJwsHeader().algorithm(algorithm);
+            }
+
             // 只处理访问令牌
             if (context.getTokenType().getValue().equals("access_token")) {
                 // 获取认证信息
@@ -66,6 +82,14 @@ public class JwtConfig {
                             .claim("iat", Instant.now().getEpochSecond()) // 签发时间
                             .claim("nbf", Instant.now().getEpochSecond()); // 生效时间
                     // 注意：不设置expiresAt，让Spring Security OAuth2自动处理过期时间
+
+                    // 权限对应的授权版本，刷新令牌时版本未变化则复用权限
+                    AuthorizationVersionService.Stamp stamp = authorizationVersionService.resolve(principal);
+                    if (stamp != null) {
+                        context.getClaims()
+                                .claim(AuthorizationVersionService.USER_ID_CLAIM, stamp.getUserId())
+                                .claim(AuthorizationVersionService.AUTH_VERSION_CLAIM, stamp.getVersion());
+                    }
                 }
             }
         };
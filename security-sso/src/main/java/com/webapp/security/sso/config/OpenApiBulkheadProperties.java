@@ -0,0 +1,57 @@
+package com.webapp.security.sso.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * OpenAPI并发隔离配置
+ * 按资源和凭证+资源执行SysResource的concurrencyLimit
+ */
+@Configuration
+@ConfigurationProperties(prefix = "oauth2.bulkhead")
+@Data
+public class OpenApiBulkheadProperties {
+
+    /**
+     * 是否启用并发隔离
+     */
+    private boolean enabled = true;
+
+    /**
+     * 单个凭证可占用资源并发上限的比例，大于等于1时不单独限制凭证
+     */
+    private double credentialShare = 0.5;
+
+    /**
+     * 每次扩充时在当前在途数之上多租借的槽位数
+     */
+    private int leaseSize = 4;
+
+    /**
+     * 槽位租约有效期，节点未按时续期时其槽位自动释放
+     */
+    private Duration leaseTtl = Duration.ofSeconds(5);
+
+    /**
+     * 集群槽位已满后再次访问Redis的最小间隔
+     */
+    private Duration retryInterval = Duration.ofMillis(50);
+
+    /**
+     * Redis访问失败后降级为本地隔离的时长
+     */
+    private Duration failureBackoff = Duration.ofSeconds(5);
+
+    /**
+     * 本地隔离舱空闲多久后清除
+     */
+    private Duration idleTimeout = Duration.ofMinutes(10);
+
+    /**
+     * Redis键前缀
+     */
+    private String keyPrefix = "oauth2:bulkhead:";
+}
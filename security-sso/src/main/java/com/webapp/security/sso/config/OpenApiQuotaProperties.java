@@ -0,0 +1,38 @@
+package com.webapp.security.sso.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.time.ZoneId;
+
+/**
+ * OpenAPI每日调用上限配置
+ * 按凭证+资源执行SysResource的dailyQuota
+ */
+@Configuration
+@ConfigurationProperties(prefix = "oauth2.quota")
+@Data
+public class OpenApiQuotaProperties {
+
+    /**
+     * 是否启用每日调用上限
+     */
+    private boolean enabled = true;
+
+    /**
+     * 日期边界所在时区
+     */
+    private ZoneId zone = ZoneId.systemDefault();
+
+    /**
+     * Redis计数键的存活时间，需覆盖当天剩余时间
+     */
+    private Duration redisTtl = Duration.ofDays(2);
+
+    /**
+     * Redis键前缀
+     */
+    private String keyPrefix = "oauth2:quota:";
+}
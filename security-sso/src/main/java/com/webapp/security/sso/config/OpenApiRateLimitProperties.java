@@ -0,0 +1,52 @@
+package com.webapp.security.sso.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * OpenAPI限流配置
+ * 按凭证+资源执行SysResource的qpsLimit/burstCapacity
+ */
+@Configuration
+@ConfigurationProperties(prefix = "oauth2.rate-limit")
+@Data
+public class OpenApiRateLimitProperties {
+
+    /**
+     * 是否启用限流
+     */
+    private boolean enabled = true;
+
+    /**
+     * 每次从Redis租借的令牌数占每秒限额的比例
+     */
+    private double leaseFraction = 0.1;
+
+    /**
+     * 每次租借的最大令牌数
+     */
+    private int maxLeaseSize = 100;
+
+    /**
+     * 租借令牌的有效期，过期未用完的令牌作废
+     */
+    private Duration leaseTtl = Duration.ofSeconds(1);
+
+    /**
+     * Redis访问失败后降级为本地令牌桶的时长
+     */
+    private Duration failureBackoff = Duration.ofSeconds(5);
+
+    /**
+     * 本地令牌桶空闲多久后清除
+     */
+    private Duration idleTimeout = Duration.ofMinutes(10);
+
+    /**
+     * Redis键前缀
+     */
+    private String keyPrefix = "oauth2:rate-limit:";
+}
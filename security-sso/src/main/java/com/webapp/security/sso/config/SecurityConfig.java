@@ -1,15 +1,18 @@
 package com.webapp.security.sso.config;
 
-import com.nimbusds.jose.jwk.JWKSet;
-import com.nimbusds.jose.jwk.RSAKey;
-import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
 import com.nimbusds.jose.jwk.source.JWKSource;
 import com.nimbusds.jose.proc.SecurityContext;
+import com.webapp.security.sso.api.filter.OpenApiRateLimitFilter;
+import com.webapp.security.sso.api.service.OpenApiBulkhead;
+import com.webapp.security.sso.api.service.OpenApiQuotaService;
+import com.webapp.security.sso.api.service.OpenApiRateLimiter;
+import com.webapp.security.sso.api.service.ResourceMatcher;
 import com.webapp.security.sso.api.service.ShortOpaqueTokenGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import com.webapp.security.sso.oauth2.entity.OAuth2Jwk;
 import com.webapp.security.sso.oauth2.service.JwkService;
+import com.webapp.security.sso.oauth2.service.LocalJwtDecoder;
+import com.webapp.security.sso.oauth2.service.RotatingJwkSource;
 import com.webapp.security.sso.oauth2.expand.OAuth2RegisteredClientService;
 import com.webapp.security.sso.oauth2.expand.UserDetailsServiceImpl;
 import lombok.RequiredArgsConstructor;
@@ -20,6 +23,9 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.DependsOn;
 import org.springframework.context.annotation.Primary;
 import org.springframework.core.annotation.Order;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
@@ -34,9 +40,11 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
-import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import com.webapp.security.sso.oauth2.expand.CachingOAuth2AuthorizationService;
 import com.webapp.security.sso.oauth2.expand.MyBatisOAuth2AuthorizationService;
+import com.webapp.security.sso.oauth2.expand.NegativeCachingOAuth2AuthorizationService;
+import com.webapp.security.sso.oauth2.expand.RedisOAuth2AuthorizationService;
 import com.webapp.security.sso.oauth2.mapper.OAuth2AuthorizationMapper;
 import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationService;
 import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
@@ -51,6 +59,7 @@ import org.springframework.security.oauth2.server.authorization.token.JwtEncodin
 import org.springframework.security.oauth2.server.authorization.token.OAuth2TokenCustomizer;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.LoginUrlAuthenticationEntryPoint;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.security.web.util.matcher.MediaTypeRequestMatcher;
 
 /**
@@ -95,7 +104,12 @@ public class SecurityConfig {
         @Bean
         @Order(2)
         public SecurityFilterChain openApiSecurityFilterChain(
-                        HttpSecurity http) throws Exception {
+                        HttpSecurity http,
+                        ResourceMatcher resourceMatcher,
+                        OpenApiRateLimiter openApiRateLimiter,
+                        OpenApiQuotaService openApiQuotaService,
+                        OpenApiBulkhead openApiBulkhead,
+                        OAuth2AuthorizationService authorizationService) throws Exception {
                 http
                                 // 使用requestMatchers()替代antMatcher()来匹配多个路径
                                 .requestMatchers(matchers -> matchers
@@ -107,6 +121,10 @@ public class SecurityConfig {
                                                 .anyRequest().authenticated())
                                 // 为自省端点启用HTTP Basic认证
                                 .httpBasic(Customizer.withDefaults())
+                                // 按凭证+资源执行资源限额和并发隔离
+                                .addFilterAfter(new OpenApiRateLimitFilter(resourceMatcher, openApiRateLimiter,
+                                                openApiQuotaService, openApiBulkhead, authorizationService),
+                                                BasicAuthenticationFilter.class)
                                 .csrf(AbstractHttpConfigurer::disable)
                                 .sessionManagement(session -> session
                                                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS));
@@ -171,25 +189,22 @@ public class SecurityConfig {
         }
 
         /**
-         * JWK源
+         * JWK源，随JwkService的密钥快照轮换
          */
         @Bean
         @DependsOn("flywayInitializer")
         public JWKSource<SecurityContext> jwkSource() {
-                // 获取当前有效的JWK
-                OAuth2Jwk currentJwk = jwkService.getCurrentJwk();
-                RSAKey rsaKey = jwkService.toRSAKey(currentJwk);
-
-                JWKSet jwkSet = new JWKSet(rsaKey);
-                return new ImmutableJWKSet<>(jwkSet);
+                // 启动时加载密钥快照，没有有效密钥时生成
+                jwkService.getKeyRing();
+                return new RotatingJwkSource(jwkService);
         }
 
         /**
-         * JWT解码器
+         * JWT解码器，直接使用本服务的密钥快照验签
          */
         @Bean
-        public JwtDecoder jwtDecoder(@Value("${oauth2.server.base-url}") String baseUrl) {
-                return NimbusJwtDecoder.withJwkSetUri(baseUrl + "/oauth2/jwks").build();
+        public JwtDecoder jwtDecoder() {
+                return new LocalJwtDecoder(jwkService);
         }
 
         /**
@@ -225,14 +240,54 @@ public class SecurityConfig {
         }
 
         /**
-         * OAuth2授权服务 - MyBatis实现（生产环境）
-         * 授权记录持久化到oauth2_authorization表
+         * OAuth2授权服务
+         * 默认MyBatis实现：授权记录持久化到oauth2_authorization表，按令牌摘要列索引查询，
+         * 启用负缓存时先经过已签发令牌过滤器，启用缓存时外层包装本地+Redis两级缓存；
+         * 存储类型为redis时授权记录直接存入Redis，按令牌过期时间自动过期，不再包装缓存
          */
         @Bean
         @DependsOn("flywayInitializer")
         public OAuth2AuthorizationService authorizationService(OAuth2AuthorizationMapper authorizationMapper,
-                        RegisteredClientRepository registeredClientRepository) {
-                return new MyBatisOAuth2AuthorizationService(authorizationMapper, registeredClientRepository);
+                        RegisteredClientRepository registeredClientRepository,
+                        @Value("${oauth2.authorization.token-hash-lookup:true}") boolean tokenHashLookup,
+                        @Value("${oauth2.authorization.token-format-hint:true}") boolean tokenFormatHint,
+                        AuthorizationStoreProperties storeProperties,
+                        AuthorizationCacheProperties cacheProperties,
+                        AuthorizationNegativeCacheProperties negativeCacheProperties,
+                        RedisConnectionFactory redisConnectionFactory,
+                        StringRedisTemplate stringRedisTemplate,
+                        RedisMessageListenerContainer redisMessageListenerContainer) {
+                if (storeProperties.getType() == AuthorizationStoreProperties.StoreType.REDIS) {
+                        log.info("OAuth2 authorization store: redis, key prefix: {}", storeProperties.getKeyPrefix());
+                        RedisOAuth2AuthorizationService redisAuthorizationService = new RedisOAuth2AuthorizationService(
+                                        stringRedisTemplate, registeredClientRepository,
+                                        storeProperties);
+                        redisAuthorizationService.setCodecType(storeProperties.getCodec());
+                        return redisAuthorizationService;
+                }
+                MyBatisOAuth2AuthorizationService authorizationService = new MyBatisOAuth2AuthorizationService(
+                                authorizationMapper, registeredClientRepository);
+                authorizationService.setTokenHashLookupEnabled(tokenHashLookup);
+                authorizationService.setTokenFormatHintEnabled(tokenFormatHint);
+                authorizationService.setCodecType(storeProperties.getCodec());
+
+                OAuth2AuthorizationService service = authorizationService;
+                if (negativeCacheProperties.isEnabled()) {
+                        log.info("OAuth2 authorization negative cache enabled, bloom filter bits: {}",
+                                        negativeCacheProperties.getBitSize());
+                        NegativeCachingOAuth2AuthorizationService negativeCachingService = new NegativeCachingOAuth2AuthorizationService(
+                                        authorizationService, authorizationMapper,
+                                        stringRedisTemplate, negativeCacheProperties);
+                        negativeCachingService.rebuildIfNecessary();
+                        service = negativeCachingService;
+                }
+                if (!cacheProperties.isEnabled()) {
+                        return service;
+                }
+                log.info("OAuth2 authorization cache enabled, local maximum size: {}",
+                                cacheProperties.getLocalMaximumSize());
+                return new CachingOAuth2AuthorizationService(service, redisConnectionFactory,
+                                redisMessageListenerContainer, cacheProperties);
         }
 
         /**
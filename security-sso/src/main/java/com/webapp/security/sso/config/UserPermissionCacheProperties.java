@@ -0,0 +1,37 @@
+package com.webapp.security.sso.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * 用户权限缓存配置
+ * 登录、刷新令牌、第三方登录加载用户时复用用户信息与权限，角色、权限变更时广播清除
+ */
+@Configuration
+@ConfigurationProperties(prefix = "oauth2.user-permission-cache")
+@Data
+public class UserPermissionCacheProperties {
+
+    /**
+     * 是否启用用户权限缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 条目存活时间，失效广播丢失时旧权限最多在此时间内仍被使用
+     */
+    private Duration ttl = Duration.ofMinutes(5);
+
+    /**
+     * 最大条目数
+     */
+    private long maximumSize = 10000;
+
+    /**
+     * 缓存失效广播频道
+     */
+    private String evictChannel = "oauth2:user-permission-cache:evict";
+}
@@ -0,0 +1,20 @@
+package com.webapp.security.sso.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 用户权限索引配置
+ * 角色 -> 权限集合、用户 -> 角色在启动时整体加载，角色权限变更时按角色ID重算
+ */
+@Configuration
+@ConfigurationProperties(prefix = "oauth2.user-permission-index")
+@Data
+public class UserPermissionIndexProperties {
+
+    /**
+     * 角色权限变更广播频道
+     */
+    private String reloadChannel = "oauth2:user-permission-index:reload";
+}
@@ -1,21 +1,20 @@
 package com.webapp.security.sso.oauth2.controller;
 
-import com.nimbusds.jose.jwk.JWK;
-import com.nimbusds.jose.jwk.JWKSet;
-import com.nimbusds.jose.jwk.RSAKey;
-import com.webapp.security.sso.oauth2.entity.OAuth2Jwk;
+import com.webapp.security.sso.config.JwkRotationProperties;
+import com.webapp.security.sso.oauth2.service.JwkKeyRing;
 import com.webapp.security.sso.oauth2.service.JwkService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-
 /**
  * JWK Set端点控制�? */
 @RestController
@@ -25,35 +24,31 @@ public class JwkSetController {
     private static final Logger log = LoggerFactory.getLogger(JwkSetController.class);
     
     private final JwkService jwkService;
+    private final JwkRotationProperties properties;
     
     /**
      * JWK Set端点
+     * 返回密钥快照中预先序列化的公开JWKS，带ETag和Cache-Control，If-None-Match命中时返回304
      */
     @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
-    public Map<String, Object> jwkSet() {
+    public ResponseEntity<String> jwkSet(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
             log.debug("JWK Set endpoint accessed");
             
-            // 获取所有有效的JWK
-            List<OAuth2Jwk> activeJwks = jwkService.getAllActiveJwks();
-            
-            // 构建JWK Set
-            if (activeJwks.isEmpty()) {
-                return new JWKSet().toJSONObject();
-            }
-            
-            // 转换为JWK列表
-            List<JWK> jwks = new ArrayList<>();
-            for (OAuth2Jwk jwk : activeJwks) {
-                RSAKey rsaKey = jwkService.toRSAKey(jwk);
-                // 只包含公钥信
-                jwks.add(rsaKey.toPublicJWK());
+            JwkKeyRing keyRing = jwkService.getKeyRing();
+            CacheControl cacheControl = CacheControl.maxAge(properties.getCacheMaxAge()).cachePublic();
+            if (keyRing.getEtag().equals(ifNoneMatch)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(keyRing.getEtag())
+                        .cacheControl(cacheControl)
+                        .build();
             }
-            
-            JWKSet jwkSet = new JWKSet(jwks);
-            
-            log.debug("Returning JWK Set with {} keys", activeJwks.size());
-            return jwkSet.toJSONObject();
+            return ResponseEntity.ok()
+                    .eTag(keyRing.getEtag())
+                    .cacheControl(cacheControl)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(keyRing.getPublicJson());
             
         } catch (Exception e) {
             log.error("Error generating JWK Set", e);
@@ -61,4 +56,3 @@ public class JwkSetController {
         }
     }
 }
-
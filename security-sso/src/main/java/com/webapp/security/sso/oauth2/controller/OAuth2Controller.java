@@ -6,6 +6,7 @@ import com.webapp.security.sso.oauth2.context.ClientContext;
 import com.webapp.security.sso.oauth2.model.LoginRequest;
 import com.webapp.security.sso.oauth2.model.RefreshTokenRequest;
 import com.webapp.security.sso.oauth2.model.LogoutRequest;
+import com.webapp.security.sso.oauth2.service.AuthorizationVersionService;
 import com.webapp.security.sso.oauth2.service.OAuth2Service;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -54,6 +55,8 @@ public class OAuth2Controller {
     // 添加ClientIdConfig依赖
     private final ClientIdConfig clientIdConfig;
 
+    private final AuthorizationVersionService authorizationVersionService;
+
     /**
      * 用户登录 - 使用OAuth2TokenContext方式
      */
@@ -265,26 +268,32 @@ public class OAuth2Controller {
             // 5. 获取注册客户端和用户信息
             RegisteredClient registeredClient = oAuth2Service.getRegisteredClient(clientId);
 
-            // 6. 重新构建认证信息 - 需要从UserDetailsService重新加载用户权限
-            String username = authorization.getPrincipalName();
-
-            // 从Spring上下文中获取UserDetailsService
-            UserDetailsService userDetailsService = WebApplicationContextUtils
-                    .getRequiredWebApplicationContext(request.getServletContext())
-                    .getBean(UserDetailsService.class);
-
-            // 加载完整的用户详情，包括权限
-            UserDetails userDetails = userDetailsService
-                    .loadUserByUsername(username);
-
-            // 使用完整的用户权限创建新的认证对象
-            Authentication authentication = new UsernamePasswordAuthenticationToken(
-                    userDetails,
-                    null,
-                    userDetails.getAuthorities());
+            // 6. 重新构建认证信息 - 授权版本未变化时复用授权记录中的权限
+            Authentication authentication = authorizationVersionService.restore(authorization);
+            if (authentication == null) {
+                // 版本已变化或无法确定，需要从UserDetailsService重新加载用户权限
+                String username = authorization.getPrincipalName();
+
+                // 从Spring上下文中获取UserDetailsService
+                UserDetailsService userDetailsService = WebApplicationContextUtils
+                        .getRequiredWebApplicationContext(request.getServletContext())
+                        .getBean(UserDetailsService.class);
+
+                // 加载完整的用户详情，包括权限
+                UserDetails userDetails = userDetailsService
+                        .loadUserByUsername(username);
+
+                // 使用完整的用户权限创建新的认证对象
+                authentication = new UsernamePasswordAuthenticationToken(
+                        userDetails,
+                        null,
+                        userDetails.getAuthorities());
+            }
 
-            // 7. 创建新的授权构建器
-            OAuth2Authorization.Builder authorizationBuilder = OAuth2Authorization.from(authorization);
+            // 7. 创建新的授权构建器，使用新的授权ID，避免覆盖原授权记录
+            // 这样同时存在新旧两个授权记录，旧的会自然过期
+            OAuth2Authorization.Builder authorizationBuilder = OAuth2Service.refreshedAuthorization(authorization,
+                    registeredClient);
 
             // 8. 生成新的访问令牌
             OAuth2AccessToken newAccessToken = oAuth2Service.generateAccessToken(authentication, registeredClient,
@@ -299,11 +308,6 @@ public class OAuth2Controller {
             OAuth2RefreshToken newRefreshToken = oAuth2Service.generateRefreshToken(authentication, registeredClient,
                     authorizationBuilder);
 
-            // 仍然生成新的授权ID，避免覆盖原授权记录
-            // 这样同时存在新旧两个授权记录，旧的会自然过期
-            String newAuthorizationId = "refresh-" + UUID.randomUUID();
-            authorizationBuilder.id(newAuthorizationId);
-
             // 10. 保存授权记录
             OAuth2Authorization newAuthorization = authorizationBuilder.build();
             authorizationService.save(newAuthorization);
@@ -1,11 +1,11 @@
 package com.webapp.security.sso.oauth2.custom.filter;
 
 import com.webapp.security.sso.oauth2.custom.util.CustomJwtUtil;
+import com.webapp.security.sso.oauth2.custom.util.VerifiedJwtClaims;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -16,8 +16,6 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * 自定义JWT认证过滤器
@@ -43,19 +41,15 @@ public class CustomJwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt) && jwtUtil.validateToken(jwt)) {
-                // 从JWT中获取用户信息
-                String username = jwtUtil.getUsernameFromToken(jwt);
-                List<String> authorities = jwtUtil.getAuthoritiesFromToken(jwt);
-
-                // 转换为Spring Security的权限对象
-                List<SimpleGrantedAuthority> grantedAuthorities = authorities.stream()
-                        .map(SimpleGrantedAuthority::new)
-                        .collect(Collectors.toList());
+            // 令牌只验签和解析一次
+            VerifiedJwtClaims claims = StringUtils.hasText(jwt) ? jwtUtil.verifyToken(jwt) : null;
+            if (claims != null) {
+                // 从JWT中获取用户信息，权限集合随已验签令牌缓存，不再逐个创建权限对象
+                String username = claims.getUsername();
 
                 // 创建认证对象
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(username,
-                        null, grantedAuthorities);
+                        null, claims.getGrantedAuthorities());
 
                 // 设置认证信息到SecurityContext
                 SecurityContextHolder.getContext().setAuthentication(authentication);
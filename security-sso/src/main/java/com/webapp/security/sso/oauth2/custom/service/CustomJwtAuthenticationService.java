@@ -2,19 +2,17 @@ package com.webapp.security.sso.oauth2.custom.service;
 
 import com.webapp.security.core.entity.SysUser;
 import com.webapp.security.sso.oauth2.custom.util.CustomJwtUtil;
+import com.webapp.security.sso.oauth2.custom.util.VerifiedJwtClaims;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * 自定义JWT认证服务
@@ -94,33 +92,23 @@ public class CustomJwtAuthenticationService {
      */
     public Map<String, Object> refreshToken(String refreshToken) {
         try {
-            // 验证刷新令牌
-            if (!jwtUtil.validateToken(refreshToken)) {
+            // 验证刷新令牌（过期的令牌验签失败）
+            VerifiedJwtClaims claims = jwtUtil.verifyToken(refreshToken);
+            if (claims == null) {
                 throw new RuntimeException("Invalid refresh token");
             }
 
             // 检查令牌类型
-            String tokenType = jwtUtil.getTokenTypeFromToken(refreshToken);
-            if (!"refresh_token".equals(tokenType)) {
+            if (!"refresh_token".equals(claims.getTokenType())) {
                 throw new RuntimeException("Invalid token type for refresh");
             }
 
-            // 检查令牌是否过期
-            if (jwtUtil.isTokenExpired(refreshToken)) {
-                throw new RuntimeException("Refresh token expired");
-            }
-
             // 从刷新令牌中获取用户信息
-            String username = jwtUtil.getUsernameFromToken(refreshToken);
-            List<String> authorities = jwtUtil.getAuthoritiesFromToken(refreshToken);
+            String username = claims.getUsername();
 
             // 创建认证对象
-            List<SimpleGrantedAuthority> grantedAuthorities = authorities.stream()
-                    .map(SimpleGrantedAuthority::new)
-                    .collect(Collectors.toList());
-
             Authentication authentication = new UsernamePasswordAuthenticationToken(
-                    username, null, grantedAuthorities);
+                    username, null, claims.getGrantedAuthorities());
 
             // 生成新的访问令牌
             String newAccessToken = jwtUtil.generateAccessToken(authentication);
@@ -153,16 +141,17 @@ public class CustomJwtAuthenticationService {
      */
     public Map<String, Object> getUserInfoFromToken(String token) {
         try {
-            if (!jwtUtil.validateToken(token)) {
+            VerifiedJwtClaims claims = jwtUtil.verifyToken(token);
+            if (claims == null) {
                 throw new RuntimeException("Invalid token");
             }
 
             Map<String, Object> userInfo = new HashMap<>();
-            userInfo.put("username", jwtUtil.getUsernameFromToken(token));
-            userInfo.put("user_id", jwtUtil.getUserIdFromToken(token));
-            userInfo.put("authorities", jwtUtil.getAuthoritiesFromToken(token)); // 与OAuth2保持一致
-            userInfo.put("jti", jwtUtil.getJtiFromToken(token));
-            userInfo.put("token_type", jwtUtil.getTokenTypeFromToken(token));
+            userInfo.put("username", claims.getUsername());
+            userInfo.put("user_id", claims.getUserId());
+            userInfo.put("authorities", claims.getAuthorities()); // 与OAuth2保持一致
+            userInfo.put("jti", claims.getJti());
+            userInfo.put("token_type", claims.getTokenType());
 
             return userInfo;
         } catch (Exception e) {
@@ -176,8 +165,9 @@ public class CustomJwtAuthenticationService {
      */
     public void revokeToken(String token) {
         try {
-            if (jwtUtil.validateToken(token)) {
-                String jti = jwtUtil.getJtiFromToken(token);
+            VerifiedJwtClaims claims = jwtUtil.verifyToken(token);
+            if (claims != null) {
+                String jti = claims.getJti();
                 // TODO: 将JTI加入Redis黑名单，设置过期时间
                 log.info("Token revoked successfully, JTI: {}", jti);
             }
@@ -1,6 +1,9 @@
 package com.webapp.security.sso.oauth2.custom.util;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.webapp.security.core.entity.SysUser;
 import com.webapp.security.sso.oauth2.custom.service.CustomJwtUserDetailsService;
 import io.jsonwebtoken.*;
@@ -12,17 +15,23 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
+import javax.annotation.PostConstruct;
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
  * 自定义JWT工具类
  * 提供JWT的创建、验证、解析等功能
+ * 签名密钥和解析器只构建一次；验签通过的令牌按摘要缓存到exp，同一令牌重复验证时不再验签和解析
  */
 @Component
 @ConditionalOnProperty(name = "custom.jwt.enabled", havingValue = "true", matchIfMissing = false)
@@ -39,13 +48,57 @@ public class CustomJwtUtil {
     @Value("${jwt.refresh-expiration:86400}")
     private long refreshExpiration;
 
+    @Value("${custom.jwt.verified-cache-size:10000}")
+    private long verifiedCacheSize;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final CustomJwtUserDetailsService userDetailsService;
 
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+
+    /**
+     * 已验签令牌的缓存，键为令牌的SHA-256摘要，条目在令牌过期时失效
+     */
+    private Cache<String, VerifiedJwtClaims> verifiedTokens;
+
     public CustomJwtUtil(CustomJwtUserDetailsService userDetailsService) {
         this.userDetailsService = userDetailsService;
     }
 
+    @PostConstruct
+    public void init() {
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(new Expiry<String, VerifiedJwtClaims>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedJwtClaims value, long currentTime) {
+                        if (value.getExpiresAt() == null) {
+                            return TimeUnit.SECONDS.toNanos(jwtExpiration);
+                        }
+                        return Math.max(0, TimeUnit.MILLISECONDS.toNanos(
+                                value.getExpiresAt().toEpochMilli() - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedJwtClaims value, long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedJwtClaims value, long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
     /**
      * 生成访问令牌
      */
@@ -107,70 +160,77 @@ public class CustomJwtUtil {
     }
 
     /**
-     * 验证令牌
+     * 验签并解析令牌，同一令牌只验签一次
+     *
+     * @return 已验签的声明视图
+     * @throws JwtException 令牌无效或已过期
      */
-    public boolean validateToken(String token) {
+    public VerifiedJwtClaims parseToken(String token) {
+        if (!StringUtils.hasText(token)) {
+            throw new IllegalArgumentException("JWT token is empty");
+        }
+        String digest = digest(token);
+        VerifiedJwtClaims verified = verifiedTokens.getIfPresent(digest);
+        if (verified != null && !verified.isExpired(Instant.now())) {
+            return verified;
+        }
+        verified = new VerifiedJwtClaims(jwtParser.parseClaimsJws(token).getBody());
+        verifiedTokens.put(digest, verified);
+        return verified;
+    }
+
+    /**
+     * 验签并解析令牌，令牌无效时返回null
+     */
+    public VerifiedJwtClaims verifyToken(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
+            return parseToken(token);
         } catch (JwtException | IllegalArgumentException e) {
             log.error("Invalid JWT token: {}", e.getMessage());
-            return false;
+            return null;
         }
     }
 
+    /**
+     * 验证令牌
+     */
+    public boolean validateToken(String token) {
+        return verifyToken(token) != null;
+    }
+
     /**
      * 从令牌中获取用户名
      */
     public String getUsernameFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
-        return claims.getSubject();
+        return parseToken(token).getUsername();
     }
 
     /**
      * 从令牌中获取用户ID
      */
     public Long getUserIdFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
-        Object userId = claims.get("user_id");
-        if (userId instanceof Integer) {
-            return ((Integer) userId).longValue();
-        } else if (userId instanceof Long) {
-            return (Long) userId;
-        }
-        return null;
+        return parseToken(token).getUserId();
     }
 
     /**
      * 从令牌中获取权限 - 与OAuth2保持一致
      */
     public List<String> getAuthoritiesFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
-        Object authoritiesObj = claims.get("authorities");
-
-        if (authoritiesObj instanceof List) {
-            return (List<String>) authoritiesObj;
-        }
-        return new ArrayList<>();
+        return parseToken(token).getAuthorities();
     }
 
     /**
      * 从令牌中获取令牌类型
      */
     public String getTokenTypeFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
-        return claims.get("token_type", String.class);
+        return parseToken(token).getTokenType();
     }
 
     /**
      * 从令牌中获取JTI
      */
     public String getJtiFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
-        return claims.get("jti", String.class);
+        return parseToken(token).getJti();
     }
 
     /**
@@ -178,31 +238,26 @@ public class CustomJwtUtil {
      */
     public boolean isTokenExpired(String token) {
         try {
-            Claims claims = getClaimsFromToken(token);
-            Date expiration = claims.getExpiration();
-            return expiration.before(new Date());
+            return parseToken(token).isExpired(Instant.now());
         } catch (Exception e) {
             return true;
         }
     }
 
-    /**
-     * 从令牌中获取声明
-     */
-    private Claims getClaimsFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
     /**
      * 获取签名密钥
      */
     private SecretKey getSigningKey() {
-        byte[] keyBytes = jwtSecret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return signingKey;
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     /**
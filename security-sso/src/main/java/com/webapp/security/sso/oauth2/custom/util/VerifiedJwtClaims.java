@@ -0,0 +1,88 @@
+package com.webapp.security.sso.oauth2.custom.util;
+
+import com.webapp.security.core.authority.AuthoritySet;
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 已验签的JWT声明视图（不可变）
+ * 由CustomJwtUtil.parseToken返回，常用声明在构造时取出，多次读取不再解析令牌
+ */
+public final class VerifiedJwtClaims {
+
+    private final Map<String, Object> claims;
+    private final String username;
+    private final Long userId;
+    private final List<String> authorities;
+    private final AuthoritySet grantedAuthorities;
+    private final String tokenType;
+    private final String jti;
+    private final Instant expiresAt;
+
+    VerifiedJwtClaims(Claims claims) {
+        this.claims = Collections.unmodifiableMap(new LinkedHashMap<>(claims));
+        this.username = claims.getSubject();
+        Object userIdClaim = claims.get("user_id");
+        this.userId = userIdClaim instanceof Number ? ((Number) userIdClaim).longValue() : null;
+        Object authoritiesClaim = claims.get("authorities");
+        List<String> authorityList = new ArrayList<>();
+        if (authoritiesClaim instanceof List) {
+            for (Object authority : (List<?>) authoritiesClaim) {
+                authorityList.add(String.valueOf(authority));
+            }
+        }
+        this.authorities = Collections.unmodifiableList(authorityList);
+        this.grantedAuthorities = AuthoritySet.of(authorityList);
+        this.tokenType = claims.get("token_type", String.class);
+        this.jti = claims.get("jti", String.class);
+        this.expiresAt = claims.getExpiration() != null ? claims.getExpiration().toInstant() : null;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public List<String> getAuthorities() {
+        return authorities;
+    }
+
+    /**
+     * 驻留的权限集合，随已验签令牌一起缓存
+     */
+    public AuthoritySet getGrantedAuthorities() {
+        return grantedAuthorities;
+    }
+
+    public String getTokenType() {
+        return tokenType;
+    }
+
+    public String getJti() {
+        return jti;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * 原始声明的只读副本，仅用于读取不常用的声明
+     */
+    public Map<String, Object> getClaims() {
+        return claims;
+    }
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && !now.isBefore(expiresAt);
+    }
+}
@@ -30,12 +30,14 @@ public class OAuth2Authorization {
     
     // 授权码相关
     private String authorizationCodeValue;
+    private String authorizationCodeHash;
     private Instant authorizationCodeIssuedAt;
     private Instant authorizationCodeExpiresAt;
     private String authorizationCodeMetadata;
     
     // 访问令牌相关
     private String accessTokenValue;
+    private String accessTokenHash;
     private Instant accessTokenIssuedAt;
     private Instant accessTokenExpiresAt;
     private String accessTokenMetadata;
@@ -50,6 +52,7 @@ public class OAuth2Authorization {
     
     // 刷新令牌相关
     private String refreshTokenValue;
+    private String refreshTokenHash;
     private Instant refreshTokenIssuedAt;
     private Instant refreshTokenExpiresAt;
     private String refreshTokenMetadata;
@@ -0,0 +1,19 @@
+package com.webapp.security.sso.oauth2.expand;
+
+import java.util.Map;
+
+/**
+ * 授权属性与令牌元数据的编解码器
+ * 编码结果存入oauth2_authorization表的text列（或Redis Hash字段），读取时按内容格式选择编解码器
+ */
+public interface AuthorizationMapCodec {
+
+    /**
+     * 是否能解码该数据
+     */
+    boolean supports(String data);
+
+    String encode(Map<String, Object> data);
+
+    Map<String, Object> decode(String data);
+}
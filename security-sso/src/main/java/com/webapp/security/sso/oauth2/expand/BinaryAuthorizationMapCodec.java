@@ -0,0 +1,435 @@
+package com.webapp.security.sso.oauth2.expand;
+
+import com.webapp.security.core.authority.InternedAuthority;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationResponseType;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.util.Assert;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 紧凑二进制编解码器
+ * 格式：魔数(1字节) + 版本(1字节) + 条目数 + 条目(键 + 类型标记 + 值)，整体Base64后存入text列。
+ * 字符串、数字、布尔、Instant及其列表/集合/嵌套Map直接按类型写入；
+ * 授权记录中常见的主体（用户名密码认证，主体为用户名或User）和授权请求按字段写入，不再带类型名；
+ * 其他对象单独用JSON编解码器编码后嵌入，保证可还原。
+ */
+public class BinaryAuthorizationMapCodec implements AuthorizationMapCodec {
+
+    private static final byte MAGIC = (byte) 0xA5;
+    private static final byte VERSION = 1;
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_TRUE = 2;
+    private static final byte TYPE_FALSE = 3;
+    private static final byte TYPE_INT = 4;
+    private static final byte TYPE_LONG = 5;
+    private static final byte TYPE_DOUBLE = 6;
+    private static final byte TYPE_INSTANT = 7;
+    private static final byte TYPE_LIST = 8;
+    private static final byte TYPE_SET = 9;
+    private static final byte TYPE_MAP = 10;
+    private static final byte TYPE_JSON = 11;
+    private static final byte TYPE_AUTHENTICATION = 12;
+    private static final byte TYPE_AUTHORIZATION_REQUEST = 13;
+
+    private static final byte AUTHORITY_SIMPLE = 0;
+    private static final byte AUTHORITY_INTERNED = 1;
+
+    private static final byte PRINCIPAL_NAME = 0;
+    private static final byte PRINCIPAL_USER = 1;
+
+    /**
+     * 内嵌JSON时使用的键
+     */
+    private static final String JSON_VALUE_KEY = "v";
+
+    private final JsonAuthorizationMapCodec jsonCodec;
+
+    public BinaryAuthorizationMapCodec(JsonAuthorizationMapCodec jsonCodec) {
+        Assert.notNull(jsonCodec, "jsonCodec cannot be null");
+        this.jsonCodec = jsonCodec;
+    }
+
+    @Override
+    public boolean supports(String data) {
+        if (data == null || data.isEmpty() || data.startsWith("{")) {
+            return false;
+        }
+        try {
+            byte[] header = Base64.getDecoder().decode(data.substring(0, Math.min(4, data.length())));
+            return header.length >= 2 && header[0] == MAGIC && header[1] == VERSION;
+        } catch (IllegalArgumentException ex) {
+            return false;
+        }
+    }
+
+    @Override
+    public String encode(Map<String, Object> data) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(MAGIC);
+            out.writeByte(VERSION);
+            writeMap(out, data);
+        } catch (IOException ex) {
+            throw new IllegalArgumentException(ex.getMessage(), ex);
+        }
+        return Base64.getEncoder().encodeToString(bytes.toByteArray());
+    }
+
+    @Override
+    public Map<String, Object> decode(String data) {
+        byte[] bytes = Base64.getDecoder().decode(data);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            byte magic = in.readByte();
+            byte version = in.readByte();
+            if (magic != MAGIC || version != VERSION) {
+                throw new IllegalArgumentException("Unsupported binary authorization data, version: " + version);
+            }
+            return readMap(in);
+        } catch (IOException ex) {
+            throw new IllegalArgumentException(ex.getMessage(), ex);
+        }
+    }
+
+    private void writeMap(DataOutputStream out, Map<?, ?> map) throws IOException {
+        writeVarInt(out, map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            writeString(out, entry.getKey().toString());
+            writeValue(out, entry.getValue());
+        }
+    }
+
+    private void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TYPE_NULL);
+        } else if (value instanceof String) {
+            out.writeByte(TYPE_STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte((Boolean) value ? TYPE_TRUE : TYPE_FALSE);
+        } else if (value instanceof Integer) {
+            out.writeByte(TYPE_INT);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(TYPE_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(TYPE_DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Instant) {
+            out.writeByte(TYPE_INSTANT);
+            out.writeLong(((Instant) value).getEpochSecond());
+            out.writeInt(((Instant) value).getNano());
+        } else if (value instanceof Collection && isSimpleCollection((Collection<?>) value)) {
+            out.writeByte(value instanceof Set ? TYPE_SET : TYPE_LIST);
+            Collection<?> collection = (Collection<?>) value;
+            writeVarInt(out, collection.size());
+            for (Object element : collection) {
+                writeValue(out, element);
+            }
+        } else if (value instanceof Map && isSimpleMap((Map<?, ?>) value)) {
+            out.writeByte(TYPE_MAP);
+            writeMap(out, (Map<?, ?>) value);
+        } else if (isWritableAuthentication(value)) {
+            out.writeByte(TYPE_AUTHENTICATION);
+            writeAuthentication(out, (UsernamePasswordAuthenticationToken) value);
+        } else if (isWritableAuthorizationRequest(value)) {
+            out.writeByte(TYPE_AUTHORIZATION_REQUEST);
+            writeAuthorizationRequest(out, (OAuth2AuthorizationRequest) value);
+        } else {
+            Map<String, Object> wrapper = new HashMap<>(2);
+            wrapper.put(JSON_VALUE_KEY, value);
+            out.writeByte(TYPE_JSON);
+            writeString(out, this.jsonCodec.encode(wrapper));
+        }
+    }
+
+    private Map<String, Object> readMap(DataInputStream in) throws IOException {
+        int size = readVarInt(in);
+        Map<String, Object> map = new LinkedHashMap<>(Math.max(size * 2, 4));
+        for (int i = 0; i < size; i++) {
+            String key = readString(in);
+            map.put(key, readValue(in));
+        }
+        return map;
+    }
+
+    private Object readValue(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_STRING:
+                return readString(in);
+            case TYPE_TRUE:
+                return Boolean.TRUE;
+            case TYPE_FALSE:
+                return Boolean.FALSE;
+            case TYPE_INT:
+                return in.readInt();
+            case TYPE_LONG:
+                return in.readLong();
+            case TYPE_DOUBLE:
+                return in.readDouble();
+            case TYPE_INSTANT:
+                return Instant.ofEpochSecond(in.readLong(), in.readInt());
+            case TYPE_LIST:
+            case TYPE_SET: {
+                int size = readVarInt(in);
+                Collection<Object> collection = type == TYPE_SET ? new LinkedHashSet<>() : new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    collection.add(readValue(in));
+                }
+                return collection;
+            }
+            case TYPE_MAP:
+                return readMap(in);
+            case TYPE_JSON:
+                return this.jsonCodec.decode(readString(in)).get(JSON_VALUE_KEY);
+            case TYPE_AUTHENTICATION:
+                return readAuthentication(in);
+            case TYPE_AUTHORIZATION_REQUEST:
+                return readAuthorizationRequest(in);
+            default:
+                throw new IllegalArgumentException("Unknown value type in binary authorization data: " + type);
+        }
+    }
+
+    /**
+     * 用户名密码认证：主体为用户名或User，凭证已擦除，详情为空或WebAuthenticationDetails，权限为可还原的类型
+     */
+    private boolean isWritableAuthentication(Object value) {
+        if (value == null || value.getClass() != UsernamePasswordAuthenticationToken.class) {
+            return false;
+        }
+        UsernamePasswordAuthenticationToken authentication = (UsernamePasswordAuthenticationToken) value;
+        Object principal = authentication.getPrincipal();
+        Object details = authentication.getDetails();
+        return authentication.getCredentials() == null
+                && (principal instanceof String
+                        || principal != null && principal.getClass() == User.class
+                                && isWritableAuthorities(((User) principal).getAuthorities()))
+                && (details == null || details.getClass() == WebAuthenticationDetails.class)
+                && isWritableAuthorities(authentication.getAuthorities());
+    }
+
+    private boolean isWritableAuthorities(Collection<? extends GrantedAuthority> authorities) {
+        for (GrantedAuthority authority : authorities) {
+            if (authority.getClass() != SimpleGrantedAuthority.class
+                    && authority.getClass() != InternedAuthority.class) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeAuthentication(DataOutputStream out, UsernamePasswordAuthenticationToken authentication)
+            throws IOException {
+        out.writeBoolean(authentication.isAuthenticated());
+        Object principal = authentication.getPrincipal();
+        if (principal instanceof User) {
+            User user = (User) principal;
+            out.writeByte(PRINCIPAL_USER);
+            writeString(out, user.getUsername());
+            writeValue(out, user.getPassword());
+            out.writeBoolean(user.isEnabled());
+            out.writeBoolean(user.isAccountNonExpired());
+            out.writeBoolean(user.isCredentialsNonExpired());
+            out.writeBoolean(user.isAccountNonLocked());
+            writeAuthorities(out, user.getAuthorities());
+        } else {
+            out.writeByte(PRINCIPAL_NAME);
+            writeString(out, (String) principal);
+        }
+        WebAuthenticationDetails details = (WebAuthenticationDetails) authentication.getDetails();
+        out.writeBoolean(details != null);
+        if (details != null) {
+            writeValue(out, details.getRemoteAddress());
+            writeValue(out, details.getSessionId());
+        }
+        writeAuthorities(out, authentication.getAuthorities());
+    }
+
+    private UsernamePasswordAuthenticationToken readAuthentication(DataInputStream in) throws IOException {
+        boolean authenticated = in.readBoolean();
+        Object principal;
+        byte principalType = in.readByte();
+        if (principalType == PRINCIPAL_USER) {
+            String username = readString(in);
+            String password = (String) readValue(in);
+            boolean enabled = in.readBoolean();
+            boolean accountNonExpired = in.readBoolean();
+            boolean credentialsNonExpired = in.readBoolean();
+            boolean accountNonLocked = in.readBoolean();
+            User user = new User(username, password != null ? password : "", enabled, accountNonExpired,
+                    credentialsNonExpired, accountNonLocked, readAuthorities(in));
+            if (password == null) {
+                // 与Jackson的UserDeserializer一致，已擦除的密码还原为null
+                user.eraseCredentials();
+            }
+            principal = user;
+        } else if (principalType == PRINCIPAL_NAME) {
+            principal = readString(in);
+        } else {
+            throw new IllegalArgumentException("Unknown principal type in binary authorization data: " + principalType);
+        }
+        WebAuthenticationDetails details = in.readBoolean()
+                ? new WebAuthenticationDetails((String) readValue(in), (String) readValue(in))
+                : null;
+        List<GrantedAuthority> authorities = readAuthorities(in);
+        UsernamePasswordAuthenticationToken authentication = authenticated
+                ? new UsernamePasswordAuthenticationToken(principal, null, authorities)
+                : new UsernamePasswordAuthenticationToken(principal, null);
+        authentication.setDetails(details);
+        return authentication;
+    }
+
+    private void writeAuthorities(DataOutputStream out, Collection<? extends GrantedAuthority> authorities)
+            throws IOException {
+        writeVarInt(out, authorities.size());
+        for (GrantedAuthority authority : authorities) {
+            out.writeByte(authority instanceof InternedAuthority ? AUTHORITY_INTERNED : AUTHORITY_SIMPLE);
+            writeString(out, authority.getAuthority());
+        }
+    }
+
+    private List<GrantedAuthority> readAuthorities(DataInputStream in) throws IOException {
+        int size = readVarInt(in);
+        List<GrantedAuthority> authorities = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            byte type = in.readByte();
+            String authority = readString(in);
+            authorities.add(type == AUTHORITY_INTERNED
+                    ? InternedAuthority.of(authority)
+                    : new SimpleGrantedAuthority(authority));
+        }
+        return authorities;
+    }
+
+    /**
+     * 授权码模式的授权请求，附加参数和属性为可直接写入的值
+     */
+    private boolean isWritableAuthorizationRequest(Object value) {
+        if (!(value instanceof OAuth2AuthorizationRequest)) {
+            return false;
+        }
+        OAuth2AuthorizationRequest request = (OAuth2AuthorizationRequest) value;
+        return AuthorizationGrantType.AUTHORIZATION_CODE.equals(request.getGrantType())
+                && OAuth2AuthorizationResponseType.CODE.equals(request.getResponseType())
+                && isSimpleMap(request.getAdditionalParameters())
+                && isSimpleMap(request.getAttributes());
+    }
+
+    private void writeAuthorizationRequest(DataOutputStream out, OAuth2AuthorizationRequest request)
+            throws IOException {
+        writeValue(out, request.getAuthorizationUri());
+        writeValue(out, request.getClientId());
+        writeValue(out, request.getRedirectUri());
+        writeValue(out, request.getScopes());
+        writeValue(out, request.getState());
+        writeMap(out, request.getAdditionalParameters());
+        writeValue(out, request.getAuthorizationRequestUri());
+        writeMap(out, request.getAttributes());
+    }
+
+    @SuppressWarnings("unchecked")
+    private OAuth2AuthorizationRequest readAuthorizationRequest(DataInputStream in) throws IOException {
+        return OAuth2AuthorizationRequest.authorizationCode()
+                .authorizationUri((String) readValue(in))
+                .clientId((String) readValue(in))
+                .redirectUri((String) readValue(in))
+                .scopes((Set<String>) readValue(in))
+                .state((String) readValue(in))
+                .additionalParameters(readMap(in))
+                .authorizationRequestUri((String) readValue(in))
+                .attributes(readMap(in))
+                .build();
+    }
+
+    private boolean isSimpleCollection(Collection<?> collection) {
+        for (Object element : collection) {
+            if (!isSimple(element)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isSimpleMap(Map<?, ?> map) {
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (!(entry.getKey() instanceof String) || !isSimple(entry.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 可直接按类型写入、不丢失类型信息的值
+     */
+    private boolean isSimple(Object value) {
+        if (value == null || value instanceof String || value instanceof Boolean || value instanceof Integer
+                || value instanceof Long || value instanceof Double || value instanceof Instant) {
+            return true;
+        }
+        if (value instanceof Collection) {
+            return isSimpleCollection((Collection<?>) value);
+        }
+        return value instanceof Map && isSimpleMap((Map<?, ?>) value);
+    }
+
+    private void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in binary authorization data");
+    }
+}
@@ -0,0 +1,426 @@
+package com.webapp.security.sso.oauth2.expand;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.webapp.security.sso.config.AuthorizationCacheProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.OAuth2Token;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.webapp.security.sso.oauth2.expand.OAuth2AuthorizationConverter.hashToken;
+
+/**
+ * 带两级缓存的OAuth2AuthorizationService装饰器
+ * L1为本地Caffeine缓存，L2为Redis共享缓存；令牌摘要指向授权ID，授权ID指向授权记录。
+ * 缓存条目在令牌过期时间失效；save/remove时删除L2，并通过Redis发布订阅通知所有节点清除L1。
+ * 视图查询未命中时只在本地缓存延迟视图，不构建完整授权对象；完整对象由findById/findByToken回填。
+ */
+@Slf4j
+public class CachingOAuth2AuthorizationService implements OAuth2AuthorizationService,
+        OAuth2AuthorizationViewService, MessageListener, DisposableBean {
+
+    private static final String ID_KEY = "id:";
+    private static final String TOKEN_KEY = "token:";
+
+    /**
+     * 延迟二次失效的间隔，覆盖并发读在失效之后回写旧数据的窗口
+     */
+    private static final long DELAYED_EVICT_MILLIS = 1000;
+
+    private final OAuth2AuthorizationService delegate;
+    private final AuthorizationCacheProperties properties;
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    /**
+     * 令牌摘要 -> 授权ID
+     */
+    private final Cache<String, String> localTokenCache;
+
+    /**
+     * 授权ID -> 授权记录
+     */
+    private final Cache<String, OAuth2Authorization> localAuthorizationCache;
+
+    /**
+     * 授权ID -> 延迟视图（仅本地，与完整授权对象一起按授权ID失效）
+     */
+    private final Cache<String, OAuth2AuthorizationView> localViewCache;
+
+    private final ScheduledExecutorService evictScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "oauth2-authorization-cache-evict");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CachingOAuth2AuthorizationService(OAuth2AuthorizationService delegate,
+            RedisConnectionFactory connectionFactory,
+            RedisMessageListenerContainer listenerContainer,
+            AuthorizationCacheProperties properties) {
+        Assert.notNull(delegate, "delegate cannot be null");
+        this.delegate = delegate;
+        this.properties = properties;
+
+        this.redisTemplate = new RedisTemplate<>();
+        this.redisTemplate.setConnectionFactory(connectionFactory);
+        this.redisTemplate.setKeySerializer(RedisSerializer.string());
+        this.redisTemplate.setValueSerializer(
+                new JdkSerializationRedisSerializer(CachingOAuth2AuthorizationService.class.getClassLoader()));
+        this.redisTemplate.afterPropertiesSet();
+
+        this.localTokenCache = Caffeine.newBuilder()
+                .maximumSize(properties.getLocalMaximumSize())
+                .expireAfterWrite(properties.getLocalMaxTtl())
+                .build();
+        this.localAuthorizationCache = Caffeine.newBuilder()
+                .maximumSize(properties.getLocalMaximumSize())
+                .expireAfter(new Expiry<String, OAuth2Authorization>() {
+                    @Override
+                    public long expireAfterCreate(String key, OAuth2Authorization value, long currentTime) {
+                        return Math.max(ttl(value, properties.getLocalMaxTtl()).toNanos(), 0);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, OAuth2Authorization value, long currentTime,
+                            long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, OAuth2Authorization value, long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        this.localViewCache = Caffeine.newBuilder()
+                .maximumSize(properties.getLocalMaximumSize())
+                .expireAfterWrite(properties.getLocalMaxTtl())
+                .build();
+
+        listenerContainer.addMessageListener(this, new ChannelTopic(properties.getEvictChannel()));
+    }
+
+    @Override
+    public void save(OAuth2Authorization authorization) {
+        Assert.notNull(authorization, "authorization cannot be null");
+        this.delegate.save(authorization);
+        evict(authorization.getId());
+    }
+
+    @Override
+    public void remove(OAuth2Authorization authorization) {
+        Assert.notNull(authorization, "authorization cannot be null");
+        this.delegate.remove(authorization);
+        evict(authorization.getId());
+    }
+
+    @Override
+    public OAuth2Authorization findById(String id) {
+        Assert.hasText(id, "id cannot be empty");
+        OAuth2Authorization authorization = findCached(id);
+        if (authorization != null) {
+            return authorization;
+        }
+        authorization = this.delegate.findById(id);
+        if (authorization != null) {
+            cache(authorization);
+        }
+        return authorization;
+    }
+
+    @Override
+    public OAuth2Authorization findByToken(String token, OAuth2TokenType tokenType) {
+        Assert.hasText(token, "token cannot be empty");
+        OAuth2Authorization authorization = findCachedByToken(token, tokenType);
+        if (authorization != null) {
+            return authorization;
+        }
+
+        authorization = this.delegate.findByToken(token, tokenType);
+        if (authorization != null) {
+            cache(authorization);
+        }
+        return authorization;
+    }
+
+    /**
+     * 缓存命中时直接返回缓存的视图或包装缓存对象；未命中时从被装饰的服务取延迟视图并放入本地缓存，
+     * 不为回填缓存而构建完整授权对象
+     */
+    @Override
+    public OAuth2AuthorizationView findViewByToken(String token, OAuth2TokenType tokenType) {
+        Assert.hasText(token, "token cannot be empty");
+        OAuth2AuthorizationView view = findLocalViewByToken(token, tokenType);
+        if (view != null) {
+            return view;
+        }
+        OAuth2Authorization authorization = findCachedByToken(token, tokenType);
+        if (authorization != null) {
+            return OAuth2AuthorizationView.of(authorization);
+        }
+
+        if (this.delegate instanceof OAuth2AuthorizationViewService) {
+            view = ((OAuth2AuthorizationViewService) this.delegate).findViewByToken(token, tokenType);
+            if (view != null) {
+                cache(token, view);
+            }
+            return view;
+        }
+        authorization = this.delegate.findByToken(token, tokenType);
+        if (authorization == null) {
+            return null;
+        }
+        cache(authorization);
+        return OAuth2AuthorizationView.of(authorization);
+    }
+
+    /**
+     * 批量查询：先逐个查本地缓存（不访问Redis），未命中的令牌一次交给被装饰的服务查询
+     */
+    @Override
+    public Map<String, OAuth2AuthorizationView> findViewsByTokens(Collection<String> tokens,
+            OAuth2TokenType tokenType) {
+        Map<String, OAuth2AuthorizationView> views = new LinkedHashMap<>();
+        List<String> misses = new ArrayList<>();
+        for (String token : tokens) {
+            OAuth2AuthorizationView view = findLocalViewByToken(token, tokenType);
+            if (view != null) {
+                views.put(token, view);
+            } else {
+                misses.add(token);
+            }
+        }
+        if (misses.isEmpty()) {
+            return views;
+        }
+
+        if (this.delegate instanceof OAuth2AuthorizationViewService) {
+            Map<String, OAuth2AuthorizationView> loaded =
+                    ((OAuth2AuthorizationViewService) this.delegate).findViewsByTokens(misses, tokenType);
+            loaded.forEach(this::cache);
+            views.putAll(loaded);
+            return views;
+        }
+        for (String token : misses) {
+            OAuth2Authorization authorization = this.delegate.findByToken(token, tokenType);
+            if (authorization != null) {
+                cache(authorization);
+                views.put(token, OAuth2AuthorizationView.of(authorization));
+            }
+        }
+        return views;
+    }
+
+    /**
+     * 只查本地缓存（不访问Redis）：优先使用已构建的完整授权对象，其次是缓存的延迟视图
+     */
+    private OAuth2AuthorizationView findLocalViewByToken(String token, OAuth2TokenType tokenType) {
+        String id = this.localTokenCache.getIfPresent(hashToken(token));
+        if (id == null) {
+            return null;
+        }
+        OAuth2Authorization authorization = this.localAuthorizationCache.getIfPresent(id);
+        if (authorization != null) {
+            return OAuth2AuthorizationView.matchesToken(authorization, token, tokenType)
+                    ? OAuth2AuthorizationView.of(authorization) : null;
+        }
+        OAuth2AuthorizationView view = this.localViewCache.getIfPresent(id);
+        return view != null && view.matchesToken(token, tokenType) ? view : null;
+    }
+
+    private OAuth2Authorization findCachedByToken(String token, OAuth2TokenType tokenType) {
+        String digest = hashToken(token);
+
+        String id = this.localTokenCache.getIfPresent(digest);
+        if (id == null) {
+            Object cachedId = redisGet(tokenKey(digest));
+            id = cachedId instanceof String ? (String) cachedId : null;
+        }
+        if (id != null) {
+            OAuth2Authorization authorization = findCached(id);
+            // 授权记录更新后旧令牌仍可能指向该ID，必须确认令牌仍属于该授权
+            if (authorization != null && OAuth2AuthorizationView.matchesToken(authorization, token, tokenType)) {
+                this.localTokenCache.put(digest, id);
+                return authorization;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 接收其他节点的失效广播，清除本地缓存
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object id = this.redisTemplate.getValueSerializer().deserialize(message.getBody());
+        if (id instanceof String) {
+            this.localAuthorizationCache.invalidate(id);
+            this.localViewCache.invalidate(id);
+            log.debug("Evicted local authorization cache by broadcast, id: {}", id);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        this.evictScheduler.shutdownNow();
+    }
+
+    private OAuth2Authorization findCached(String id) {
+        OAuth2Authorization authorization = this.localAuthorizationCache.getIfPresent(id);
+        if (authorization != null) {
+            return authorization;
+        }
+        Object cached = redisGet(idKey(id));
+        if (cached instanceof OAuth2Authorization) {
+            authorization = (OAuth2Authorization) cached;
+            this.localAuthorizationCache.put(id, authorization);
+            return authorization;
+        }
+        return null;
+    }
+
+    private void cache(OAuth2Authorization authorization) {
+        Duration ttl = ttl(authorization, this.properties.getRedisMaxTtl());
+        if (ttl.isZero() || ttl.isNegative()) {
+            return;
+        }
+        String id = authorization.getId();
+        List<OAuth2Token> tokens = tokensOf(authorization);
+
+        this.localAuthorizationCache.put(id, authorization);
+        for (OAuth2Token token : tokens) {
+            this.localTokenCache.put(hashToken(token.getTokenValue()), id);
+        }
+
+        try {
+            this.redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                    RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                    ops.opsForValue().set(idKey(id), authorization, ttl);
+                    for (OAuth2Token token : tokens) {
+                        Duration tokenTtl = ttl(token.getExpiresAt(), properties.getRedisMaxTtl());
+                        if (!tokenTtl.isZero() && !tokenTtl.isNegative()) {
+                            ops.opsForValue().set(tokenKey(hashToken(token.getTokenValue())), id, tokenTtl);
+                        }
+                    }
+                    return null;
+                }
+            });
+        } catch (Exception e) {
+            log.warn("Failed to write authorization cache to redis, id: {}", id, e);
+        }
+    }
+
+    /**
+     * 本地缓存被装饰服务返回的延迟视图，按查询的令牌建立索引
+     */
+    private void cache(String token, OAuth2AuthorizationView view) {
+        this.localViewCache.put(view.getId(), view);
+        this.localTokenCache.put(hashToken(token), view.getId());
+    }
+
+    private void evict(String id) {
+        doEvict(id);
+        // 延迟二次失效，防止失效前已读取数据库的并发请求把旧数据写回缓存
+        this.evictScheduler.schedule(() -> doEvict(id), DELAYED_EVICT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void doEvict(String id) {
+        this.localAuthorizationCache.invalidate(id);
+        this.localViewCache.invalidate(id);
+        try {
+            this.redisTemplate.delete(idKey(id));
+            this.redisTemplate.convertAndSend(this.properties.getEvictChannel(), id);
+        } catch (Exception e) {
+            log.warn("Failed to evict authorization cache in redis, id: {}", id, e);
+        }
+    }
+
+    private Object redisGet(String key) {
+        try {
+            return this.redisTemplate.opsForValue().get(key);
+        } catch (Exception e) {
+            // Redis不可用或反序列化失败时视为未命中，回退到数据库
+            log.warn("Failed to read authorization cache from redis, key: {}", key, e);
+            return null;
+        }
+    }
+
+    private String idKey(String id) {
+        return this.properties.getKeyPrefix() + ID_KEY + id;
+    }
+
+    private String tokenKey(String digest) {
+        return this.properties.getKeyPrefix() + TOKEN_KEY + digest;
+    }
+
+    private static List<OAuth2Token> tokensOf(OAuth2Authorization authorization) {
+        List<OAuth2Token> tokens = new ArrayList<>(3);
+        addToken(tokens, authorization.getToken(OAuth2AuthorizationCode.class));
+        addToken(tokens, authorization.getToken(OAuth2AccessToken.class));
+        addToken(tokens, authorization.getToken(OAuth2RefreshToken.class));
+        return tokens;
+    }
+
+    private static void addToken(List<OAuth2Token> tokens, OAuth2Authorization.Token<? extends OAuth2Token> token) {
+        if (token != null) {
+            tokens.add(token.getToken());
+        }
+    }
+
+    /**
+     * 授权记录的缓存时间：到最晚过期的令牌为止，不超过上限
+     */
+    private static Duration ttl(OAuth2Authorization authorization, Duration maxTtl) {
+        Instant latest = null;
+        for (OAuth2Token token : tokensOf(authorization)) {
+            if (token.getExpiresAt() == null) {
+                return maxTtl;
+            }
+            if (latest == null || token.getExpiresAt().isAfter(latest)) {
+                latest = token.getExpiresAt();
+            }
+        }
+        return ttl(latest, maxTtl);
+    }
+
+    private static Duration ttl(Instant expiresAt, Duration maxTtl) {
+        if (expiresAt == null) {
+            return maxTtl;
+        }
+        Duration remaining = Duration.between(Instant.now(), expiresAt);
+        return remaining.compareTo(maxTtl) < 0 ? remaining : maxTtl;
+    }
+}
@@ -0,0 +1,27 @@
+package com.webapp.security.sso.oauth2.expand;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.webapp.security.core.authority.InternedAuthority;
+
+/**
+ * InternedAuthority的Jackson混入
+ * 与SimpleGrantedAuthority一样只序列化权限编码，反序列化时重新驻留；注册混入后该类型也通过安全模块的类型白名单
+ */
+@JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, include = JsonTypeInfo.As.PROPERTY)
+@JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.NONE,
+        getterVisibility = JsonAutoDetect.Visibility.PUBLIC_ONLY,
+        isGetterVisibility = JsonAutoDetect.Visibility.NONE)
+abstract class InternedAuthorityMixin {
+
+    @JsonCreator
+    static InternedAuthority of(@JsonProperty("authority") String authority) {
+        return null;
+    }
+
+    @JsonIgnore
+    abstract int getId();
+}
@@ -0,0 +1,54 @@
+package com.webapp.security.sso.oauth2.expand;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.webapp.security.core.authority.InternedAuthority;
+import org.springframework.security.jackson2.SecurityJackson2Modules;
+import org.springframework.security.oauth2.server.authorization.jackson2.OAuth2AuthorizationServerJackson2Module;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON编解码器
+ * 使用Spring Security与授权服务器的Jackson模块，输出带类型信息的JSON（原有存储格式）
+ */
+public class JsonAuthorizationMapCodec implements AuthorizationMapCodec {
+
+    private final ObjectMapper objectMapper;
+
+    public JsonAuthorizationMapCodec() {
+        this.objectMapper = new ObjectMapper();
+
+        ClassLoader classLoader = JsonAuthorizationMapCodec.class.getClassLoader();
+        List<Module> securityModules = SecurityJackson2Modules.getModules(classLoader);
+        this.objectMapper.registerModules(securityModules);
+        this.objectMapper.registerModule(new OAuth2AuthorizationServerJackson2Module());
+        this.objectMapper.addMixIn(InternedAuthority.class, InternedAuthorityMixin.class);
+    }
+
+    @Override
+    public boolean supports(String data) {
+        return data != null && data.startsWith("{");
+    }
+
+    @Override
+    public String encode(Map<String, Object> data) {
+        try {
+            return this.objectMapper.writeValueAsString(data);
+        } catch (Exception ex) {
+            throw new IllegalArgumentException(ex.getMessage(), ex);
+        }
+    }
+
+    @Override
+    public Map<String, Object> decode(String data) {
+        try {
+            return this.objectMapper.readValue(data, new TypeReference<Map<String, Object>>() {
+            });
+        } catch (Exception ex) {
+            throw new IllegalArgumentException(ex.getMessage(), ex);
+        }
+    }
+}
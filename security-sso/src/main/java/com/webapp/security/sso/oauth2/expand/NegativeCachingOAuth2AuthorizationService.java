@@ -0,0 +1,408 @@
+package com.webapp.security.sso.oauth2.expand;
+
+import com.webapp.security.sso.config.AuthorizationNegativeCacheProperties;
+import com.webapp.security.sso.oauth2.mapper.OAuth2AuthorizationMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.webapp.security.sso.oauth2.expand.OAuth2AuthorizationConverter.hashToken;
+
+/**
+ * 带无效令牌负缓存的OAuth2AuthorizationService装饰器
+ * 按访问令牌查询时先检查Redis中的已签发令牌布隆过滤器和已知无效令牌集合，确定无效时直接返回null不查库。
+ * 布隆过滤器按签发时间分代（每代不短于访问令牌最长有效期），查询时检查当前代和上一代；
+ * 保存时先写过滤器再写库，保证库中存在的令牌一定在过滤器中。
+ * 过滤器未就绪（首次启动或Redis数据丢失）时不做拦截，并在后台从库中重建。
+ */
+@Slf4j
+public class NegativeCachingOAuth2AuthorizationService implements OAuth2AuthorizationService,
+        OAuth2AuthorizationViewService {
+
+    private static final String BLOOM_KEY = "bloom:";
+    private static final String READY_KEY = "bloom:ready";
+    private static final String REBUILD_LOCK_KEY = "bloom:rebuild-lock";
+    private static final String INVALID_KEY = "invalid:";
+
+    private static final Duration REBUILD_LOCK_TTL = Duration.ofMinutes(30);
+
+    private final OAuth2AuthorizationService delegate;
+    private final OAuth2AuthorizationMapper authorizationMapper;
+    private final StringRedisTemplate redisTemplate;
+    private final AuthorizationNegativeCacheProperties properties;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "oauth2-authorization-bloom-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public NegativeCachingOAuth2AuthorizationService(OAuth2AuthorizationService delegate,
+            OAuth2AuthorizationMapper authorizationMapper,
+            StringRedisTemplate redisTemplate,
+            AuthorizationNegativeCacheProperties properties) {
+        Assert.notNull(delegate, "delegate cannot be null");
+        this.delegate = delegate;
+        this.authorizationMapper = authorizationMapper;
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+    }
+
+    /**
+     * 过滤器未就绪时在后台重建（启动时调用）
+     */
+    public void rebuildIfNecessary() {
+        try {
+            if (!Boolean.TRUE.equals(redisTemplate.hasKey(key(READY_KEY)))) {
+                triggerRebuild();
+            }
+        } catch (Exception e) {
+            log.warn("Failed to check issued token filter state", e);
+        }
+    }
+
+    @Override
+    public void save(OAuth2Authorization authorization) {
+        Assert.notNull(authorization, "authorization cannot be null");
+        OAuth2Authorization.Token<OAuth2AccessToken> accessToken = authorization.getAccessToken();
+        String digest = accessToken != null ? hashToken(accessToken.getToken().getTokenValue()) : null;
+        if (digest != null) {
+            recordIssued(digest, accessToken.getToken().getIssuedAt());
+        }
+
+        this.delegate.save(authorization);
+
+        if (digest != null) {
+            // 撤销（令牌被标记作废）后直接记为无效；否则清除可能在写库前被误记的无效标记
+            if (accessToken.isInvalidated() || accessToken.isExpired()) {
+                markInvalid(digest);
+            } else {
+                clearInvalid(digest);
+            }
+        }
+    }
+
+    @Override
+    public void remove(OAuth2Authorization authorization) {
+        Assert.notNull(authorization, "authorization cannot be null");
+        this.delegate.remove(authorization);
+        OAuth2Authorization.Token<OAuth2AccessToken> accessToken = authorization.getAccessToken();
+        if (accessToken != null) {
+            markInvalid(hashToken(accessToken.getToken().getTokenValue()));
+        }
+    }
+
+    @Override
+    public OAuth2Authorization findById(String id) {
+        return this.delegate.findById(id);
+    }
+
+    @Override
+    public OAuth2Authorization findByToken(String token, OAuth2TokenType tokenType) {
+        Assert.hasText(token, "token cannot be empty");
+        if (!OAuth2TokenType.ACCESS_TOKEN.equals(tokenType)) {
+            return this.delegate.findByToken(token, tokenType);
+        }
+        String digest = hashToken(token);
+        if (isKnownInvalid(digest)) {
+            return null;
+        }
+        OAuth2Authorization authorization = this.delegate.findByToken(token, tokenType);
+        OAuth2Authorization.Token<OAuth2AccessToken> accessToken = authorization != null
+                ? authorization.getAccessToken() : null;
+        if (accessToken == null || accessToken.isInvalidated() || accessToken.isExpired()) {
+            markInvalid(digest);
+        }
+        return authorization;
+    }
+
+    @Override
+    public OAuth2AuthorizationView findViewByToken(String token, OAuth2TokenType tokenType) {
+        Assert.hasText(token, "token cannot be empty");
+        if (!OAuth2TokenType.ACCESS_TOKEN.equals(tokenType)) {
+            return findDelegateView(token, tokenType);
+        }
+        String digest = hashToken(token);
+        if (isKnownInvalid(digest)) {
+            return null;
+        }
+        OAuth2AuthorizationView view = findDelegateView(token, tokenType);
+        if (view == null || !view.isActive(token)) {
+            markInvalid(digest);
+        }
+        return view;
+    }
+
+    private OAuth2AuthorizationView findDelegateView(String token, OAuth2TokenType tokenType) {
+        if (this.delegate instanceof OAuth2AuthorizationViewService) {
+            return ((OAuth2AuthorizationViewService) this.delegate).findViewByToken(token, tokenType);
+        }
+        OAuth2Authorization authorization = this.delegate.findByToken(token, tokenType);
+        return authorization != null ? OAuth2AuthorizationView.of(authorization) : null;
+    }
+
+    /**
+     * 批量查询：一次管道检查所有令牌，确定无效的直接排除，其余一次交给被装饰的服务查询
+     */
+    @Override
+    public Map<String, OAuth2AuthorizationView> findViewsByTokens(Collection<String> tokens,
+            OAuth2TokenType tokenType) {
+        if (!(this.delegate instanceof OAuth2AuthorizationViewService)) {
+            return OAuth2AuthorizationViewService.super.findViewsByTokens(tokens, tokenType);
+        }
+        OAuth2AuthorizationViewService viewService = (OAuth2AuthorizationViewService) this.delegate;
+        if (!OAuth2TokenType.ACCESS_TOKEN.equals(tokenType)) {
+            return viewService.findViewsByTokens(tokens, tokenType);
+        }
+
+        Map<String, String> digests = new LinkedHashMap<>();
+        for (String token : tokens) {
+            digests.put(token, hashToken(token));
+        }
+        Set<String> knownInvalid = findKnownInvalid(new ArrayList<>(digests.values()));
+        List<String> candidates = new ArrayList<>();
+        digests.forEach((token, digest) -> {
+            if (!knownInvalid.contains(digest)) {
+                candidates.add(token);
+            }
+        });
+        if (candidates.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+
+        Map<String, OAuth2AuthorizationView> views = viewService.findViewsByTokens(candidates, tokenType);
+        List<String> invalid = new ArrayList<>();
+        for (String token : candidates) {
+            OAuth2AuthorizationView view = views.get(token);
+            if (view == null || !view.isActive(token)) {
+                invalid.add(digests.get(token));
+            }
+        }
+        markInvalid(invalid);
+        return views;
+    }
+
+    private boolean isKnownInvalid(String digest) {
+        return !findKnownInvalid(Collections.singletonList(digest)).isEmpty();
+    }
+
+    /**
+     * 找出确定无效的令牌摘要：在已知无效集合中，或过滤器已就绪且当前代、上一代均未记录该令牌。
+     * Redis异常时视为不确定，回退到查库。
+     */
+    private Set<String> findKnownInvalid(List<String> digests) {
+        long generation = generationOf(Instant.now());
+        int hashFunctions = properties.getHashFunctions();
+        List<Object> results;
+        try {
+            results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                stringConnection.get(key(READY_KEY));
+                for (String digest : digests) {
+                    long[] offsets = offsets(digest);
+                    stringConnection.get(key(INVALID_KEY + digest));
+                    for (long offset : offsets) {
+                        stringConnection.getBit(bloomKey(generation), offset);
+                    }
+                    for (long offset : offsets) {
+                        stringConnection.getBit(bloomKey(generation - 1), offset);
+                    }
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("Failed to check negative token cache", e);
+            return Collections.emptySet();
+        }
+
+        boolean ready = results.get(0) != null;
+        if (!ready) {
+            triggerRebuild();
+        }
+        Set<String> invalid = new HashSet<>();
+        int index = 1;
+        for (String digest : digests) {
+            boolean markedInvalid = results.get(index) != null;
+            boolean inCurrent = allBitsSet(results, index + 1, hashFunctions);
+            boolean inPrevious = allBitsSet(results, index + 1 + hashFunctions, hashFunctions);
+            if (markedInvalid || (ready && !inCurrent && !inPrevious)) {
+                invalid.add(digest);
+            }
+            index += 1 + 2 * hashFunctions;
+        }
+        return invalid;
+    }
+
+    private void recordIssued(String digest, Instant issuedAt) {
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                setBits((StringRedisConnection) connection, digest, issuedAt);
+                return null;
+            });
+        } catch (Exception e) {
+            // 写入失败会导致该令牌被误判为无效，清除就绪标记使过滤器停用并重建
+            log.warn("Failed to record issued token, disable filter until rebuilt", e);
+            try {
+                redisTemplate.delete(key(READY_KEY));
+            } catch (Exception ignored) {
+                // Redis不可用时查询同样会回退到查库
+            }
+        }
+    }
+
+    private void setBits(StringRedisConnection connection, String digest, Instant issuedAt) {
+        String bloomKey = bloomKey(generationOf(issuedAt != null ? issuedAt : Instant.now()));
+        for (long offset : offsets(digest)) {
+            connection.setBit(bloomKey, offset, true);
+        }
+        connection.pExpire(bloomKey, properties.getGeneration().multipliedBy(3).toMillis());
+    }
+
+    private void markInvalid(String digest) {
+        markInvalid(Collections.singletonList(digest));
+    }
+
+    private void markInvalid(List<String> digests) {
+        if (digests.isEmpty()) {
+            return;
+        }
+        long ttlMillis = properties.getInvalidTtl().toMillis();
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                for (String digest : digests) {
+                    stringConnection.pSetEx(key(INVALID_KEY + digest), ttlMillis, "1");
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("Failed to mark token invalid in negative cache", e);
+        }
+    }
+
+    private void clearInvalid(String digest) {
+        try {
+            redisTemplate.delete(key(INVALID_KEY + digest));
+        } catch (Exception e) {
+            log.warn("Failed to clear invalid token mark in negative cache", e);
+        }
+    }
+
+    private void triggerRebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            rebuildExecutor.execute(() -> {
+                try {
+                    rebuild();
+                } finally {
+                    rebuilding.set(false);
+                }
+            });
+        } catch (Exception e) {
+            rebuilding.set(false);
+            log.warn("Failed to schedule issued token filter rebuild", e);
+        }
+    }
+
+    /**
+     * 从库中重建过滤器：写入所有未过期访问令牌后设置就绪标记；
+     * 重建期间新签发的令牌由save直接写入，不会遗漏
+     */
+    private void rebuild() {
+        Boolean locked = redisTemplate.opsForValue().setIfAbsent(key(REBUILD_LOCK_KEY), "1", REBUILD_LOCK_TTL);
+        if (!Boolean.TRUE.equals(locked)) {
+            log.debug("Issued token filter is being rebuilt on another node");
+            return;
+        }
+        long count = 0;
+        try {
+            Instant now = Instant.now();
+            // 早于上一代签发的令牌查询时不会被检查到，统一记入上一代
+            Instant oldest = Instant.ofEpochSecond(
+                    (generationOf(now) - 1) * properties.getGeneration().getSeconds());
+            String afterId = "";
+            List<com.webapp.security.sso.oauth2.entity.OAuth2Authorization> batch;
+            do {
+                batch = authorizationMapper.selectActiveAccessTokenHashes(afterId, now,
+                        properties.getRebuildBatchSize());
+                List<com.webapp.security.sso.oauth2.entity.OAuth2Authorization> entities = batch;
+                redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    for (com.webapp.security.sso.oauth2.entity.OAuth2Authorization entity : entities) {
+                        Instant issuedAt = entity.getAccessTokenIssuedAt();
+                        setBits((StringRedisConnection) connection, entity.getAccessTokenHash(),
+                                issuedAt == null || issuedAt.isBefore(oldest) ? oldest : issuedAt);
+                    }
+                    return null;
+                });
+                if (!batch.isEmpty()) {
+                    afterId = batch.get(batch.size() - 1).getId();
+                }
+                count += batch.size();
+            } while (batch.size() == properties.getRebuildBatchSize());
+
+            redisTemplate.opsForValue().set(key(READY_KEY), String.valueOf(now.getEpochSecond()));
+            log.info("Issued token filter rebuilt with {} access tokens", count);
+        } catch (Exception e) {
+            log.error("Failed to rebuild issued token filter after {} access tokens", count, e);
+        } finally {
+            redisTemplate.delete(key(REBUILD_LOCK_KEY));
+        }
+    }
+
+    long generationOf(Instant instant) {
+        return instant.getEpochSecond() / properties.getGeneration().getSeconds();
+    }
+
+    /**
+     * 双重哈希计算位偏移，两个哈希值直接取自SHA-256摘要
+     */
+    long[] offsets(String digest) {
+        long h1 = Long.parseUnsignedLong(digest.substring(0, 16), 16);
+        long h2 = Long.parseUnsignedLong(digest.substring(16, 32), 16);
+        long[] offsets = new long[properties.getHashFunctions()];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = Math.floorMod(h1 + i * h2, properties.getBitSize());
+        }
+        return offsets;
+    }
+
+    private static boolean allBitsSet(List<Object> results, int from, int count) {
+        for (int i = from; i < from + count; i++) {
+            if (!Boolean.TRUE.equals(results.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String bloomKey(long generation) {
+        return key(BLOOM_KEY + generation);
+    }
+
+    private String key(String suffix) {
+        return properties.getKeyPrefix() + suffix;
+    }
+}
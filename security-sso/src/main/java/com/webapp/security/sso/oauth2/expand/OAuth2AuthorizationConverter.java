@@ -0,0 +1,232 @@
+package com.webapp.security.sso.oauth2.expand;
+
+import com.webapp.security.sso.oauth2.entity.OAuth2Authorization;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.security.oauth2.core.*;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * OAuth2Authorization与授权记录实体之间的转换器
+ * 属性和元数据通过AuthorizationMapCodec编码，MyBatis和Redis两种存储共用；
+ * 写入使用配置的编解码器，读取时按数据格式自动识别，JSON与二进制格式可以共存
+ */
+public class OAuth2AuthorizationConverter {
+
+    private final RegisteredClientRepository registeredClientRepository;
+    private final JsonAuthorizationMapCodec jsonCodec = new JsonAuthorizationMapCodec();
+    private final BinaryAuthorizationMapCodec binaryCodec = new BinaryAuthorizationMapCodec(jsonCodec);
+
+    /**
+     * 写入使用的编解码器，默认JSON（兼容未升级的节点）
+     */
+    private AuthorizationMapCodec writeCodec = jsonCodec;
+
+    public OAuth2AuthorizationConverter(RegisteredClientRepository registeredClientRepository) {
+        this.registeredClientRepository = registeredClientRepository;
+    }
+
+    /**
+     * 设置写入格式
+     */
+    public void setCodecType(CodecType codecType) {
+        Assert.notNull(codecType, "codecType cannot be null");
+        this.writeCodec = codecType == CodecType.BINARY ? binaryCodec : jsonCodec;
+    }
+
+    /**
+     * 计算令牌值的SHA-256摘要（小写十六进制，与MySQL SHA2(value, 256)一致）
+     */
+    public static String hashToken(String tokenValue) {
+        return tokenValue != null ? DigestUtils.sha256Hex(tokenValue) : null;
+    }
+
+    /**
+     * 将OAuth2Authorization转换为实体类
+     */
+    public OAuth2Authorization toEntity(
+            org.springframework.security.oauth2.server.authorization.OAuth2Authorization authorization) {
+        OAuth2Authorization entity = new OAuth2Authorization();
+        entity.setId(authorization.getId());
+        entity.setRegisteredClientId(authorization.getRegisteredClientId());
+        entity.setPrincipalName(authorization.getPrincipalName());
+        entity.setAuthorizationGrantType(authorization.getAuthorizationGrantType().getValue());
+        entity.setAuthorizedScopes(StringUtils.collectionToCommaDelimitedString(authorization.getAuthorizedScopes()));
+        entity.setAttributes(writeMap(authorization.getAttributes()));
+        entity.setState(authorization.getAttribute(OAuth2ParameterNames.STATE));
+
+        // 授权码
+        org.springframework.security.oauth2.server.authorization.OAuth2Authorization.Token<OAuth2AuthorizationCode> authorizationCode = authorization
+                .getToken(OAuth2AuthorizationCode.class);
+        setTokenValues(entity, authorizationCode,
+                entity::setAuthorizationCodeValue,
+                entity::setAuthorizationCodeIssuedAt,
+                entity::setAuthorizationCodeExpiresAt,
+                entity::setAuthorizationCodeMetadata);
+        entity.setAuthorizationCodeHash(hashToken(entity.getAuthorizationCodeValue()));
+
+        // 访问令牌
+        org.springframework.security.oauth2.server.authorization.OAuth2Authorization.Token<OAuth2AccessToken> accessToken = authorization
+                .getToken(OAuth2AccessToken.class);
+        setTokenValues(entity, accessToken,
+                entity::setAccessTokenValue,
+                entity::setAccessTokenIssuedAt,
+                entity::setAccessTokenExpiresAt,
+                entity::setAccessTokenMetadata);
+        entity.setAccessTokenHash(hashToken(entity.getAccessTokenValue()));
+        if (accessToken != null && accessToken.getToken().getTokenType() != null) {
+            entity.setAccessTokenType(accessToken.getToken().getTokenType().getValue());
+            entity.setAccessTokenScopes(
+                    StringUtils.collectionToCommaDelimitedString(accessToken.getToken().getScopes()));
+        }
+
+        // OIDC ID令牌
+        org.springframework.security.oauth2.server.authorization.OAuth2Authorization.Token<OidcIdToken> oidcIdToken = authorization
+                .getToken(OidcIdToken.class);
+        setTokenValues(entity, oidcIdToken,
+                entity::setOidcIdTokenValue,
+                entity::setOidcIdTokenIssuedAt,
+                entity::setOidcIdTokenExpiresAt,
+                entity::setOidcIdTokenMetadata);
+
+        // 刷新令牌
+        org.springframework.security.oauth2.server.authorization.OAuth2Authorization.Token<OAuth2RefreshToken> refreshToken = authorization
+                .getToken(OAuth2RefreshToken.class);
+        setTokenValues(entity, refreshToken,
+                entity::setRefreshTokenValue,
+                entity::setRefreshTokenIssuedAt,
+                entity::setRefreshTokenExpiresAt,
+                entity::setRefreshTokenMetadata);
+        entity.setRefreshTokenHash(hashToken(entity.getRefreshTokenValue()));
+
+        return entity;
+    }
+
+    /**
+     * 将实体类转换为OAuth2Authorization
+     */
+    public org.springframework.security.oauth2.server.authorization.OAuth2Authorization toObject(
+            OAuth2Authorization entity) {
+        RegisteredClient registeredClient = this.registeredClientRepository.findById(entity.getRegisteredClientId());
+        if (registeredClient == null) {
+            throw new DataRetrievalFailureException(
+                    "The RegisteredClient with id '" + entity.getRegisteredClientId()
+                            + "' was not found in the RegisteredClientRepository.");
+        }
+
+        org.springframework.security.oauth2.server.authorization.OAuth2Authorization.Builder builder = org.springframework.security.oauth2.server.authorization.OAuth2Authorization
+                .withRegisteredClient(registeredClient)
+                .id(entity.getId())
+                .principalName(entity.getPrincipalName())
+                .authorizationGrantType(resolveAuthorizationGrantType(entity.getAuthorizationGrantType()))
+                .authorizedScopes(StringUtils.commaDelimitedListToSet(entity.getAuthorizedScopes()))
+                .attributes(attributes -> attributes.putAll(parseMap(entity.getAttributes())));
+
+        if (entity.getState() != null) {
+            builder.attribute(OAuth2ParameterNames.STATE, entity.getState());
+        }
+
+        // 授权码
+        if (entity.getAuthorizationCodeValue() != null) {
+            OAuth2AuthorizationCode authorizationCode = new OAuth2AuthorizationCode(
+                    entity.getAuthorizationCodeValue(),
+                    entity.getAuthorizationCodeIssuedAt(),
+                    entity.getAuthorizationCodeExpiresAt());
+            builder.token(authorizationCode,
+                    metadata -> metadata.putAll(parseMap(entity.getAuthorizationCodeMetadata())));
+        }
+
+        // 访问令牌
+        if (entity.getAccessTokenValue() != null) {
+            OAuth2AccessToken.TokenType tokenType = null;
+            if (OAuth2AccessToken.TokenType.BEARER.getValue().equalsIgnoreCase(entity.getAccessTokenType())) {
+                tokenType = OAuth2AccessToken.TokenType.BEARER;
+            }
+            Set<String> scopes = StringUtils.commaDelimitedListToSet(entity.getAccessTokenScopes());
+            OAuth2AccessToken accessToken = new OAuth2AccessToken(
+                    tokenType,
+                    entity.getAccessTokenValue(),
+                    entity.getAccessTokenIssuedAt(),
+                    entity.getAccessTokenExpiresAt(),
+                    scopes);
+            builder.token(accessToken, metadata -> metadata.putAll(parseMap(entity.getAccessTokenMetadata())));
+        }
+
+        // OIDC ID令牌
+        if (entity.getOidcIdTokenValue() != null) {
+            OidcIdToken idToken = new OidcIdToken(
+                    entity.getOidcIdTokenValue(),
+                    entity.getOidcIdTokenIssuedAt(),
+                    entity.getOidcIdTokenExpiresAt(),
+                    parseMap(entity.getOidcIdTokenMetadata()));
+            builder.token(idToken, metadata -> metadata.putAll(parseMap(entity.getOidcIdTokenMetadata())));
+        }
+
+        // 刷新令牌
+        if (entity.getRefreshTokenValue() != null) {
+            OAuth2RefreshToken refreshToken = new OAuth2RefreshToken(
+                    entity.getRefreshTokenValue(),
+                    entity.getRefreshTokenIssuedAt(),
+                    entity.getRefreshTokenExpiresAt());
+            builder.token(refreshToken, metadata -> metadata.putAll(parseMap(entity.getRefreshTokenMetadata())));
+        }
+
+        return builder.build();
+    }
+
+    private void setTokenValues(OAuth2Authorization entity,
+            org.springframework.security.oauth2.server.authorization.OAuth2Authorization.Token<?> token,
+            Consumer<String> tokenValueConsumer,
+            Consumer<Instant> issuedAtConsumer,
+            Consumer<Instant> expiresAtConsumer,
+            Consumer<String> metadataConsumer) {
+        if (token != null) {
+            OAuth2Token oAuth2Token = token.getToken();
+            tokenValueConsumer.accept(oAuth2Token.getTokenValue());
+            issuedAtConsumer.accept(oAuth2Token.getIssuedAt());
+            expiresAtConsumer.accept(oAuth2Token.getExpiresAt());
+            metadataConsumer.accept(writeMap(token.getMetadata()));
+        }
+    }
+
+    private AuthorizationGrantType resolveAuthorizationGrantType(String authorizationGrantType) {
+        if (AuthorizationGrantType.AUTHORIZATION_CODE.getValue().equals(authorizationGrantType)) {
+            return AuthorizationGrantType.AUTHORIZATION_CODE;
+        } else if (AuthorizationGrantType.CLIENT_CREDENTIALS.getValue().equals(authorizationGrantType)) {
+            return AuthorizationGrantType.CLIENT_CREDENTIALS;
+        } else if (AuthorizationGrantType.REFRESH_TOKEN.getValue().equals(authorizationGrantType)) {
+            return AuthorizationGrantType.REFRESH_TOKEN;
+        }
+        return new AuthorizationGrantType(authorizationGrantType);
+    }
+
+    Map<String, Object> parseMap(String data) {
+        if (binaryCodec.supports(data)) {
+            return binaryCodec.decode(data);
+        }
+        return jsonCodec.decode(data);
+    }
+
+    private String writeMap(Map<String, Object> data) {
+        return writeCodec.encode(data);
+    }
+
+    /**
+     * 属性与元数据的存储格式
+     */
+    public enum CodecType {
+        JSON,
+        BINARY
+    }
+}
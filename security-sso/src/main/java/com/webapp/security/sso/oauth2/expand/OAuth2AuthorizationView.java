@@ -0,0 +1,202 @@
+package com.webapp.security.sso.oauth2.expand;
+
+import com.webapp.security.sso.oauth2.entity.OAuth2Authorization;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.OAuth2Token;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 授权记录的延迟解码视图
+ * 只在调用方实际访问时才解码属性或对应令牌的元数据，不加载RegisteredClient、不重建全部令牌；
+ * 需要完整的OAuth2Authorization（如交给Spring Authorization Server）时调用toAuthorization()。
+ * 延迟解码的结果只会被整体替换，视图可以放入本地缓存在线程间共享
+ */
+public final class OAuth2AuthorizationView {
+
+    private final org.springframework.security.oauth2.server.authorization.OAuth2Authorization materialized;
+    private final OAuth2Authorization entity;
+    private final OAuth2AuthorizationConverter converter;
+
+    private volatile org.springframework.security.oauth2.server.authorization.OAuth2Authorization authorization;
+    private volatile Map<String, Object> attributes;
+
+    private OAuth2AuthorizationView(
+            org.springframework.security.oauth2.server.authorization.OAuth2Authorization materialized,
+            OAuth2Authorization entity, OAuth2AuthorizationConverter converter) {
+        this.materialized = materialized;
+        this.entity = entity;
+        this.converter = converter;
+        this.authorization = materialized;
+    }
+
+    /**
+     * 包装已经构建好的授权对象（如缓存命中）
+     */
+    public static OAuth2AuthorizationView of(
+            org.springframework.security.oauth2.server.authorization.OAuth2Authorization authorization) {
+        Assert.notNull(authorization, "authorization cannot be null");
+        return new OAuth2AuthorizationView(authorization, null, null);
+    }
+
+    /**
+     * 基于授权记录实体的延迟视图
+     */
+    static OAuth2AuthorizationView of(OAuth2Authorization entity, OAuth2AuthorizationConverter converter) {
+        Assert.notNull(entity, "entity cannot be null");
+        return new OAuth2AuthorizationView(null, entity, converter);
+    }
+
+    public String getId() {
+        return materialized != null ? materialized.getId() : entity.getId();
+    }
+
+    public String getRegisteredClientId() {
+        return materialized != null ? materialized.getRegisteredClientId() : entity.getRegisteredClientId();
+    }
+
+    public String getPrincipalName() {
+        return materialized != null ? materialized.getPrincipalName() : entity.getPrincipalName();
+    }
+
+    /**
+     * 访问令牌（不含元数据），不存在时返回null
+     */
+    public OAuth2AccessToken getAccessToken() {
+        if (materialized != null) {
+            org.springframework.security.oauth2.server.authorization.OAuth2Authorization.Token<OAuth2AccessToken> token = materialized
+                    .getAccessToken();
+            return token != null ? token.getToken() : null;
+        }
+        if (entity.getAccessTokenValue() == null) {
+            return null;
+        }
+        OAuth2AccessToken.TokenType tokenType = null;
+        if (OAuth2AccessToken.TokenType.BEARER.getValue().equalsIgnoreCase(entity.getAccessTokenType())) {
+            tokenType = OAuth2AccessToken.TokenType.BEARER;
+        }
+        return new OAuth2AccessToken(tokenType, entity.getAccessTokenValue(), entity.getAccessTokenIssuedAt(),
+                entity.getAccessTokenExpiresAt(), StringUtils.commaDelimitedListToSet(entity.getAccessTokenScopes()));
+    }
+
+    /**
+     * 令牌是否有效（未作废、未过期、已到生效时间），与OAuth2Authorization.Token#isActive一致，
+     * 只解码该令牌自己的元数据
+     */
+    public boolean isActive(String tokenValue) {
+        if (materialized != null) {
+            org.springframework.security.oauth2.server.authorization.OAuth2Authorization.Token<OAuth2Token> token = materialized
+                    .getToken(tokenValue);
+            return token != null && token.isActive();
+        }
+        if (tokenValue.equals(entity.getAccessTokenValue())) {
+            return isActive(entity.getAccessTokenExpiresAt(), entity.getAccessTokenMetadata());
+        } else if (tokenValue.equals(entity.getRefreshTokenValue())) {
+            return isActive(entity.getRefreshTokenExpiresAt(), entity.getRefreshTokenMetadata());
+        } else if (tokenValue.equals(entity.getAuthorizationCodeValue())) {
+            return isActive(entity.getAuthorizationCodeExpiresAt(), entity.getAuthorizationCodeMetadata());
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T getAttribute(String name) {
+        if (materialized != null) {
+            return materialized.getAttribute(name);
+        }
+        if (OAuth2ParameterNames.STATE.equals(name) && entity.getState() != null) {
+            return (T) entity.getState();
+        }
+        Map<String, Object> decoded = attributes;
+        if (decoded == null) {
+            decoded = entity.getAttributes() != null ? converter.parseMap(entity.getAttributes())
+                    : Collections.emptyMap();
+            attributes = decoded;
+        }
+        return (T) decoded.get(name);
+    }
+
+    /**
+     * 完整的OAuth2Authorization，首次调用时构建
+     */
+    public org.springframework.security.oauth2.server.authorization.OAuth2Authorization toAuthorization() {
+        org.springframework.security.oauth2.server.authorization.OAuth2Authorization built = authorization;
+        if (built == null) {
+            built = converter.toObject(entity);
+            authorization = built;
+        }
+        return built;
+    }
+
+    /**
+     * 令牌是否属于该授权记录且类型一致，不解码任何数据
+     *
+     * @param tokenValue 令牌值
+     * @param tokenType  令牌类型，为null时匹配任意类型
+     */
+    public boolean matchesToken(String tokenValue, OAuth2TokenType tokenType) {
+        if (materialized != null) {
+            return matchesToken(materialized, tokenValue, tokenType);
+        }
+        if (tokenType == null) {
+            return tokenValue.equals(entity.getAccessTokenValue())
+                    || tokenValue.equals(entity.getRefreshTokenValue())
+                    || tokenValue.equals(entity.getAuthorizationCodeValue());
+        } else if (OAuth2TokenType.ACCESS_TOKEN.equals(tokenType)) {
+            return tokenValue.equals(entity.getAccessTokenValue());
+        } else if (OAuth2TokenType.REFRESH_TOKEN.equals(tokenType)) {
+            return tokenValue.equals(entity.getRefreshTokenValue());
+        } else if (OAuth2ParameterNames.CODE.equals(tokenType.getValue())) {
+            return tokenValue.equals(entity.getAuthorizationCodeValue());
+        }
+        return false;
+    }
+
+    /**
+     * 令牌是否属于该授权对象且类型一致
+     */
+    static boolean matchesToken(org.springframework.security.oauth2.server.authorization.OAuth2Authorization authorization,
+            String tokenValue, OAuth2TokenType tokenType) {
+        if (tokenType == null) {
+            return authorization.getToken(tokenValue) != null;
+        }
+        org.springframework.security.oauth2.server.authorization.OAuth2Authorization.Token<? extends OAuth2Token> matched = null;
+        if (OAuth2TokenType.ACCESS_TOKEN.equals(tokenType)) {
+            matched = authorization.getToken(OAuth2AccessToken.class);
+        } else if (OAuth2TokenType.REFRESH_TOKEN.equals(tokenType)) {
+            matched = authorization.getToken(OAuth2RefreshToken.class);
+        } else if (OAuth2ParameterNames.CODE.equals(tokenType.getValue())) {
+            matched = authorization.getToken(OAuth2AuthorizationCode.class);
+        }
+        return matched != null && tokenValue.equals(matched.getToken().getTokenValue());
+    }
+
+    private boolean isActive(Instant expiresAt, String metadataData) {
+        if (expiresAt != null && Instant.now().isAfter(expiresAt)) {
+            return false;
+        }
+        if (metadataData == null) {
+            return true;
+        }
+        Map<String, Object> metadata = converter.parseMap(metadataData);
+        if (Boolean.TRUE.equals(metadata.get(
+                org.springframework.security.oauth2.server.authorization.OAuth2Authorization.Token.INVALIDATED_METADATA_NAME))) {
+            return false;
+        }
+        Object claims = metadata.get(
+                org.springframework.security.oauth2.server.authorization.OAuth2Authorization.Token.CLAIMS_METADATA_NAME);
+        if (claims instanceof Map) {
+            Object notBefore = ((Map<?, ?>) claims).get("nbf");
+            return !(notBefore instanceof Instant) || !Instant.now().isBefore((Instant) notBefore);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,42 @@
+package com.webapp.security.sso.oauth2.expand;
+
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 支持按令牌查询延迟解码视图的授权服务
+ * 只读取少量字段的调用方（如令牌自省）使用，避免完整构建OAuth2Authorization
+ */
+public interface OAuth2AuthorizationViewService {
+
+    /**
+     * 根据令牌查找授权记录视图
+     *
+     * @param token     令牌值
+     * @param tokenType 令牌类型，为null时匹配任意类型
+     * @return 授权记录视图，不存在时返回null
+     */
+    OAuth2AuthorizationView findViewByToken(String token, OAuth2TokenType tokenType);
+
+    /**
+     * 根据多个令牌批量查找授权记录视图，默认逐个查询，存储实现应覆盖为一次多键查询
+     *
+     * @param tokens    令牌值
+     * @param tokenType 令牌类型
+     * @return 令牌值 -> 授权记录视图，不存在的令牌不包含在结果中
+     */
+    default Map<String, OAuth2AuthorizationView> findViewsByTokens(Collection<String> tokens,
+            OAuth2TokenType tokenType) {
+        Map<String, OAuth2AuthorizationView> views = new LinkedHashMap<>();
+        for (String token : tokens) {
+            OAuth2AuthorizationView view = findViewByToken(token, tokenType);
+            if (view != null) {
+                views.put(token, view);
+            }
+        }
+        return views;
+    }
+}
@@ -3,6 +3,7 @@ package com.webapp.security.sso.oauth2.expand;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.webapp.security.sso.api.service.CredentialVerificationCache;
 import com.webapp.security.sso.oauth2.entity.OAuth2RegisteredClient;
 import com.webapp.security.sso.oauth2.mapper.OAuth2RegisteredClientMapper;
 import lombok.RequiredArgsConstructor;
@@ -40,6 +41,7 @@ public class OAuth2RegisteredClientService implements RegisteredClientRepository
     private static final Logger log = LoggerFactory.getLogger(OAuth2RegisteredClientService.class);
 
     private final OAuth2RegisteredClientMapper clientMapper;
+    private final CredentialVerificationCache credentialVerificationCache;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Override
@@ -61,6 +63,12 @@ public class OAuth2RegisteredClientService implements RegisteredClientRepository
             clientMapper.insert(entity);
             log.debug("Saved new OAuth2 client: {}", entity.getClientId());
         }
+
+        // 清除该客户端的凭证校验缓存，密钥轮换立即生效
+        credentialVerificationCache.evict(CredentialVerificationCache.REGISTERED_CLIENT, entity.getClientId());
+        if (existing != null && !existing.getClientId().equals(entity.getClientId())) {
+            credentialVerificationCache.evict(CredentialVerificationCache.REGISTERED_CLIENT, existing.getClientId());
+        }
     }
 
     @Override
@@ -0,0 +1,309 @@
+package com.webapp.security.sso.oauth2.expand;
+
+import com.webapp.security.sso.config.AuthorizationStoreProperties;
+import com.webapp.security.sso.oauth2.entity.OAuth2Authorization;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+import org.springframework.util.Assert;
+
+import java.beans.PropertyDescriptor;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static com.webapp.security.sso.oauth2.expand.OAuth2AuthorizationConverter.hashToken;
+
+/**
+ * 基于Redis的OAuth2AuthorizationService实现
+ * 每条授权记录存为一个以ID为键的Hash（字段与oauth2_authorization表列一致），
+ * 每个令牌摘要一个二级键指向授权ID，所有键的过期时间等于存活最久的令牌的过期时间
+ */
+@Slf4j
+public class RedisOAuth2AuthorizationService implements OAuth2AuthorizationService, OAuth2AuthorizationViewService {
+
+    private static final String ID_KEY = "id:";
+    private static final String TOKEN_KEY = "token:";
+
+    private static final List<String> TOKEN_HASH_FIELDS = Arrays.asList(
+            "authorizationCodeHash", "accessTokenHash", "refreshTokenHash");
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final OAuth2AuthorizationConverter converter;
+    private final AuthorizationStoreProperties properties;
+
+    public RedisOAuth2AuthorizationService(RedisTemplate<String, String> redisTemplate,
+            RegisteredClientRepository registeredClientRepository,
+            AuthorizationStoreProperties properties) {
+        Assert.notNull(redisTemplate, "redisTemplate cannot be null");
+        this.redisTemplate = redisTemplate;
+        this.converter = new OAuth2AuthorizationConverter(registeredClientRepository);
+        this.properties = properties;
+    }
+
+    public void setCodecType(OAuth2AuthorizationConverter.CodecType codecType) {
+        this.converter.setCodecType(codecType);
+    }
+
+    @Override
+    public void save(org.springframework.security.oauth2.server.authorization.OAuth2Authorization authorization) {
+        Assert.notNull(authorization, "authorization cannot be null");
+
+        OAuth2Authorization entity = converter.toEntity(authorization);
+        String hashKey = idKey(entity.getId());
+        Map<String, String> fields = toHash(entity);
+        Set<String> digests = tokenDigests(fields);
+        // 更新时旧令牌（如刷新后被替换的访问令牌）的二级键需要删除
+        Set<String> staleDigests = findTokenDigests(hashKey);
+        staleDigests.removeAll(digests);
+
+        Duration ttl = ttl(entity);
+        if (ttl.isNegative() || ttl.isZero()) {
+            log.debug("Authorization already expired, remove it instead of saving, id: {}", entity.getId());
+            deleteKeys(hashKey, staleDigests, digests);
+            return;
+        }
+
+        redisTemplate.execute(new SessionCallback<List<Object>>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public List<Object> execute(RedisOperations operations) throws DataAccessException {
+                operations.multi();
+                operations.delete(hashKey);
+                operations.opsForHash().putAll(hashKey, fields);
+                operations.expire(hashKey, ttl.toMillis(), TimeUnit.MILLISECONDS);
+                for (String digest : digests) {
+                    operations.opsForValue().set(tokenKey(digest), entity.getId(), ttl.toMillis(),
+                            TimeUnit.MILLISECONDS);
+                }
+                for (String digest : staleDigests) {
+                    operations.delete(tokenKey(digest));
+                }
+                return operations.exec();
+            }
+        });
+    }
+
+    @Override
+    public void remove(org.springframework.security.oauth2.server.authorization.OAuth2Authorization authorization) {
+        Assert.notNull(authorization, "authorization cannot be null");
+        String hashKey = idKey(authorization.getId());
+        deleteKeys(hashKey, findTokenDigests(hashKey), new LinkedHashSet<>());
+    }
+
+    @Override
+    public org.springframework.security.oauth2.server.authorization.OAuth2Authorization findById(String id) {
+        Assert.hasText(id, "id cannot be empty");
+        OAuth2Authorization entity = findEntity(id);
+        return entity != null ? converter.toObject(entity) : null;
+    }
+
+    @Override
+    public org.springframework.security.oauth2.server.authorization.OAuth2Authorization findByToken(String token,
+            OAuth2TokenType tokenType) {
+        Assert.hasText(token, "token cannot be empty");
+        OAuth2Authorization entity = findEntityByToken(token, tokenType);
+        return entity != null ? converter.toObject(entity) : null;
+    }
+
+    @Override
+    public OAuth2AuthorizationView findViewByToken(String token, OAuth2TokenType tokenType) {
+        Assert.hasText(token, "token cannot be empty");
+        OAuth2Authorization entity = findEntityByToken(token, tokenType);
+        return entity != null ? OAuth2AuthorizationView.of(entity, converter) : null;
+    }
+
+    /**
+     * 一次MGET取出所有令牌对应的授权ID，再用一次管道读取全部授权记录
+     */
+    @Override
+    public Map<String, OAuth2AuthorizationView> findViewsByTokens(Collection<String> tokens,
+            OAuth2TokenType tokenType) {
+        Map<String, OAuth2AuthorizationView> views = new LinkedHashMap<>();
+        if (tokens.isEmpty()) {
+            return views;
+        }
+        List<String> tokenList = new ArrayList<>(tokens);
+        List<String> tokenKeys = new ArrayList<>(tokenList.size());
+        for (String token : tokenList) {
+            tokenKeys.add(tokenKey(hashToken(token)));
+        }
+        List<String> ids = redisTemplate.opsForValue().multiGet(tokenKeys);
+        if (ids == null) {
+            return views;
+        }
+        List<String> foundTokens = new ArrayList<>();
+        List<String> foundIds = new ArrayList<>();
+        for (int i = 0; i < tokenList.size(); i++) {
+            if (ids.get(i) != null) {
+                foundTokens.add(tokenList.get(i));
+                foundIds.add(ids.get(i));
+            }
+        }
+        if (foundIds.isEmpty()) {
+            return views;
+        }
+
+        List<Object> hashes = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                for (String id : foundIds) {
+                    operations.opsForHash().entries(idKey(id));
+                }
+                return null;
+            }
+        });
+        for (int i = 0; i < foundTokens.size(); i++) {
+            Object fields = hashes.get(i);
+            if (!(fields instanceof Map) || ((Map<?, ?>) fields).isEmpty()) {
+                continue;
+            }
+            @SuppressWarnings("unchecked")
+            OAuth2Authorization entity = fromHash((Map<Object, Object>) fields);
+            String token = foundTokens.get(i);
+            if (matchesToken(entity, token, tokenType)) {
+                views.put(token, OAuth2AuthorizationView.of(entity, converter));
+            }
+        }
+        return views;
+    }
+
+    private OAuth2Authorization findEntityByToken(String token, OAuth2TokenType tokenType) {
+        String id = redisTemplate.opsForValue().get(tokenKey(hashToken(token)));
+        if (id == null) {
+            return null;
+        }
+        OAuth2Authorization entity = findEntity(id);
+        // 摘要键与授权记录不是同一个键，需确认令牌仍属于该授权且类型匹配
+        return entity != null && matchesToken(entity, token, tokenType) ? entity : null;
+    }
+
+    private OAuth2Authorization findEntity(String id) {
+        Map<Object, Object> fields = redisTemplate.opsForHash().entries(idKey(id));
+        return fields.isEmpty() ? null : fromHash(fields);
+    }
+
+    private boolean matchesToken(OAuth2Authorization entity, String token, OAuth2TokenType tokenType) {
+        if (tokenType == null) {
+            return token.equals(entity.getAccessTokenValue())
+                    || token.equals(entity.getRefreshTokenValue())
+                    || token.equals(entity.getAuthorizationCodeValue());
+        } else if (OAuth2TokenType.ACCESS_TOKEN.equals(tokenType)) {
+            return token.equals(entity.getAccessTokenValue());
+        } else if (OAuth2TokenType.REFRESH_TOKEN.equals(tokenType)) {
+            return token.equals(entity.getRefreshTokenValue());
+        } else if (OAuth2ParameterNames.CODE.equals(tokenType.getValue())) {
+            return token.equals(entity.getAuthorizationCodeValue());
+        }
+        return false;
+    }
+
+    private Set<String> findTokenDigests(String hashKey) {
+        List<Object> values = redisTemplate.opsForHash().multiGet(hashKey, new ArrayList<>(TOKEN_HASH_FIELDS));
+        Set<String> digests = new LinkedHashSet<>();
+        for (Object value : values) {
+            if (value != null) {
+                digests.add(value.toString());
+            }
+        }
+        return digests;
+    }
+
+    private void deleteKeys(String hashKey, Set<String> digests, Set<String> moreDigests) {
+        List<String> keys = new ArrayList<>();
+        keys.add(hashKey);
+        digests.forEach(digest -> keys.add(tokenKey(digest)));
+        moreDigests.forEach(digest -> keys.add(tokenKey(digest)));
+        redisTemplate.delete(keys);
+    }
+
+    /**
+     * 以存活最久的令牌的过期时间作为键的过期时间，令牌均无过期时间时使用默认值
+     */
+    private Duration ttl(OAuth2Authorization entity) {
+        Instant expiresAt = null;
+        for (Instant candidate : Arrays.asList(entity.getAuthorizationCodeExpiresAt(),
+                entity.getAccessTokenExpiresAt(), entity.getOidcIdTokenExpiresAt(),
+                entity.getRefreshTokenExpiresAt())) {
+            if (candidate != null && (expiresAt == null || candidate.isAfter(expiresAt))) {
+                expiresAt = candidate;
+            }
+        }
+        return expiresAt != null ? Duration.between(Instant.now(), expiresAt) : properties.getDefaultTtl();
+    }
+
+    private Set<String> tokenDigests(Map<String, String> fields) {
+        Set<String> digests = new LinkedHashSet<>();
+        for (String field : TOKEN_HASH_FIELDS) {
+            String digest = fields.get(field);
+            if (digest != null) {
+                digests.add(digest);
+            }
+        }
+        return digests;
+    }
+
+    /**
+     * 实体转为Hash字段，时间存为毫秒时间戳，空值不存
+     */
+    private Map<String, String> toHash(OAuth2Authorization entity) {
+        BeanWrapper wrapper = new BeanWrapperImpl(entity);
+        Map<String, String> fields = new HashMap<>();
+        for (PropertyDescriptor descriptor : wrapper.getPropertyDescriptors()) {
+            String name = descriptor.getName();
+            if (!wrapper.isWritableProperty(name)) {
+                continue;
+            }
+            Object value = wrapper.getPropertyValue(name);
+            if (value instanceof Instant) {
+                fields.put(name, String.valueOf(((Instant) value).toEpochMilli()));
+            } else if (value != null) {
+                fields.put(name, value.toString());
+            }
+        }
+        return fields;
+    }
+
+    private OAuth2Authorization fromHash(Map<Object, Object> fields) {
+        OAuth2Authorization entity = new OAuth2Authorization();
+        BeanWrapper wrapper = new BeanWrapperImpl(entity);
+        fields.forEach((name, value) -> {
+            String property = name.toString();
+            if (!wrapper.isWritableProperty(property)) {
+                return;
+            }
+            if (Instant.class.equals(wrapper.getPropertyType(property))) {
+                wrapper.setPropertyValue(property, Instant.ofEpochMilli(Long.parseLong(value.toString())));
+            } else {
+                wrapper.setPropertyValue(property, value.toString());
+            }
+        });
+        return entity;
+    }
+
+    private String idKey(String id) {
+        return properties.getKeyPrefix() + ID_KEY + id;
+    }
+
+    private String tokenKey(String digest) {
+        return properties.getKeyPrefix() + TOKEN_KEY + digest;
+    }
+}
@@ -1,20 +1,17 @@
 package com.webapp.security.sso.oauth2.expand;
 
+import com.webapp.security.core.authority.AuthoritySet;
 import com.webapp.security.core.entity.SysUser;
-import com.webapp.security.core.mapper.SysUserMapper;
+import com.webapp.security.sso.oauth2.service.UserPermissionCache;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
 /**
  * 用户详情服务实现
  */
@@ -24,29 +21,25 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 
     private static final Logger log = LoggerFactory.getLogger(UserDetailsServiceImpl.class);
 
-    private final SysUserMapper sysUserMapper;
+    private final UserPermissionCache userPermissionCache;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         log.debug("Loading user by username: {}", username);
 
-        // 查询用户信息
-        SysUser sysUser = sysUserMapper.selectByUsername(username);
+        // 查询用户信息与权限（优先命中用户权限缓存）
+        UserPermissionCache.CachedUser cachedUser = userPermissionCache.get(username);
 
-        if (sysUser == null) {
+        if (cachedUser == null) {
             log.warn("User not found: {}", username);
             throw new UsernameNotFoundException("用户不存在: " + username);
         }
 
+        SysUser sysUser = cachedUser.getUser();
         log.debug("User found: {}", sysUser.getUsername());
 
-        // 获取用户权限列表
-        List<String> permissionList = sysUserMapper.selectUserPermissions(sysUser.getUserId());
-
-        // 将权限字符串转换为GrantedAuthority对象
-        List<SimpleGrantedAuthority> authorities = permissionList.stream()
-                .map(SimpleGrantedAuthority::new)
-                .collect(Collectors.toList());
+        // 权限已转换为驻留的GrantedAuthority集合
+        AuthoritySet authorities = cachedUser.getAuthorities();
 
         log.debug("User authorities: {}", authorities);
 
@@ -2,10 +2,16 @@ package com.webapp.security.sso.oauth2.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.webapp.security.sso.oauth2.entity.OAuth2Authorization;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
 /**
  * OAuth2授权记录Mapper
  */
@@ -29,4 +35,141 @@ public interface OAuth2AuthorizationMapper extends BaseMapper<OAuth2Authorizatio
      */
     @Select("SELECT * FROM oauth2_authorization WHERE authorization_code_value = #{codeValue}")
     OAuth2Authorization findByAuthorizationCode(@Param("codeValue") String codeValue);
+
+    /**
+     * 插入或更新授权记录（单条语句，避免先查后写的两次往返和并发刷新时的竞争）
+     * 已存在时只更新可变的列：客户端、主体和授权类型在授权创建后不变，不再改写；
+     * 令牌列按令牌分组，只更新新授权中存在的令牌，未携带的令牌保留原值（与updateById忽略null字段的语义一致）。
+     * 授权码、令牌摘要唯一键只会在新记录复制了其他授权的令牌时冲突，刷新令牌时新授权不复制原授权的令牌
+     */
+    @Insert("<script>"
+            + "INSERT INTO oauth2_authorization ("
+            + "id, registered_client_id, principal_name, authorization_grant_type, authorized_scopes, attributes, state, "
+            + "authorization_code_value, authorization_code_hash, authorization_code_issued_at, "
+            + "authorization_code_expires_at, authorization_code_metadata, "
+            + "access_token_value, access_token_hash, access_token_issued_at, access_token_expires_at, "
+            + "access_token_metadata, access_token_type, access_token_scopes, "
+            + "oidc_id_token_value, oidc_id_token_issued_at, oidc_id_token_expires_at, oidc_id_token_metadata, "
+            + "refresh_token_value, refresh_token_hash, refresh_token_issued_at, refresh_token_expires_at, "
+            + "refresh_token_metadata"
+            + ") VALUES ("
+            + "#{id}, #{registeredClientId}, #{principalName}, #{authorizationGrantType}, #{authorizedScopes}, "
+            + "#{attributes}, #{state}, "
+            + "#{authorizationCodeValue}, #{authorizationCodeHash}, #{authorizationCodeIssuedAt}, "
+            + "#{authorizationCodeExpiresAt}, #{authorizationCodeMetadata}, "
+            + "#{accessTokenValue}, #{accessTokenHash}, #{accessTokenIssuedAt}, #{accessTokenExpiresAt}, "
+            + "#{accessTokenMetadata}, #{accessTokenType}, #{accessTokenScopes}, "
+            + "#{oidcIdTokenValue}, #{oidcIdTokenIssuedAt}, #{oidcIdTokenExpiresAt}, #{oidcIdTokenMetadata}, "
+            + "#{refreshTokenValue}, #{refreshTokenHash}, #{refreshTokenIssuedAt}, #{refreshTokenExpiresAt}, "
+            + "#{refreshTokenMetadata}"
+            + ") ON DUPLICATE KEY UPDATE "
+            + "<trim suffixOverrides=\",\">"
+            + "<if test=\"authorizedScopes != null\">authorized_scopes = VALUES(authorized_scopes), </if>"
+            + "<if test=\"attributes != null\">attributes = VALUES(attributes), </if>"
+            + "<if test=\"state != null\">state = VALUES(state), </if>"
+            + "<if test=\"authorizationCodeValue != null\">"
+            + "authorization_code_value = VALUES(authorization_code_value), "
+            + "authorization_code_hash = VALUES(authorization_code_hash), "
+            + "authorization_code_issued_at = VALUES(authorization_code_issued_at), "
+            + "authorization_code_expires_at = VALUES(authorization_code_expires_at), "
+            + "authorization_code_metadata = VALUES(authorization_code_metadata), "
+            + "</if>"
+            + "<if test=\"accessTokenValue != null\">"
+            + "access_token_value = VALUES(access_token_value), "
+            + "access_token_hash = VALUES(access_token_hash), "
+            + "access_token_issued_at = VALUES(access_token_issued_at), "
+            + "access_token_expires_at = VALUES(access_token_expires_at), "
+            + "access_token_metadata = VALUES(access_token_metadata), "
+            + "access_token_type = VALUES(access_token_type), "
+            + "access_token_scopes = VALUES(access_token_scopes), "
+            + "</if>"
+            + "<if test=\"oidcIdTokenValue != null\">"
+            + "oidc_id_token_value = VALUES(oidc_id_token_value), "
+            + "oidc_id_token_issued_at = VALUES(oidc_id_token_issued_at), "
+            + "oidc_id_token_expires_at = VALUES(oidc_id_token_expires_at), "
+            + "oidc_id_token_metadata = VALUES(oidc_id_token_metadata), "
+            + "</if>"
+            + "<if test=\"refreshTokenValue != null\">"
+            + "refresh_token_value = VALUES(refresh_token_value), "
+            + "refresh_token_hash = VALUES(refresh_token_hash), "
+            + "refresh_token_issued_at = VALUES(refresh_token_issued_at), "
+            + "refresh_token_expires_at = VALUES(refresh_token_expires_at), "
+            + "refresh_token_metadata = VALUES(refresh_token_metadata), "
+            + "</if>"
+            + "</trim>"
+            + "</script>")
+    int upsert(OAuth2Authorization authorization);
+
+    /**
+     * 根据访问令牌摘要查找授权记录（走uk_oauth2_authorization_access_token_hash索引）
+     */
+    @Select("SELECT * FROM oauth2_authorization WHERE access_token_hash = #{tokenHash}")
+    OAuth2Authorization findByAccessTokenHash(@Param("tokenHash") String tokenHash);
+
+    /**
+     * 根据刷新令牌摘要查找授权记录（走uk_oauth2_authorization_refresh_token_hash索引）
+     */
+    @Select("SELECT * FROM oauth2_authorization WHERE refresh_token_hash = #{tokenHash}")
+    OAuth2Authorization findByRefreshTokenHash(@Param("tokenHash") String tokenHash);
+
+    /**
+     * 根据授权码摘要查找授权记录（走uk_oauth2_authorization_code_hash索引）
+     */
+    @Select("SELECT * FROM oauth2_authorization WHERE authorization_code_hash = #{codeHash}")
+    OAuth2Authorization findByAuthorizationCodeHash(@Param("codeHash") String codeHash);
+
+    /**
+     * 根据多个访问令牌摘要批量查找授权记录
+     */
+    @Select("<script>"
+            + "SELECT * FROM oauth2_authorization WHERE access_token_hash IN "
+            + "<foreach collection=\"tokenHashes\" item=\"tokenHash\" open=\"(\" separator=\",\" close=\")\">"
+            + "#{tokenHash}"
+            + "</foreach>"
+            + "</script>")
+    List<OAuth2Authorization> findByAccessTokenHashes(@Param("tokenHashes") Collection<String> tokenHashes);
+
+    /**
+     * 按令牌摘要一次查询多种令牌类型（每个分支走各自的摘要唯一索引）
+     */
+    @Select("<script>"
+            + "<trim prefixOverrides=\"UNION ALL\">"
+            + "<if test=\"accessToken\">"
+            + "UNION ALL SELECT * FROM oauth2_authorization WHERE access_token_hash = #{tokenHash} "
+            + "</if>"
+            + "<if test=\"refreshToken\">"
+            + "UNION ALL SELECT * FROM oauth2_authorization WHERE refresh_token_hash = #{tokenHash} "
+            + "</if>"
+            + "<if test=\"authorizationCode\">"
+            + "UNION ALL SELECT * FROM oauth2_authorization WHERE authorization_code_hash = #{tokenHash} "
+            + "</if>"
+            + "</trim>"
+            + "LIMIT 1"
+            + "</script>")
+    OAuth2Authorization findByAnyTokenHash(@Param("tokenHash") String tokenHash,
+            @Param("accessToken") boolean accessToken,
+            @Param("refreshToken") boolean refreshToken,
+            @Param("authorizationCode") boolean authorizationCode);
+
+    /**
+     * 按主键分页读取未过期访问令牌的摘要和签发时间（用于重建已签发令牌过滤器）
+     */
+    @Select("SELECT id, access_token_hash, access_token_issued_at FROM oauth2_authorization "
+            + "WHERE id > #{afterId} AND access_token_hash IS NOT NULL AND access_token_expires_at > #{now} "
+            + "ORDER BY id LIMIT #{limit}")
+    List<OAuth2Authorization> selectActiveAccessTokenHashes(@Param("afterId") String afterId,
+            @Param("now") Instant now, @Param("limit") int limit);
+
+    /**
+     * 分批删除已过期的授权记录（访问令牌、刷新令牌、授权码均已过期或不存在，且至少有一个令牌）
+     * 走idx_oauth2_authorization_expires_at复合索引
+     */
+    @Delete("DELETE FROM oauth2_authorization "
+            + "WHERE (access_token_expires_at IS NULL OR access_token_expires_at < #{expiredBefore}) "
+            + "AND (refresh_token_expires_at IS NULL OR refresh_token_expires_at < #{expiredBefore}) "
+            + "AND (authorization_code_expires_at IS NULL OR authorization_code_expires_at < #{expiredBefore}) "
+            + "AND (access_token_expires_at IS NOT NULL OR refresh_token_expires_at IS NOT NULL "
+            + "OR authorization_code_expires_at IS NOT NULL) "
+            + "LIMIT #{limit}")
+    int deleteExpired(@Param("expiredBefore") Instant expiredBefore, @Param("limit") int limit);
 }
@@ -0,0 +1,158 @@
+package com.webapp.security.sso.oauth2.service;
+
+import com.webapp.security.sso.config.AuthorizationPurgeProperties;
+import com.webapp.security.sso.oauth2.mapper.OAuth2AuthorizationMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 过期OAuth2授权记录清理服务
+ * 定时分批删除访问令牌、刷新令牌、授权码均已过期的授权记录，
+ * 每批之间限速，通过Redis锁保证同一时间只有一个节点执行
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "oauth2.authorization.purge.enabled", havingValue = "true", matchIfMissing = true)
+public class AuthorizationPurgeService {
+
+    private static final String LOCK_KEY = "oauth2:authorization:purge:lock";
+
+    /**
+     * 仅在锁仍由当前节点持有时释放
+     */
+    private static final DefaultRedisScript<Long> RELEASE_LOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final OAuth2AuthorizationMapper authorizationMapper;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final AuthorizationPurgeProperties properties;
+
+    private final Counter deletedCounter;
+    private final Counter batchCounter;
+    private final Timer runTimer;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong lastRunDeleted = new AtomicLong();
+    private final AtomicLong lastRunCompletedAt = new AtomicLong();
+
+    public AuthorizationPurgeService(OAuth2AuthorizationMapper authorizationMapper,
+            RedisTemplate<String, String> redisTemplate,
+            AuthorizationPurgeProperties properties,
+            MeterRegistry meterRegistry) {
+        this.authorizationMapper = authorizationMapper;
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+
+        this.deletedCounter = Counter.builder("oauth2.authorization.purge.deleted")
+                .description("已删除的过期授权记录数")
+                .register(meterRegistry);
+        this.batchCounter = Counter.builder("oauth2.authorization.purge.batches")
+                .description("已执行的删除批次数")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("oauth2.authorization.purge.duration")
+                .description("单次清理耗时")
+                .register(meterRegistry);
+        Gauge.builder("oauth2.authorization.purge.running", running, r -> r.get() ? 1 : 0)
+                .description("当前节点是否正在清理")
+                .register(meterRegistry);
+        Gauge.builder("oauth2.authorization.purge.last.deleted", lastRunDeleted, AtomicLong::get)
+                .description("最近一次清理删除的记录数")
+                .register(meterRegistry);
+        Gauge.builder("oauth2.authorization.purge.last.completed", lastRunCompletedAt, AtomicLong::get)
+                .description("最近一次清理完成时间（epoch秒）")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 定时清理过期授权记录
+     */
+    @Scheduled(fixedDelayString = "${oauth2.authorization.purge.interval:PT10M}",
+            initialDelayString = "${oauth2.authorization.purge.initial-delay:PT1M}")
+    public void purgeExpiredAuthorizations() {
+        String lockValue = UUID.randomUUID().toString();
+        Boolean acquired;
+        try {
+            acquired = redisTemplate.opsForValue().setIfAbsent(LOCK_KEY, lockValue, properties.getLockTtl());
+        } catch (Exception e) {
+            log.warn("Failed to acquire authorization purge lock, skip this run", e);
+            return;
+        }
+        if (!Boolean.TRUE.equals(acquired)) {
+            log.debug("Authorization purge is running on another node, skip this run");
+            return;
+        }
+
+        try {
+            runTimer.record(this::purge);
+        } finally {
+            try {
+                redisTemplate.execute(RELEASE_LOCK_SCRIPT, Collections.singletonList(LOCK_KEY), lockValue);
+            } catch (Exception e) {
+                log.warn("Failed to release authorization purge lock, it will expire automatically", e);
+            }
+        }
+    }
+
+    /**
+     * 分批删除过期授权记录
+     *
+     * @return 本次删除的记录数
+     */
+    public long purge() {
+        if (!running.compareAndSet(false, true)) {
+            return 0;
+        }
+        Instant expiredBefore = Instant.now().minus(properties.getRetention());
+        long total = 0;
+        int batches = 0;
+        try {
+            while (batches < properties.getMaxBatchesPerRun()) {
+                int deleted = authorizationMapper.deleteExpired(expiredBefore, properties.getBatchSize());
+                batches++;
+                total += deleted;
+                batchCounter.increment();
+                deletedCounter.increment(deleted);
+
+                if (deleted < properties.getBatchSize()) {
+                    break;
+                }
+                if (!pause()) {
+                    break;
+                }
+            }
+            log.info("Purged {} expired authorizations in {} batches, expired before: {}",
+                    total, batches, expiredBefore);
+        } catch (Exception e) {
+            log.error("Failed to purge expired authorizations after {} batches", batches, e);
+        } finally {
+            lastRunDeleted.set(total);
+            lastRunCompletedAt.set(Instant.now().getEpochSecond());
+            running.set(false);
+        }
+        return total;
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(properties.getBatchInterval().toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.webapp.security.sso.oauth2.service;
+
+import com.webapp.security.core.authority.AuthoritySet;
+import com.webapp.security.core.mapper.SysUserMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 授权版本服务
+ * 访问令牌携带签发时用户权限对应的授权版本（auth_version声明），授权记录中同时保存版本与权限。
+ * 刷新令牌时按主键读取用户当前的授权版本，与记录一致时直接复用记录中的权限，不再加载用户详情和权限；
+ * 用户的角色分配、状态或其角色、权限变更都会递增版本，此时回退到完整加载。
+ * 版本取自数据库而不是本节点的权限索引，变更提交后的刷新不会因索引尚未重建而复用旧权限。
+ */
+@Component
+@RequiredArgsConstructor
+public class AuthorizationVersionService {
+
+    /**
+     * 授权版本声明
+     */
+    public static final String AUTH_VERSION_CLAIM = "auth_version";
+
+    /**
+     * 用户ID声明
+     */
+    public static final String USER_ID_CLAIM = "user_id";
+
+    private static final String AUTHORITIES_CLAIM = "authorities";
+
+    private static final String AUTH_VERSION_ATTRIBUTE = "auth_version";
+    private static final String USER_ID_ATTRIBUTE = "user_id";
+    private static final String AUTHORITIES_ATTRIBUTE = "authorities";
+
+    private final UserPermissionCache userPermissionCache;
+    private final SysUserMapper sysUserMapper;
+
+    /**
+     * 签发访问令牌时确定主体权限对应的授权版本
+     *
+     * @param principal 令牌主体
+     * @return 无法确定版本（非用户主体、权限与当前不一致等）时返回null
+     */
+    public Stamp resolve(Authentication principal) {
+        if (principal.getDetails() instanceof Stamp) {
+            // 刷新令牌时复用的权限已与版本对应
+            return (Stamp) principal.getDetails();
+        }
+        if (!(principal instanceof UsernamePasswordAuthenticationToken)) {
+            return null;
+        }
+        UserPermissionCache.CachedUser cachedUser = userPermissionCache.get(principal.getName());
+        if (cachedUser == null || cachedUser.getAuthVersion() == null) {
+            return null;
+        }
+        // 版本先于权限读取，主体权限与当前权限一致时该版本不会比主体权限更新
+        if (!cachedUser.getAuthorities().equals(AuthoritySet.copyOf(principal.getAuthorities()))) {
+            return null;
+        }
+        return new Stamp(cachedUser.getUser().getUserId(), cachedUser.getAuthVersion());
+    }
+
+    /**
+     * 将访问令牌中的授权版本与权限记录到授权
+     */
+    public void record(OAuth2Authorization.Builder authorizationBuilder, Jwt jwt) {
+        Object version = jwt.getClaims().get(AUTH_VERSION_CLAIM);
+        Object userId = jwt.getClaims().get(USER_ID_CLAIM);
+        List<String> authorities = jwt.getClaimAsStringList(AUTHORITIES_CLAIM);
+        authorizationBuilder.attributes(attributes -> {
+            if (version != null && userId != null && authorities != null) {
+                // 以字符串保存，Long不在授权记录JSON编解码的类型白名单中
+                attributes.put(AUTH_VERSION_ATTRIBUTE, String.valueOf(version));
+                attributes.put(USER_ID_ATTRIBUTE, String.valueOf(userId));
+                attributes.put(AUTHORITIES_ATTRIBUTE, new ArrayList<>(authorities));
+            } else {
+                // 授权由原记录复制而来时，清除不再对应的版本
+                attributes.remove(AUTH_VERSION_ATTRIBUTE);
+                attributes.remove(USER_ID_ATTRIBUTE);
+                attributes.remove(AUTHORITIES_ATTRIBUTE);
+            }
+        });
+    }
+
+    /**
+     * 刷新令牌时复用授权记录中的权限
+     *
+     * @param authorization 刷新令牌所属的授权
+     * @return 授权版本未变化时返回由记录中的权限构建的认证信息，否则返回null
+     */
+    public Authentication restore(OAuth2Authorization authorization) {
+        Long version = toLong(authorization.getAttribute(AUTH_VERSION_ATTRIBUTE));
+        Long userId = toLong(authorization.getAttribute(USER_ID_ATTRIBUTE));
+        Object authorities = authorization.getAttribute(AUTHORITIES_ATTRIBUTE);
+        if (version == null || userId == null || !(authorities instanceof Collection)) {
+            return null;
+        }
+        Stamp stamp = new Stamp(userId, version);
+        Long currentVersion = sysUserMapper.selectAuthVersion(stamp.getUserId());
+        if (currentVersion == null || currentVersion != stamp.getVersion()) {
+            return null;
+        }
+
+        List<String> authorityCodes = new ArrayList<>();
+        for (Object authority : (Collection<?>) authorities) {
+            authorityCodes.add(String.valueOf(authority));
+        }
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                authorization.getPrincipalName(), null, AuthoritySet.of(authorityCodes));
+        authentication.setDetails(stamp);
+        return authentication;
+    }
+
+    private static Long toLong(Object value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(String.valueOf(value));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 用户ID与授权版本
+     */
+    public static final class Stamp {
+        private final long userId;
+        private final long version;
+
+        private Stamp(long userId, long version) {
+            this.userId = userId;
+            this.version = version;
+        }
+
+        public long getUserId() {
+            return userId;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.webapp.security.sso.oauth2.service;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Key;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 已解析的JWK密钥快照（不可变）
+ * 包含全部有效密钥、当前签名密钥，预先序列化的公开JWKS及其ETag，以及按kid索引的公钥和验签器
+ */
+public final class JwkKeyRing {
+
+    private final JWKSet jwkSet;
+    private final JWKSet signingSet;
+    private final JWK signingKey;
+    private final String publicJson;
+    private final String etag;
+    private final Map<String, Key> publicKeys = new HashMap<>();
+    private final Map<String, JWSVerifier> verifiers = new HashMap<>();
+
+    JwkKeyRing(List<JWK> keys, JWK signingKey) {
+        this.jwkSet = new JWKSet(keys);
+        for (JWK key : keys) {
+            try {
+                if (key instanceof RSAKey) {
+                    RSAKey rsaKey = (RSAKey) key;
+                    publicKeys.put(key.getKeyID(), rsaKey.toPublicKey());
+                    verifiers.put(key.getKeyID(), new RSASSAVerifier(rsaKey));
+                } else if (key instanceof ECKey) {
+                    ECKey ecKey = (ECKey) key;
+                    publicKeys.put(key.getKeyID(), ecKey.toPublicKey());
+                    verifiers.put(key.getKeyID(), new ECDSAVerifier(ecKey));
+                }
+            } catch (JOSEException e) {
+                throw new IllegalStateException("Invalid JWK " + key.getKeyID(), e);
+            }
+        }
+        this.signingKey = signingKey;
+        this.signingSet = new JWKSet(signingKey);
+        this.publicJson = jwkSet.toPublicJWKSet().toString();
+        this.etag = "\"" + digest(publicJson) + "\"";
+    }
+
+    /**
+     * 全部有效密钥（含私钥），包括已发布但尚未用于签名的下一把密钥
+     */
+    public JWKSet getJwkSet() {
+        return jwkSet;
+    }
+
+    /**
+     * 只包含当前签名密钥的集合
+     */
+    public JWKSet getSigningSet() {
+        return signingSet;
+    }
+
+    public JWK getSigningKey() {
+        return signingKey;
+    }
+
+    /**
+     * 公开JWKS的JSON
+     */
+    public String getPublicJson() {
+        return publicJson;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * 按kid获取验签公钥，kid不存在时返回null
+     */
+    public Key getPublicKey(String keyId) {
+        return publicKeys.get(keyId);
+    }
+
+    /**
+     * 按kid获取预先构建的验签器，kid不存在时返回null
+     */
+    public JWSVerifier getVerifier(String keyId) {
+        return verifiers.get(keyId);
+    }
+
+    private static String digest(String json) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(json.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,27 +1,47 @@
 package com.webapp.security.sso.oauth2.service;
 
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
 import com.nimbusds.jose.jwk.RSAKey;
+import com.webapp.security.sso.config.JwkRotationProperties;
 import com.webapp.security.sso.oauth2.entity.OAuth2Jwk;
 import com.webapp.security.sso.oauth2.mapper.OAuth2JwkMapper;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
-import java.security.interfaces.RSAPrivateKey;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
 import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * JWK密钥服务
+ * 已解析的密钥以不可变快照缓存在内存中，定时从数据库刷新并在当前签名密钥到期前预先生成下一把密钥：
+ * 新密钥先发布到JWKS，发布满publishLead后才用于签名，旧密钥保留在JWKS中直到过期；
+ * 修改签名算法时按同样的方式切换，切换期间JWKS同时包含新旧两种算法的密钥
  */
 @Service
 @Lazy
@@ -31,8 +51,87 @@ public class JwkService {
     private static final Logger log = LoggerFactory.getLogger(JwkService.class);
     
     private final OAuth2JwkMapper jwkMapper;
+    private final JwkRotationProperties properties;
     private final ReentrantLock keyGenerationLock = new ReentrantLock();
     
+    private volatile JwkKeyRing keyRing;
+    
+    /**
+     * 已解析的密钥，按keyId复用，刷新快照时只解析新增的密钥
+     */
+    private volatile Map<String, JWK> parsedKeys = new HashMap<>();
+    
+    private volatile long lastUnknownKeyReload;
+    
+    /**
+     * 获取当前密钥快照，首次调用时从数据库加载
+     */
+    public JwkKeyRing getKeyRing() {
+        JwkKeyRing ring = keyRing;
+        if (ring == null) {
+            synchronized (this) {
+                ring = keyRing;
+                if (ring == null) {
+                    ring = rotate();
+                }
+            }
+        }
+        return ring;
+    }
+    
+    /**
+     * 定时刷新密钥快照，其他节点生成的密钥也在此时加载
+     */
+    @Scheduled(fixedDelayString = "${oauth2.jwk.refresh-interval:PT5M}")
+    public void refreshKeyRing() {
+        try {
+            rotate();
+        } catch (Exception e) {
+            log.error("Failed to refresh JWK key ring, keeping the current one", e);
+        }
+    }
+    
+    /**
+     * 遇到未知kid时重新加载密钥快照（如其他节点刚生成的密钥），两次加载至少间隔unknownKeyReloadInterval
+     *
+     * @return 重新加载后的快照，距上次加载过近时返回当前快照
+     */
+    public JwkKeyRing reloadForUnknownKey(String keyId) {
+        long now = System.nanoTime();
+        if (reloadedRecently(now)) {
+            return getKeyRing();
+        }
+        synchronized (this) {
+            if (reloadedRecently(now)) {
+                return getKeyRing();
+            }
+            lastUnknownKeyReload = now;
+            log.info("Unknown JWK keyId: {}, reloading key ring", keyId);
+            return buildKeyRing(getAllActiveJwks(), LocalDateTime.now());
+        }
+    }
+    
+    private boolean reloadedRecently(long now) {
+        long last = lastUnknownKeyReload;
+        return last != 0 && now - last < properties.getUnknownKeyReloadInterval().toNanos();
+    }
+    
+    /**
+     * 重新加载有效密钥，当前签名密钥临近过期且尚无下一把密钥时生成下一把
+     */
+    public synchronized JwkKeyRing rotate() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OAuth2Jwk> activeJwks = getAllActiveJwks();
+        if (activeJwks.isEmpty()) {
+            generateNewJwkWithLock();
+            activeJwks = getAllActiveJwks();
+        } else if (isNextKeyDue(activeJwks, now)) {
+            generateNewJwk();
+            activeJwks = getAllActiveJwks();
+        }
+        return buildKeyRing(activeJwks, now);
+    }
+    
     /**
      * 获取当前有效的JWK，如果不存在或过期则生成新的
      */
@@ -90,28 +189,25 @@ public class JwkService {
                 log.info("Deactivated {} expired JWKs", deactivatedCount);
             }
             
-            // 生成RSA密钥对
-            KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
-            keyPairGenerator.initialize(2048);
-            KeyPair keyPair = keyPairGenerator.generateKeyPair();
-            
-            RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
-            RSAPrivateKey privateKey = (RSAPrivateKey) keyPair.getPrivate();
+            // 按配置的签名算法生成密钥对
+            String algorithm = properties.getAlgorithm();
+            KeyPair keyPair = generateKeyPair(algorithm);
             
             // 创建JWK实体
             OAuth2Jwk jwk = new OAuth2Jwk();
             jwk.setKeyId(UUID.randomUUID().toString());
-            jwk.setKeyType("RSA");
-            jwk.setAlgorithm("RS256");
-            jwk.setPublicKey(Base64.getEncoder().encodeToString(publicKey.getEncoded()));
-            jwk.setPrivateKey(Base64.getEncoder().encodeToString(privateKey.getEncoded()));
+            jwk.setKeyType(keyPair.getPublic().getAlgorithm());
+            jwk.setAlgorithm(algorithm);
+            jwk.setPublicKey(Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()));
+            jwk.setPrivateKey(Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded()));
             jwk.setCreatedTime(LocalDateTime.now());
-            jwk.setExpiresAt(LocalDateTime.now().plusDays(30)); // 30天过期
+            jwk.setExpiresAt(LocalDateTime.now().plus(properties.getKeyLifetime()));
             jwk.setIsActive(true);
             
             // 保存到数据库
             jwkMapper.insert(jwk);
-            log.info("Generated new JWK with keyId: {}, expires at: {}", jwk.getKeyId(), jwk.getExpiresAt());
+            log.info("Generated new {} JWK with keyId: {}, expires at: {}", algorithm, jwk.getKeyId(),
+                    jwk.getExpiresAt());
             
             return jwk;
             
@@ -122,30 +218,119 @@ public class JwkService {
     }
     
     /**
-     * 将OAuth2Jwk转换为RSAKey
+     * 生成签名算法对应的密钥对：RS256使用RSA-2048，ES256使用EC P-256
      */
-    public RSAKey toRSAKey(OAuth2Jwk jwk) {
+    private KeyPair generateKeyPair(String algorithm) throws GeneralSecurityException {
+        if (JWSAlgorithm.RS256.getName().equals(algorithm)) {
+            KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+            keyPairGenerator.initialize(2048);
+            return keyPairGenerator.generateKeyPair();
+        }
+        if (JWSAlgorithm.ES256.getName().equals(algorithm)) {
+            KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("EC");
+            keyPairGenerator.initialize(new ECGenParameterSpec("secp256r1"));
+            return keyPairGenerator.generateKeyPair();
+        }
+        throw new IllegalArgumentException("不支持的JWK签名算法: " + algorithm);
+    }
+    
+    /**
+     * 构建密钥快照，密钥集合和签名密钥都未变化时保留原快照（ETag不变）
+     */
+    private JwkKeyRing buildKeyRing(List<OAuth2Jwk> activeJwks, LocalDateTime now) {
+        OAuth2Jwk signing = selectSigningJwk(activeJwks, now);
+        
+        Map<String, JWK> previous = parsedKeys;
+        Map<String, JWK> parsed = new HashMap<>();
+        List<JWK> keys = new ArrayList<>();
+        for (OAuth2Jwk jwk : activeJwks) {
+            JWK key = previous.get(jwk.getKeyId());
+            if (key == null) {
+                key = toJWK(jwk);
+            }
+            parsed.put(jwk.getKeyId(), key);
+            keys.add(key);
+        }
+        
+        JwkKeyRing current = keyRing;
+        if (current != null && parsed.keySet().equals(previous.keySet())
+                && current.getSigningKey().getKeyID().equals(signing.getKeyId())) {
+            return current;
+        }
+        JwkKeyRing ring = new JwkKeyRing(keys, parsed.get(signing.getKeyId()));
+        parsedKeys = parsed;
+        keyRing = ring;
+        log.info("Loaded JWK key ring with {} keys, signing with keyId: {}", keys.size(), signing.getKeyId());
+        return ring;
+    }
+    
+    /**
+     * 签名密钥：发布已满publishLead的密钥中最新的一把；都不满足时（如首次启动）使用最早发布的一把
+     */
+    private OAuth2Jwk selectSigningJwk(List<OAuth2Jwk> activeJwks, LocalDateTime now) {
+        LocalDateTime publishedBefore = now.minus(properties.getPublishLead());
+        return activeJwks.stream()
+                .filter(jwk -> !jwk.getCreatedTime().isAfter(publishedBefore))
+                .max(Comparator.comparing(OAuth2Jwk::getCreatedTime))
+                .orElseGet(() -> activeJwks.stream()
+                        .min(Comparator.comparing(OAuth2Jwk::getCreatedTime))
+                        .orElseThrow(IllegalStateException::new));
+    }
+    
+    /**
+     * 签名密钥将在rotateBefore内过期，或其算法与配置的算法不同（切换算法），
+     * 且还没有比它更新的、配置算法的密钥时，需要预先生成下一把
+     */
+    private boolean isNextKeyDue(List<OAuth2Jwk> activeJwks, LocalDateTime now) {
+        OAuth2Jwk signing = selectSigningJwk(activeJwks, now);
+        String algorithm = properties.getAlgorithm();
+        boolean algorithmChanged = !algorithm.equals(signing.getAlgorithm());
+        if (!algorithmChanged && signing.getExpiresAt().isAfter(now.plus(properties.getRotateBefore()))) {
+            return false;
+        }
+        boolean nextKeyMissing = activeJwks.stream()
+                .noneMatch(jwk -> jwk.getCreatedTime().isAfter(signing.getCreatedTime())
+                        && algorithm.equals(jwk.getAlgorithm()));
+        if (nextKeyMissing) {
+            log.info("Signing JWK {} ({}) expires at {}, pre-publishing the next {} key", signing.getKeyId(),
+                    signing.getAlgorithm(), signing.getExpiresAt(), algorithm);
+        }
+        return nextKeyMissing;
+    }
+    
+    /**
+     * 将OAuth2Jwk转换为JWK，按key_type还原RSAKey或ECKey
+     */
+    public JWK toJWK(OAuth2Jwk jwk) {
         try {
             byte[] publicKeyBytes = Base64.getDecoder().decode(jwk.getPublicKey());
             byte[] privateKeyBytes = Base64.getDecoder().decode(jwk.getPrivateKey());
             
-            java.security.KeyFactory keyFactory = java.security.KeyFactory.getInstance("RSA");
+            KeyFactory keyFactory = KeyFactory.getInstance(jwk.getKeyType());
+            PublicKey publicKey = keyFactory.generatePublic(new X509EncodedKeySpec(publicKeyBytes));
+            PrivateKey privateKey = keyFactory.generatePrivate(new PKCS8EncodedKeySpec(privateKeyBytes));
+            JWSAlgorithm algorithm = JWSAlgorithm.parse(jwk.getAlgorithm());
             
-            RSAPublicKey publicKey = (RSAPublicKey) keyFactory.generatePublic(
-                    new java.security.spec.X509EncodedKeySpec(publicKeyBytes));
-            RSAPrivateKey privateKey = (RSAPrivateKey) keyFactory.generatePrivate(
-                    new java.security.spec.PKCS8EncodedKeySpec(privateKeyBytes));
-            
-            return new RSAKey.Builder(publicKey)
-                    .privateKey(privateKey)
-                    .keyID(jwk.getKeyId())
-                    .algorithm(com.nimbusds.jose.JWSAlgorithm.RS256)
-                    .build();
+            if (publicKey instanceof RSAPublicKey) {
+                return new RSAKey.Builder((RSAPublicKey) publicKey)
+                        .privateKey(privateKey)
+                        .keyID(jwk.getKeyId())
+                        .algorithm(algorithm)
+                        .build();
+            }
+            if (publicKey instanceof ECPublicKey) {
+                ECPublicKey ecPublicKey = (ECPublicKey) publicKey;
+                return new ECKey.Builder(Curve.forECParameterSpec(ecPublicKey.getParams()), ecPublicKey)
+                        .privateKey(privateKey)
+                        .keyID(jwk.getKeyId())
+                        .algorithm(algorithm)
+                        .build();
+            }
+            throw new IllegalArgumentException("不支持的JWK密钥类型: " + jwk.getKeyType());
                     
         } catch (Exception e) {
-            log.error("Failed to convert OAuth2Jwk to RSAKey", e);
+            log.error("Failed to convert OAuth2Jwk to JWK", e);
             throw new RuntimeException("转换JWK失败", e);
         }
     }
 }
-
@@ -0,0 +1,100 @@
+package com.webapp.security.sso.oauth2.service;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.factories.DefaultJWSVerifierFactory;
+import com.nimbusds.jose.jca.JCAContext;
+import com.nimbusds.jose.proc.JWSKeySelector;
+import com.nimbusds.jose.proc.JWSVerifierFactory;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.security.Key;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 进程内JWT解码器
+ * 直接使用JwkService的密钥快照验签，按kid查找公钥并复用快照中预先构建的验签器，不再经HTTP获取本服务的JWKS；
+ * 遇到未知kid时按间隔重新加载密钥快照。声明转换和校验沿用NimbusJwtDecoder的默认实现。
+ */
+public class LocalJwtDecoder implements JwtDecoder {
+
+    private final JwkService jwkService;
+    private final NimbusJwtDecoder delegate;
+
+    public LocalJwtDecoder(JwkService jwkService) {
+        this.jwkService = jwkService;
+        DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWSKeySelector(new KeyRingKeySelector());
+        jwtProcessor.setJWSVerifierFactory(new KeyRingVerifierFactory());
+        // 声明由Spring的OAuth2TokenValidator校验
+        jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+        this.delegate = new NimbusJwtDecoder(jwtProcessor);
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        return delegate.decode(token);
+    }
+
+    public void setJwtValidator(OAuth2TokenValidator<Jwt> jwtValidator) {
+        delegate.setJwtValidator(jwtValidator);
+    }
+
+    /**
+     * 没有kid的令牌按当前签名密钥验签
+     */
+    private static String keyIdOf(JWSHeader header, JwkKeyRing keyRing) {
+        return header.getKeyID() != null ? header.getKeyID() : keyRing.getSigningKey().getKeyID();
+    }
+
+    private class KeyRingKeySelector implements JWSKeySelector<SecurityContext> {
+
+        @Override
+        public List<? extends Key> selectJWSKeys(JWSHeader header, SecurityContext context) {
+            JwkKeyRing keyRing = jwkService.getKeyRing();
+            String keyId = keyIdOf(header, keyRing);
+            Key key = keyRing.getPublicKey(keyId);
+            if (key == null) {
+                key = jwkService.reloadForUnknownKey(keyId).getPublicKey(keyId);
+            }
+            return key != null ? Collections.singletonList(key) : Collections.emptyList();
+        }
+    }
+
+    private class KeyRingVerifierFactory implements JWSVerifierFactory {
+
+        private final JCAContext jcaContext = new JCAContext();
+
+        @Override
+        public JWSVerifier createJWSVerifier(JWSHeader header, Key key) throws JOSEException {
+            JwkKeyRing keyRing = jwkService.getKeyRing();
+            JWSVerifier verifier = keyRing.getVerifier(keyIdOf(header, keyRing));
+            if (verifier == null || !verifier.supportedJWSAlgorithms().contains(header.getAlgorithm())) {
+                throw new JOSEException("No verifier for JWS algorithm " + header.getAlgorithm()
+                        + " and key " + header.getKeyID());
+            }
+            return verifier;
+        }
+
+        @Override
+        public Set<JWSAlgorithm> supportedJWSAlgorithms() {
+            return DefaultJWSVerifierFactory.SUPPORTED_ALGORITHMS;
+        }
+
+        @Override
+        public JCAContext getJCAContext() {
+            return jcaContext;
+        }
+    }
+}
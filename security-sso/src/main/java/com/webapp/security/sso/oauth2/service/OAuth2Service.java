@@ -17,6 +17,8 @@ import org.springframework.security.oauth2.server.authorization.token.OAuth2Toke
 import org.springframework.security.oauth2.server.authorization.token.OAuth2TokenGenerator;
 import org.springframework.stereotype.Component;
 
+import java.util.UUID;
+
 /**
  * OAuth2工具类
  * 提供OAuth2相关的公共方法
@@ -27,14 +29,17 @@ public class OAuth2Service {
     private final RegisteredClientRepository registeredClientRepository;
     private final OAuth2TokenGenerator<?> tokenGenerator;
     private final AuthorizationServerSettings authorizationServerSettings;
+    private final AuthorizationVersionService authorizationVersionService;
 
     public OAuth2Service(
             RegisteredClientRepository registeredClientRepository,
             OAuth2TokenGenerator<?> tokenGenerator,
-            AuthorizationServerSettings authorizationServerSettings) {
+            AuthorizationServerSettings authorizationServerSettings,
+            AuthorizationVersionService authorizationVersionService) {
         this.registeredClientRepository = registeredClientRepository;
         this.tokenGenerator = tokenGenerator;
         this.authorizationServerSettings = authorizationServerSettings;
+        this.authorizationVersionService = authorizationVersionService;
     }
 
     /**
@@ -104,8 +109,9 @@ public class OAuth2Service {
                 jwt.getExpiresAt(),
                 registeredClient.getScopes());
 
-        // 将令牌添加到授权构建器
+        // 将令牌添加到授权构建器，并记录权限对应的授权版本
         authorizationBuilder.accessToken(accessToken);
+        authorizationVersionService.record(authorizationBuilder, jwt);
 
         return accessToken;
     }
@@ -133,7 +139,26 @@ public class OAuth2Service {
                 .authorizedScopes(registeredClient.getScopes())
                 .build();
 
-        // 使用TokenGenerator生成令牌
-        return (OAuth2RefreshToken) tokenGenerator.generate(tokenContext);
+        // 使用TokenGenerator生成令牌，并添加到授权构建器（刷新时按刷新令牌查找授权）
+        OAuth2RefreshToken refreshToken = (OAuth2RefreshToken) tokenGenerator.generate(tokenContext);
+        if (refreshToken != null) {
+            authorizationBuilder.refreshToken(refreshToken);
+        }
+        return refreshToken;
+    }
+
+    /**
+     * 刷新令牌时基于原授权创建新的授权记录
+     * 只复制客户端、主体、授权类型、授权范围和属性；授权码、OIDC令牌只属于原授权，
+     * 复制到新记录会与原记录的授权码摘要唯一键冲突
+     */
+    public static OAuth2Authorization.Builder refreshedAuthorization(OAuth2Authorization authorization,
+            RegisteredClient registeredClient) {
+        return OAuth2Authorization.withRegisteredClient(registeredClient)
+                .id("refresh-" + UUID.randomUUID())
+                .principalName(authorization.getPrincipalName())
+                .authorizationGrantType(authorization.getAuthorizationGrantType())
+                .authorizedScopes(authorization.getAuthorizedScopes())
+                .attributes(attributes -> attributes.putAll(authorization.getAttributes()));
     }
 }
\ No newline at end of file
@@ -0,0 +1,45 @@
+package com.webapp.security.sso.oauth2.service;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 随JwkService密钥快照轮换的JWKSource
+ * 未指定kid的签名密钥选择（JwtEncoder）只返回当前签名密钥，其余选择（JWKS端点、按kid查找）在全部有效密钥中匹配
+ */
+public class RotatingJwkSource implements JWKSource<SecurityContext> {
+
+    private final JwkService jwkService;
+
+    public RotatingJwkSource(JwkService jwkService) {
+        this.jwkService = jwkService;
+    }
+
+    @Override
+    public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) {
+        JwkKeyRing keyRing = jwkService.getKeyRing();
+        if (isSigningKeySelection(jwkSelector.getMatcher())) {
+            List<JWK> signingKeys = jwkSelector.select(keyRing.getSigningSet());
+            if (!signingKeys.isEmpty()) {
+                return signingKeys;
+            }
+            // 切换签名算法时快照可能在确定JWS算法之后更新，此时取该算法最新的有效密钥
+            List<JWK> keys = jwkSelector.select(keyRing.getJwkSet());
+            return keys.isEmpty() ? keys : keys.subList(0, 1);
+        }
+        return jwkSelector.select(keyRing.getJwkSet());
+    }
+
+    private static boolean isSigningKeySelection(JWKMatcher matcher) {
+        Set<String> keyIds = matcher.getKeyIDs();
+        Set<KeyUse> keyUses = matcher.getKeyUses();
+        return (keyIds == null || keyIds.isEmpty()) && keyUses != null && keyUses.contains(KeyUse.SIGNATURE);
+    }
+}
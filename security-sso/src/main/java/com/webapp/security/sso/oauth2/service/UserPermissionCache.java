@@ -0,0 +1,207 @@
+package com.webapp.security.sso.oauth2.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.webapp.security.core.authority.AuthoritySet;
+import com.webapp.security.core.entity.SysUser;
+import com.webapp.security.core.event.UserPermissionChangedEvent;
+import com.webapp.security.core.mapper.SysUserMapper;
+import com.webapp.security.sso.config.UserPermissionCacheProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 用户权限缓存
+ * 按用户名缓存用户信息，权限由用户权限索引按用户的角色合并得出，登录、刷新令牌时不再查询数据库。
+ * 每次失效递增失效版本，加载期间版本发生变化的结果只返回给本次调用、不写入缓存，
+ * 避免并发失效时把旧数据写回缓存。用户变更时通过Redis发布订阅广播，各节点（包括发出广播的节点）收到后清除条目、重新加载用户的角色；
+ * 角色、权限变更只重算索引中的角色权限，无需清除用户条目。
+ */
+@Slf4j
+@Component
+public class UserPermissionCache implements MessageListener {
+
+    /**
+     * 失效消息中用户ID的分隔符
+     */
+    private static final String SEPARATOR = ",";
+
+    private final UserPermissionCacheProperties properties;
+    private final SysUserMapper sysUserMapper;
+    private final UserPermissionIndex permissionIndex;
+    private final StringRedisTemplate redisTemplate;
+
+    /**
+     * 用户名 -> 用户信息
+     */
+    private final Cache<String, LoadedUser> cache;
+
+    /**
+     * 失效版本，每次清除时递增
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    public UserPermissionCache(UserPermissionCacheProperties properties,
+            SysUserMapper sysUserMapper,
+            UserPermissionIndex permissionIndex,
+            StringRedisTemplate redisTemplate,
+            RedisMessageListenerContainer listenerContainer) {
+        this.properties = properties;
+        this.sysUserMapper = sysUserMapper;
+        this.permissionIndex = permissionIndex;
+        this.redisTemplate = redisTemplate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .build();
+
+        listenerContainer.addMessageListener(this, new ChannelTopic(properties.getEvictChannel()));
+    }
+
+    /**
+     * 获取用户信息与权限，同一用户的并发未命中只查询一次数据库
+     *
+     * @param username 用户名
+     * @return 用户不存在时返回null
+     */
+    public CachedUser get(String username) {
+        LoadedUser loaded = properties.isEnabled() ? cache.get(username, this::load) : load(username);
+        if (loaded == null) {
+            return null;
+        }
+        if (!loaded.stable) {
+            // 加载期间发生过失效，结果可能已过时，不保留在缓存中
+            cache.asMap().remove(username, loaded);
+        }
+        SysUser user = loaded.user;
+        // 授权版本先于权限读取；加载期间发生过失效时用户信息可能已过时，不提供版本
+        Long authVersion = loaded.stable ? permissionIndex.getAuthVersion(user.getUserId()) : null;
+        // 与原权限查询一致，停用用户没有任何权限
+        AuthoritySet authorities = Integer.valueOf(1).equals(user.getStatus())
+                ? permissionIndex.getPermissions(user.getUserId())
+                : AuthoritySet.empty();
+        return new CachedUser(user, authorities, authVersion);
+    }
+
+    /**
+     * 广播清除指定用户的缓存，本节点同样在收到广播时清除，避免同一变更清除和重新加载两次
+     * 广播失败时只清除本节点
+     *
+     * @param userIds 用户ID
+     */
+    public void evict(Collection<Long> userIds) {
+        String body = userIds.stream().map(String::valueOf).collect(Collectors.joining(SEPARATOR));
+        try {
+            redisTemplate.convertAndSend(properties.getEvictChannel(), body);
+        } catch (Exception e) {
+            log.warn("Failed to broadcast user permission cache eviction, userIds: {}", body, e);
+            evictLocal(userIds);
+        }
+    }
+
+    /**
+     * 本进程内用户被修改时清除对应的缓存（管理端的变更通过失效广播到达）
+     * 在事务提交后再清除，避免提交前有并发请求把旧数据重新加载进缓存
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserPermissionChanged(UserPermissionChangedEvent event) {
+        evict(event.getUserIds());
+    }
+
+    /**
+     * 接收失效广播（包括本节点和管理端发出的），清除本地条目
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        Set<Long> userIds = new HashSet<>();
+        for (String userId : body.split(SEPARATOR)) {
+            try {
+                userIds.add(Long.valueOf(userId.trim()));
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring malformed user permission cache eviction: {}", body);
+                return;
+            }
+        }
+        evictLocal(userIds);
+    }
+
+    private void evictLocal(Collection<Long> userIds) {
+        // 先递增版本，使正在加载的结果不再写入缓存
+        version.incrementAndGet();
+        Set<Long> evicted = new HashSet<>(userIds);
+        cache.asMap().values().removeIf(loaded -> evicted.contains(loaded.user.getUserId()));
+        log.debug("Evicted user permission cache, userIds: {}", userIds);
+        try {
+            permissionIndex.reloadUsers(evicted);
+        } catch (Exception e) {
+            // 定时重建索引时加载变更
+            log.warn("Failed to reload user roles, userIds: {}", userIds, e);
+        }
+    }
+
+    private LoadedUser load(String username) {
+        long loadVersion = version.get();
+        SysUser user = sysUserMapper.selectByUsername(username);
+        if (user == null) {
+            return null;
+        }
+        return new LoadedUser(user, version.get() == loadVersion);
+    }
+
+    /**
+     * 用户信息与有效权限，调用方不应修改其中的用户对象
+     */
+    public static final class CachedUser {
+        private final SysUser user;
+        private final AuthoritySet authorities;
+        private final Long authVersion;
+
+        private CachedUser(SysUser user, AuthoritySet authorities, Long authVersion) {
+            this.user = user;
+            this.authorities = authorities;
+            this.authVersion = authVersion;
+        }
+
+        public SysUser getUser() {
+            return user;
+        }
+
+        public AuthoritySet getAuthorities() {
+            return authorities;
+        }
+
+        /**
+         * 权限对应的授权版本，无法确定时返回null
+         */
+        public Long getAuthVersion() {
+            return authVersion;
+        }
+    }
+
+    private static final class LoadedUser {
+        private final SysUser user;
+        /**
+         * 加载期间未发生失效
+         */
+        private final boolean stable;
+
+        private LoadedUser(SysUser user, boolean stable) {
+            this.user = user;
+            this.stable = stable;
+        }
+    }
+}
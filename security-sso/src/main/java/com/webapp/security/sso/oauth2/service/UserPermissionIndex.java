@@ -0,0 +1,309 @@
+package com.webapp.security.sso.oauth2.service;
+
+import com.google.common.collect.Lists;
+import com.webapp.security.core.authority.AuthoritySet;
+import com.webapp.security.core.entity.SysPermission;
+import com.webapp.security.core.entity.SysRole;
+import com.webapp.security.core.entity.SysRolePermission;
+import com.webapp.security.core.entity.SysUser;
+import com.webapp.security.core.entity.SysUserRole;
+import com.webapp.security.core.event.RolePermissionChangedEvent;
+import com.webapp.security.core.mapper.SysPermissionMapper;
+import com.webapp.security.core.mapper.SysRoleMapper;
+import com.webapp.security.core.mapper.SysRolePermissionMapper;
+import com.webapp.security.core.mapper.SysUserMapper;
+import com.webapp.security.core.mapper.SysUserRoleMapper;
+import com.webapp.security.sso.config.UserPermissionIndexProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 用户权限索引
+ * 预先计算每个启用角色的权限集合（按驻留编号的位图），并保存用户 -> 角色ID，
+ * 用户的有效权限为其角色权限位图的并集，不再按用户执行用户、角色、权限的多表关联查询。
+ * 启动时整体加载并定时重建兜底；角色权限变更时只重算该角色（一次查询），持有该角色的用户无需逐个失效，
+ * 用户角色分配变更时只重新加载该用户的角色ID。
+ * 同时保存用户的授权版本，版本总是先于角色、权限读取，并在其之后发布，读到的版本不会比权限更新。
+ */
+@Slf4j
+@Component
+public class UserPermissionIndex implements MessageListener {
+
+    private static final String SEPARATOR = ",";
+
+    private static final long[] NO_ROLES = new long[0];
+
+    private final SysRoleMapper roleMapper;
+    private final SysPermissionMapper permissionMapper;
+    private final SysRolePermissionMapper rolePermissionMapper;
+    private final SysUserRoleMapper userRoleMapper;
+    private final SysUserMapper userMapper;
+
+    /**
+     * 角色ID -> 权限集合，停用、删除或没有启用权限的角色不在其中
+     */
+    private volatile Map<Long, AuthoritySet> rolePermissions;
+
+    /**
+     * 用户ID -> 角色ID
+     */
+    private volatile Map<Long, long[]> userRoles;
+
+    /**
+     * 用户ID -> 授权版本
+     */
+    private volatile Map<Long, Long> userVersions;
+
+    public UserPermissionIndex(SysRoleMapper roleMapper,
+            SysPermissionMapper permissionMapper,
+            SysRolePermissionMapper rolePermissionMapper,
+            SysUserRoleMapper userRoleMapper,
+            SysUserMapper userMapper,
+            UserPermissionIndexProperties properties,
+            RedisMessageListenerContainer listenerContainer) {
+        this.roleMapper = roleMapper;
+        this.permissionMapper = permissionMapper;
+        this.rolePermissionMapper = rolePermissionMapper;
+        this.userRoleMapper = userRoleMapper;
+        this.userMapper = userMapper;
+        listenerContainer.addMessageListener(this, new ChannelTopic(properties.getReloadChannel()));
+    }
+
+    /**
+     * 用户的有效权限
+     *
+     * @param userId 用户ID
+     * @return 各启用角色权限集合的并集
+     */
+    public AuthoritySet getPermissions(Long userId) {
+        if (rolePermissions == null) {
+            loadIfAbsent();
+        }
+        Map<Long, AuthoritySet> roles = rolePermissions;
+        long[] roleIds = userRoles.getOrDefault(userId, NO_ROLES);
+        if (roleIds.length == 1) {
+            AuthoritySet permissions = roles.get(roleIds[0]);
+            return permissions != null ? permissions : AuthoritySet.empty();
+        }
+        AuthoritySet.Builder builder = new AuthoritySet.Builder();
+        for (long roleId : roleIds) {
+            AuthoritySet permissions = roles.get(roleId);
+            if (permissions != null) {
+                builder.addAll(permissions);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * 用户的授权版本，须在获取权限之前读取
+     *
+     * @param userId 用户ID
+     * @return 索引尚未加载或用户不存在时返回null
+     */
+    public Long getAuthVersion(Long userId) {
+        Map<Long, Long> versions = userVersions;
+        return versions != null ? versions.get(userId) : null;
+    }
+
+    /**
+     * 从数据库整体重建索引
+     */
+    public synchronized void reload() {
+        long start = System.nanoTime();
+
+        Map<Long, Long> reloadedVersions = new ConcurrentHashMap<>();
+        for (SysUser user : userMapper.selectAllAuthVersions()) {
+            reloadedVersions.put(user.getUserId(), user.getAuthVersion());
+        }
+
+        Map<Long, String> permissionCodes = new HashMap<>();
+        for (SysPermission permission : permissionMapper.selectAllEnabled()) {
+            permissionCodes.put(permission.getPermissionId(), permission.getPermCode());
+        }
+        Map<Long, List<String>> roleCodes = new HashMap<>();
+        for (SysRole role : roleMapper.selectList(null)) {
+            if (Integer.valueOf(1).equals(role.getStatus())) {
+                roleCodes.put(role.getRoleId(), new ArrayList<>());
+            }
+        }
+        for (SysRolePermission rolePermission : rolePermissionMapper.selectList(null)) {
+            List<String> codes = roleCodes.get(rolePermission.getRoleId());
+            String code = permissionCodes.get(rolePermission.getPermissionId());
+            if (codes != null && code != null) {
+                codes.add(code);
+            }
+        }
+        Map<Long, AuthoritySet> reloadedRoles = new ConcurrentHashMap<>();
+        roleCodes.forEach((roleId, codes) -> {
+            if (!codes.isEmpty()) {
+                reloadedRoles.put(roleId, AuthoritySet.of(codes));
+            }
+        });
+
+        Map<Long, List<Long>> userRoleIds = new HashMap<>();
+        for (SysUserRole userRole : userRoleMapper.selectList(null)) {
+            userRoleIds.computeIfAbsent(userRole.getUserId(), id -> new ArrayList<>()).add(userRole.getRoleId());
+        }
+        Map<Long, long[]> reloadedUsers = new ConcurrentHashMap<>();
+        userRoleIds.forEach((userId, roleIds) -> reloadedUsers.put(userId, toArray(roleIds)));
+
+        userRoles = reloadedUsers;
+        rolePermissions = reloadedRoles;
+        userVersions = reloadedVersions;
+        log.info("Reloaded user permission index, {} roles and {} users in {} ms", reloadedRoles.size(),
+                reloadedUsers.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 重算角色的权限集合
+     */
+    public synchronized void reloadRoles(Collection<Long> roleIds) {
+        if (rolePermissions == null) {
+            reload();
+            return;
+        }
+        // 角色删除后数据库中已没有用户角色关联，按索引中的关联确定受影响的用户
+        List<Long> affectedUserIds = new ArrayList<>();
+        userRoles.forEach((userId, userRoleIds) -> {
+            for (long roleId : userRoleIds) {
+                if (roleIds.contains(roleId)) {
+                    affectedUserIds.add(userId);
+                    break;
+                }
+            }
+        });
+        Map<Long, Long> versions = selectAuthVersions(affectedUserIds);
+
+        for (Long roleId : roleIds) {
+            // 只返回启用角色的启用权限，角色停用、删除后结果为空
+            List<String> codes = roleMapper.selectRolePermissions(roleId);
+            if (codes.isEmpty()) {
+                rolePermissions.remove(roleId);
+            } else {
+                rolePermissions.put(roleId, AuthoritySet.of(codes));
+            }
+        }
+        putAuthVersions(affectedUserIds, versions);
+        log.debug("Reloaded role permissions, roleIds: {}, affected users: {}", roleIds, affectedUserIds.size());
+    }
+
+    /**
+     * 重新加载用户的角色ID
+     */
+    public synchronized void reloadUsers(Collection<Long> userIds) {
+        if (userRoles == null) {
+            reload();
+            return;
+        }
+        Map<Long, Long> versions = selectAuthVersions(userIds);
+        for (Long userId : userIds) {
+            List<Long> roleIds = userRoleMapper.selectRoleIdsByUserId(userId);
+            if (roleIds.isEmpty()) {
+                userRoles.remove(userId);
+            } else {
+                userRoles.put(userId, toArray(roleIds));
+            }
+        }
+        putAuthVersions(userIds, versions);
+        log.debug("Reloaded user roles, userIds: {}", userIds);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${oauth2.user-permission-index.refresh-interval:PT10M}",
+            initialDelayString = "${oauth2.user-permission-index.refresh-interval:PT10M}")
+    public void refresh() {
+        try {
+            reload();
+        } catch (Exception e) {
+            // 保留当前索引，首次使用或下次重建时再加载
+            log.warn("Failed to refresh user permission index", e);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRolePermissionChanged(RolePermissionChangedEvent event) {
+        reloadRoles(event.getRoleIds());
+    }
+
+    /**
+     * 接收管理端的角色权限变更广播
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        List<Long> roleIds = new ArrayList<>();
+        for (String roleId : body.split(SEPARATOR)) {
+            try {
+                roleIds.add(Long.valueOf(roleId.trim()));
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring malformed role permission reload: {}", body);
+                return;
+            }
+        }
+        try {
+            reloadRoles(roleIds);
+        } catch (Exception e) {
+            // 定时重建时加载变更
+            log.warn("Failed to reload role permissions, roleIds: {}", roleIds, e);
+        }
+    }
+
+    private synchronized void loadIfAbsent() {
+        if (rolePermissions == null) {
+            reload();
+        }
+    }
+
+    private Map<Long, Long> selectAuthVersions(Collection<Long> userIds) {
+        Map<Long, Long> versions = new HashMap<>();
+        for (List<Long> partition : Lists.partition(new ArrayList<>(userIds), 1000)) {
+            for (SysUser user : userMapper.selectAuthVersionsByUserIds(partition)) {
+                versions.put(user.getUserId(), user.getAuthVersion());
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * 发布用户的授权版本，已删除的用户移除版本
+     */
+    private void putAuthVersions(Collection<Long> userIds, Map<Long, Long> versions) {
+        for (Long userId : userIds) {
+            Long version = versions.get(userId);
+            if (version == null) {
+                userVersions.remove(userId);
+            } else {
+                userVersions.put(userId, version);
+            }
+        }
+    }
+
+    private static long[] toArray(List<Long> roleIds) {
+        long[] array = new long[roleIds.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = roleIds.get(i);
+        }
+        return array;
+    }
+}
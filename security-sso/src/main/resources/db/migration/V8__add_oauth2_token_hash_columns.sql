@@ -0,0 +1,54 @@
+-- 为 oauth2_authorization 增加令牌摘要列
+-- 令牌原文为TEXT类型无法建立索引，按令牌查询会全表扫描
+-- 摘要列保存令牌值的SHA-256十六进制摘要（定长64位），并建立唯一索引
+
+-- 安全地添加摘要列（不使用存储过程，避免DELIMITER问题）
+SET @columnExists = (
+    SELECT COUNT(*)
+    FROM information_schema.COLUMNS
+    WHERE TABLE_SCHEMA = DATABASE()
+    AND TABLE_NAME = 'oauth2_authorization'
+    AND COLUMN_NAME = 'access_token_hash'
+);
+
+SET @sql = IF(@columnExists = 0,
+    'ALTER TABLE oauth2_authorization
+        ADD COLUMN authorization_code_hash char(64) DEFAULT NULL COMMENT \'授权码SHA-256摘要\' AFTER authorization_code_value,
+        ADD COLUMN access_token_hash char(64) DEFAULT NULL COMMENT \'访问令牌SHA-256摘要\' AFTER access_token_value,
+        ADD COLUMN refresh_token_hash char(64) DEFAULT NULL COMMENT \'刷新令牌SHA-256摘要\' AFTER refresh_token_value',
+    'SELECT 1');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 回填历史数据的摘要（SHA2输出小写十六进制，与应用层摘要格式一致）
+UPDATE oauth2_authorization
+SET authorization_code_hash = SHA2(authorization_code_value, 256)
+WHERE authorization_code_value IS NOT NULL AND authorization_code_hash IS NULL;
+
+UPDATE oauth2_authorization
+SET access_token_hash = SHA2(access_token_value, 256)
+WHERE access_token_value IS NOT NULL AND access_token_hash IS NULL;
+
+UPDATE oauth2_authorization
+SET refresh_token_hash = SHA2(refresh_token_value, 256)
+WHERE refresh_token_value IS NOT NULL AND refresh_token_hash IS NULL;
+
+-- 摘要列唯一索引（NULL值不参与唯一性约束）
+SET @indexExists = (
+    SELECT COUNT(*)
+    FROM information_schema.STATISTICS
+    WHERE TABLE_SCHEMA = DATABASE()
+    AND TABLE_NAME = 'oauth2_authorization'
+    AND INDEX_NAME = 'uk_oauth2_authorization_access_token_hash'
+);
+
+SET @sql = IF(@indexExists = 0,
+    'ALTER TABLE oauth2_authorization
+        ADD UNIQUE KEY uk_oauth2_authorization_code_hash (authorization_code_hash),
+        ADD UNIQUE KEY uk_oauth2_authorization_access_token_hash (access_token_hash),
+        ADD UNIQUE KEY uk_oauth2_authorization_refresh_token_hash (refresh_token_hash)',
+    'SELECT 1');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
@@ -0,0 +1,18 @@
+-- 为过期授权记录清理任务增加复合过期时间索引
+-- 清理条件为访问令牌、刷新令牌、授权码均已过期（或不存在），按索引范围扫描并分批删除
+
+SET @indexExists = (
+    SELECT COUNT(*)
+    FROM information_schema.STATISTICS
+    WHERE TABLE_SCHEMA = DATABASE()
+    AND TABLE_NAME = 'oauth2_authorization'
+    AND INDEX_NAME = 'idx_oauth2_authorization_expires_at'
+);
+
+SET @sql = IF(@indexExists = 0,
+    'ALTER TABLE oauth2_authorization
+        ADD KEY idx_oauth2_authorization_expires_at (access_token_expires_at, refresh_token_expires_at, authorization_code_expires_at)',
+    'SELECT 1');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
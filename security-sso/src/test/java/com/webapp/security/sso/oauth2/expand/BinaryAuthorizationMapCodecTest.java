@@ -0,0 +1,323 @@
+package com.webapp.security.sso.oauth2.expand;
+
+import com.webapp.security.core.authority.InternedAuthority;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.client.InMemoryRegisteredClientRepository;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 二进制授权属性编解码器测试
+ */
+public class BinaryAuthorizationMapCodecTest {
+
+    private final JsonAuthorizationMapCodec jsonCodec = new JsonAuthorizationMapCodec();
+    private final BinaryAuthorizationMapCodec binaryCodec = new BinaryAuthorizationMapCodec(jsonCodec);
+
+    /**
+     * 测试基本类型及其集合、嵌套Map编码后按原类型还原
+     */
+    @Test
+    public void testRoundTripSimpleValues() {
+        Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("count", 3);
+        nested.put("tags", Arrays.asList("a", null, "c"));
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("string", "值-value");
+        data.put("empty", "");
+        data.put("long-string", repeat("x", 300));
+        data.put("true", true);
+        data.put("false", false);
+        data.put("int", Integer.MIN_VALUE);
+        data.put("long", Long.MAX_VALUE);
+        data.put("double", 1.5d);
+        data.put("instant", Instant.ofEpochSecond(1700000000L, 123456789));
+        data.put("null", null);
+        data.put("list", Arrays.asList(1, 2L, "three"));
+        data.put("set", new LinkedHashSet<>(Arrays.asList("read", "write")));
+        data.put("map", nested);
+
+        Map<String, Object> decoded = binaryCodec.decode(binaryCodec.encode(data));
+
+        assertEquals(data, decoded);
+        assertEquals(Integer.class, decoded.get("int").getClass());
+        assertEquals(Long.class, decoded.get("long").getClass());
+        assertTrue(decoded.get("set") instanceof Set);
+        assertEquals(Arrays.asList("read", "write"), Arrays.asList(((Set<?>) decoded.get("set")).toArray()));
+    }
+
+    /**
+     * 测试其他对象通过内嵌JSON编码并还原
+     */
+    @Test
+    public void testRoundTripEmbeddedJsonValues() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("authorities", Collections.singletonList(new SimpleGrantedAuthority("user:write")));
+        data.put("credentials", new UsernamePasswordAuthenticationToken("admin", "secret"));
+
+        Map<String, Object> decoded = binaryCodec.decode(binaryCodec.encode(data));
+
+        assertEquals(data.get("authorities"), decoded.get("authorities"));
+        UsernamePasswordAuthenticationToken restored = (UsernamePasswordAuthenticationToken) decoded.get("credentials");
+        assertEquals("admin", restored.getName());
+        assertEquals("secret", restored.getCredentials());
+        assertFalse(restored.isAuthenticated());
+    }
+
+    /**
+     * 测试用户名密码认证主体按字段编码并还原
+     */
+    @Test
+    public void testRoundTripPrincipal() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put(Principal.class.getName(), userPrincipal());
+        UsernamePasswordAuthenticationToken namePrincipal = new UsernamePasswordAuthenticationToken("client", null,
+                Collections.singletonList(new SimpleGrantedAuthority("SCOPE_read")));
+        data.put("name-principal", namePrincipal);
+
+        Map<String, Object> decoded = binaryCodec.decode(binaryCodec.encode(data));
+
+        UsernamePasswordAuthenticationToken expected = (UsernamePasswordAuthenticationToken) data
+                .get(Principal.class.getName());
+        UsernamePasswordAuthenticationToken restored = (UsernamePasswordAuthenticationToken) decoded
+                .get(Principal.class.getName());
+        assertEquals(expected, restored);
+        assertTrue(restored.isAuthenticated());
+        assertEquals(expected.getDetails(), restored.getDetails());
+        User user = (User) restored.getPrincipal();
+        assertNull(user.getPassword());
+        assertEquals(((User) expected.getPrincipal()).getAuthorities(), user.getAuthorities());
+        assertEquals(InternedAuthority.class, restored.getAuthorities().iterator().next().getClass());
+        assertEquals(namePrincipal, decoded.get("name-principal"));
+    }
+
+    /**
+     * 测试授权码模式的授权请求按字段编码并还原
+     */
+    @Test
+    public void testRoundTripAuthorizationRequest() {
+        OAuth2AuthorizationRequest request = authorizationRequest();
+
+        OAuth2AuthorizationRequest restored = (OAuth2AuthorizationRequest) binaryCodec
+                .decode(binaryCodec.encode(Collections.singletonMap(OAuth2AuthorizationRequest.class.getName(),
+                        request)))
+                .get(OAuth2AuthorizationRequest.class.getName());
+
+        assertEquals(request.getAuthorizationUri(), restored.getAuthorizationUri());
+        assertEquals(request.getGrantType(), restored.getGrantType());
+        assertEquals(request.getResponseType(), restored.getResponseType());
+        assertEquals(request.getClientId(), restored.getClientId());
+        assertEquals(request.getRedirectUri(), restored.getRedirectUri());
+        assertEquals(request.getScopes(), restored.getScopes());
+        assertEquals(request.getState(), restored.getState());
+        assertEquals(request.getAdditionalParameters(), restored.getAdditionalParameters());
+        assertEquals(request.getAuthorizationRequestUri(), restored.getAuthorizationRequestUri());
+        assertEquals(request.getAttributes(), restored.getAttributes());
+    }
+
+    /**
+     * 测试典型授权记录的属性和令牌元数据，二进制编码（含Base64）比JSON编码小
+     */
+    @Test
+    public void testEncodedSizeSmallerThanJson() {
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put(Principal.class.getName(), userPrincipal());
+        attributes.put(OAuth2AuthorizationRequest.class.getName(), authorizationRequest());
+        attributes.put("app_id", "app-1");
+
+        Instant now = Instant.ofEpochSecond(1700000000L);
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("sub", "admin");
+        claims.put("aud", Collections.singletonList("webapp"));
+        claims.put("nbf", now);
+        claims.put("scope", new LinkedHashSet<>(Arrays.asList("read", "write")));
+        claims.put("iss", "http://127.0.0.1:9000");
+        claims.put("exp", now.plusSeconds(3600));
+        claims.put("iat", now);
+        claims.put("user_id", 1L);
+        claims.put("authorities", Arrays.asList("user:read", "user:write", "role:read"));
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("metadata.token.invalidated", false);
+        metadata.put("metadata.token.claims", claims);
+
+        for (Map<String, Object> data : Arrays.asList(attributes, metadata)) {
+            String binary = binaryCodec.encode(data);
+            String json = jsonCodec.encode(data);
+            assertTrue(binary.length() < json.length(),
+                    "binary " + binary.length() + " should be smaller than json " + json.length());
+        }
+        String binaryAttributes = binaryCodec.encode(attributes);
+        String jsonAttributes = jsonCodec.encode(attributes);
+        assertTrue(binaryAttributes.length() * 2 < jsonAttributes.length(),
+                "binary " + binaryAttributes.length() + " should be less than half of json " + jsonAttributes.length());
+    }
+
+    /**
+     * 测试按内容识别格式：二进制数据由二进制编解码器处理，JSON及其他数据不处理
+     */
+    @Test
+    public void testSupportsOnlyBinaryData() {
+        String binary = binaryCodec.encode(Collections.singletonMap("k", "v"));
+        String json = jsonCodec.encode(Collections.singletonMap("k", "v"));
+
+        assertTrue(binaryCodec.supports(binary));
+        assertFalse(jsonCodec.supports(binary));
+        assertTrue(jsonCodec.supports(json));
+        assertFalse(binaryCodec.supports(json));
+        assertFalse(binaryCodec.supports(null));
+        assertFalse(binaryCodec.supports(""));
+        assertFalse(binaryCodec.supports("not base64!"));
+        assertFalse(binaryCodec.supports("AAAA"));
+        assertThrows(IllegalArgumentException.class, () -> binaryCodec.decode("AAAA"));
+    }
+
+    /**
+     * 测试转换器读取已有的JSON记录（原有存储格式）
+     */
+    @Test
+    public void testConverterReadsExistingJsonRows() {
+        RegisteredClient client = registeredClient();
+        OAuth2AuthorizationConverter converter = new OAuth2AuthorizationConverter(
+                new InMemoryRegisteredClientRepository(client));
+        converter.setCodecType(OAuth2AuthorizationConverter.CodecType.BINARY);
+
+        Instant now = Instant.now();
+        com.webapp.security.sso.oauth2.entity.OAuth2Authorization row =
+                new com.webapp.security.sso.oauth2.entity.OAuth2Authorization();
+        row.setId("authorization-1");
+        row.setRegisteredClientId(client.getId());
+        row.setPrincipalName("admin");
+        row.setAuthorizationGrantType(AuthorizationGrantType.PASSWORD.getValue());
+        row.setAuthorizedScopes("read");
+        row.setAttributes("{\"@class\":\"java.util.Collections$UnmodifiableMap\",\"user_id\":\"1\"}");
+        row.setAccessTokenValue("access-1");
+        row.setAccessTokenIssuedAt(now);
+        row.setAccessTokenExpiresAt(now.plus(Duration.ofHours(1)));
+        row.setAccessTokenType(OAuth2AccessToken.TokenType.BEARER.getValue());
+        row.setAccessTokenScopes("read");
+        row.setAccessTokenMetadata("{\"@class\":\"java.util.Collections$UnmodifiableMap\","
+                + "\"metadata.token.invalidated\":false,"
+                + "\"metadata.token.claims\":{\"@class\":\"java.util.Collections$UnmodifiableMap\","
+                + "\"sub\":\"admin\",\"scope\":[\"java.util.Collections$UnmodifiableSet\",[\"read\"]]}}");
+
+        OAuth2Authorization restored = converter.toObject(row);
+
+        assertEquals("1", restored.getAttribute("user_id"));
+        OAuth2Authorization.Token<OAuth2AccessToken> accessToken = restored.getAccessToken();
+        assertFalse(accessToken.isInvalidated());
+        Map<String, Object> claims = accessToken.getClaims();
+        assertEquals("admin", claims.get("sub"));
+        assertEquals(Collections.singleton("read"), claims.get("scope"));
+    }
+
+    /**
+     * 测试JSON与二进制记录共存：切换写入格式前后写入的记录都能被任一配置的节点读取
+     */
+    @Test
+    public void testJsonAndBinaryRowsCoexist() {
+        RegisteredClient client = registeredClient();
+        InMemoryRegisteredClientRepository repository = new InMemoryRegisteredClientRepository(client);
+        OAuth2AuthorizationConverter jsonConverter = new OAuth2AuthorizationConverter(repository);
+        OAuth2AuthorizationConverter binaryConverter = new OAuth2AuthorizationConverter(repository);
+        binaryConverter.setCodecType(OAuth2AuthorizationConverter.CodecType.BINARY);
+
+        Instant now = Instant.now();
+        OAuth2Authorization authorization = OAuth2Authorization.withRegisteredClient(client)
+                .id("authorization-1")
+                .principalName("admin")
+                .authorizationGrantType(AuthorizationGrantType.PASSWORD)
+                .authorizedScopes(Collections.singleton("read"))
+                .attribute("user_id", "1")
+                .accessToken(new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, "access-1", now,
+                        now.plus(Duration.ofHours(1)), Collections.singleton("read")))
+                .refreshToken(new OAuth2RefreshToken("refresh-1", now, now.plus(Duration.ofDays(1))))
+                .build();
+
+        com.webapp.security.sso.oauth2.entity.OAuth2Authorization jsonRow = jsonConverter.toEntity(authorization);
+        com.webapp.security.sso.oauth2.entity.OAuth2Authorization binaryRow = binaryConverter.toEntity(authorization);
+        assertTrue(jsonRow.getAttributes().startsWith("{"));
+        assertFalse(binaryRow.getAttributes().startsWith("{"));
+
+        for (OAuth2AuthorizationConverter reader : Arrays.asList(jsonConverter, binaryConverter)) {
+            for (com.webapp.security.sso.oauth2.entity.OAuth2Authorization row : Arrays.asList(jsonRow, binaryRow)) {
+                OAuth2Authorization restored = reader.toObject(row);
+                assertEquals("1", restored.getAttribute("user_id"));
+                assertEquals("access-1", restored.getAccessToken().getToken().getTokenValue());
+                assertEquals(Collections.singleton("read"), restored.getAccessToken().getToken().getScopes());
+                assertEquals(authorization.getAccessToken().getMetadata(), restored.getAccessToken().getMetadata());
+                assertEquals("refresh-1", restored.getRefreshToken().getToken().getTokenValue());
+            }
+        }
+    }
+
+    private static UsernamePasswordAuthenticationToken userPrincipal() {
+        List<GrantedAuthority> authorities = Arrays.asList(InternedAuthority.of("user:read"),
+                InternedAuthority.of("user:write"), InternedAuthority.of("role:read"));
+        User user = new User("admin", "", true, true, true, true, authorities);
+        user.eraseCredentials();
+        UsernamePasswordAuthenticationToken principal = new UsernamePasswordAuthenticationToken(user, null,
+                authorities);
+        principal.setDetails(new WebAuthenticationDetails("127.0.0.1", "session-1"));
+        return principal;
+    }
+
+    private static OAuth2AuthorizationRequest authorizationRequest() {
+        Map<String, Object> additionalParameters = new LinkedHashMap<>();
+        additionalParameters.put("code_challenge", "E9Melhoa2OwvFrEMTJguCHaoeK1t8URWbuGJSstw-cM");
+        additionalParameters.put("code_challenge_method", "S256");
+        return OAuth2AuthorizationRequest.authorizationCode()
+                .authorizationUri("http://127.0.0.1:9000/oauth2/authorize")
+                .clientId("webapp")
+                .redirectUri("http://127.0.0.1:8080/callback")
+                .scopes(new LinkedHashSet<>(Arrays.asList("read", "write")))
+                .state("state-1")
+                .additionalParameters(additionalParameters)
+                .build();
+    }
+
+    private static RegisteredClient registeredClient() {
+        return RegisteredClient.withId("client-1")
+                .clientId("webapp")
+                .clientSecret("{noop}secret")
+                .clientAuthenticationMethod(ClientAuthenticationMethod.CLIENT_SECRET_BASIC)
+                .authorizationGrantType(AuthorizationGrantType.PASSWORD)
+                .scope("read")
+                .build();
+    }
+
+    private static String repeat(String value, int count) {
+        StringBuilder builder = new StringBuilder(value.length() * count);
+        for (int i = 0; i < count; i++) {
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+}
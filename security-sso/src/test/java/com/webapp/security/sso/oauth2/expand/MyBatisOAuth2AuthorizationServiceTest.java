@@ -0,0 +1,304 @@
+package com.webapp.security.sso.oauth2.expand;
+
+import com.webapp.security.sso.oauth2.mapper.OAuth2AuthorizationMapper;
+import com.webapp.security.sso.oauth2.service.OAuth2Service;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.client.InMemoryRegisteredClientRepository;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 授权记录保存测试
+ * 使用内存Mapper模拟oauth2_authorization表的主键、授权码和令牌摘要唯一键，以及INSERT ... ON DUPLICATE KEY UPDATE的语义
+ */
+public class MyBatisOAuth2AuthorizationServiceTest {
+
+    private RegisteredClient registeredClient;
+    private InMemoryAuthorizationTable table;
+    private MyBatisOAuth2AuthorizationService authorizationService;
+
+    @BeforeEach
+    public void setUp() {
+        registeredClient = RegisteredClient.withId("client-1")
+                .clientId("webapp")
+                .clientSecret("{noop}secret")
+                .clientAuthenticationMethod(ClientAuthenticationMethod.CLIENT_SECRET_BASIC)
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .authorizationGrantType(AuthorizationGrantType.REFRESH_TOKEN)
+                .redirectUri("http://localhost/callback")
+                .scope("read")
+                .build();
+        table = new InMemoryAuthorizationTable();
+        authorizationService = new MyBatisOAuth2AuthorizationService(table.mapper(),
+                new InMemoryRegisteredClientRepository(registeredClient));
+    }
+
+    /**
+     * 刷新授权码模式的授权后，新旧两条授权记录都应存在，原记录的令牌不被改写
+     */
+    @Test
+    public void testRefreshAuthorizationCodeGrantKeepsBothRows() {
+        Instant now = Instant.now();
+        OAuth2Authorization original = OAuth2Authorization.withRegisteredClient(registeredClient)
+                .id("authorization-1")
+                .principalName("user")
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .authorizedScopes(registeredClient.getScopes())
+                .token(new OAuth2AuthorizationCode("code-1", now, now.plus(Duration.ofMinutes(5))))
+                .accessToken(accessToken("access-1", now))
+                .refreshToken(new OAuth2RefreshToken("refresh-1", now, now.plus(Duration.ofDays(1))))
+                .build();
+        authorizationService.save(original);
+
+        OAuth2Authorization stored = authorizationService.findByToken("refresh-1", OAuth2TokenType.REFRESH_TOKEN);
+        assertNotNull(stored);
+        OAuth2Authorization refreshed = OAuth2Service.refreshedAuthorization(stored, registeredClient)
+                .accessToken(accessToken("access-2", now))
+                .refreshToken(new OAuth2RefreshToken("refresh-2", now, now.plus(Duration.ofDays(1))))
+                .build();
+        authorizationService.save(refreshed);
+
+        assertEquals(2, table.size(), "刷新后应同时存在新旧两条授权记录");
+
+        OAuth2Authorization originalRow = authorizationService.findById(original.getId());
+        assertNotNull(originalRow);
+        assertEquals("access-1", originalRow.getAccessToken().getToken().getTokenValue());
+        assertEquals("refresh-1", originalRow.getRefreshToken().getToken().getTokenValue());
+        assertEquals("code-1", originalRow.getToken(OAuth2AuthorizationCode.class).getToken().getTokenValue());
+
+        OAuth2Authorization refreshedRow = authorizationService.findById(refreshed.getId());
+        assertNotNull(refreshedRow, "新授权记录应能按新ID查到");
+        assertNotEquals(original.getId(), refreshedRow.getId());
+        assertEquals("access-2", refreshedRow.getAccessToken().getToken().getTokenValue());
+        assertEquals("refresh-2", refreshedRow.getRefreshToken().getToken().getTokenValue());
+        assertNull(refreshedRow.getToken(OAuth2AuthorizationCode.class), "授权码只属于原授权");
+
+        assertEquals(original.getId(),
+                authorizationService.findByToken("refresh-1", OAuth2TokenType.REFRESH_TOKEN).getId());
+        assertEquals(refreshed.getId(),
+                authorizationService.findByToken("refresh-2", OAuth2TokenType.REFRESH_TOKEN).getId());
+    }
+
+    /**
+     * 再次保存同一授权时只更新携带的令牌，未携带的令牌和创建后不变的列保留原值
+     */
+    @Test
+    public void testSaveExistingAuthorizationUpdatesCarriedTokensOnly() {
+        Instant now = Instant.now();
+        OAuth2Authorization authorization = OAuth2Authorization.withRegisteredClient(registeredClient)
+                .id("authorization-1")
+                .principalName("user")
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .token(new OAuth2AuthorizationCode("code-1", now, now.plus(Duration.ofMinutes(5))))
+                .build();
+        authorizationService.save(authorization);
+
+        authorizationService.save(OAuth2Authorization.withRegisteredClient(registeredClient)
+                .id("authorization-1")
+                .principalName("other")
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .accessToken(accessToken("access-1", now))
+                .build());
+
+        assertEquals(1, table.size());
+        OAuth2Authorization stored = authorizationService.findById("authorization-1");
+        assertEquals("user", stored.getPrincipalName());
+        assertEquals("access-1", stored.getAccessToken().getToken().getTokenValue());
+        assertEquals("code-1", stored.getToken(OAuth2AuthorizationCode.class).getToken().getTokenValue());
+    }
+
+    /**
+     * 新增和更新授权都只执行一条语句
+     */
+    @Test
+    public void testSaveIssuesSingleStatement() {
+        Instant now = Instant.now();
+        OAuth2Authorization authorization = OAuth2Authorization.withRegisteredClient(registeredClient)
+                .id("authorization-1")
+                .principalName("user")
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .token(new OAuth2AuthorizationCode("code-1", now, now.plus(Duration.ofMinutes(5))))
+                .build();
+
+        authorizationService.save(authorization);
+        assertEquals(1, table.statements());
+
+        authorizationService.save(OAuth2Authorization.from(authorization)
+                .accessToken(accessToken("access-1", now))
+                .build());
+        assertEquals(2, table.statements());
+    }
+
+    private static OAuth2AccessToken accessToken(String value, Instant issuedAt) {
+        return new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, value, issuedAt,
+                issuedAt.plus(Duration.ofHours(1)));
+    }
+
+    /**
+     * 内存中的oauth2_authorization表，只实现保存与查询用到的Mapper方法
+     */
+    private static final class InMemoryAuthorizationTable {
+
+        private final Map<String, com.webapp.security.sso.oauth2.entity.OAuth2Authorization> rows =
+                new LinkedHashMap<>();
+
+        private int statements;
+
+        int size() {
+            return rows.size();
+        }
+
+        int statements() {
+            return statements;
+        }
+
+        OAuth2AuthorizationMapper mapper() {
+            return (OAuth2AuthorizationMapper) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] { OAuth2AuthorizationMapper.class }, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "selectById":
+                                return copy(rows.get((String) args[0]));
+                            case "upsert":
+                                statements++;
+                                return upsert((com.webapp.security.sso.oauth2.entity.OAuth2Authorization) args[0]);
+                            case "deleteById":
+                                return rows.remove(String.valueOf(args[0])) != null ? 1 : 0;
+                            case "findByAccessTokenHash":
+                                return findBy(com.webapp.security.sso.oauth2.entity.OAuth2Authorization::getAccessTokenHash,
+                                        (String) args[0]);
+                            case "findByRefreshTokenHash":
+                                return findBy(com.webapp.security.sso.oauth2.entity.OAuth2Authorization::getRefreshTokenHash,
+                                        (String) args[0]);
+                            case "findByAuthorizationCodeHash":
+                                return findBy(
+                                        com.webapp.security.sso.oauth2.entity.OAuth2Authorization::getAuthorizationCodeHash,
+                                        (String) args[0]);
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+        }
+
+        /**
+         * 与MySQL一致：主键或任一唯一键冲突时更新冲突的那条记录，否则插入
+         */
+        private int upsert(com.webapp.security.sso.oauth2.entity.OAuth2Authorization entity) {
+            com.webapp.security.sso.oauth2.entity.OAuth2Authorization existing = rows.values().stream()
+                    .filter(row -> row.getId().equals(entity.getId())
+                            || conflicts(row.getAuthorizationCodeHash(), entity.getAuthorizationCodeHash())
+                            || conflicts(row.getAccessTokenHash(), entity.getAccessTokenHash())
+                            || conflicts(row.getRefreshTokenHash(), entity.getRefreshTokenHash()))
+                    .findFirst()
+                    .orElse(null);
+            if (existing == null) {
+                rows.put(entity.getId(), copy(entity));
+                return 1;
+            }
+            // 与upsert的ON DUPLICATE KEY UPDATE子句一致：只更新可变列和携带的令牌分组
+            for (Field field : fields()) {
+                String name = field.getName();
+                if (IMMUTABLE_COLUMNS.contains(name)) {
+                    continue;
+                }
+                String group = TOKEN_GROUPS.stream().filter(name::startsWith).findFirst().orElse(null);
+                Object value = group != null ? read(field(group + "Value"), entity) : read(field, entity);
+                if (value != null) {
+                    write(field, existing, read(field, entity));
+                }
+            }
+            return 2;
+        }
+
+        private static boolean conflicts(String existing, String value) {
+            return value != null && Objects.equals(existing, value);
+        }
+
+        private com.webapp.security.sso.oauth2.entity.OAuth2Authorization findBy(
+                Function<com.webapp.security.sso.oauth2.entity.OAuth2Authorization, String> column, String value) {
+            return rows.values().stream()
+                    .filter(row -> value.equals(column.apply(row)))
+                    .findFirst()
+                    .map(InMemoryAuthorizationTable::copy)
+                    .orElse(null);
+        }
+
+        private static com.webapp.security.sso.oauth2.entity.OAuth2Authorization copy(
+                com.webapp.security.sso.oauth2.entity.OAuth2Authorization source) {
+            if (source == null) {
+                return null;
+            }
+            com.webapp.security.sso.oauth2.entity.OAuth2Authorization target =
+                    new com.webapp.security.sso.oauth2.entity.OAuth2Authorization();
+            for (Field field : fields()) {
+                write(field, target, read(field, source));
+            }
+            return target;
+        }
+
+        private static final List<String> IMMUTABLE_COLUMNS = Arrays.asList("id",
+                "registeredClientId", "principalName", "authorizationGrantType");
+        private static final List<String> TOKEN_GROUPS = Arrays.asList("authorizationCode",
+                "accessToken", "oidcIdToken", "refreshToken");
+
+        private static Field field(String name) {
+            for (Field field : fields()) {
+                if (field.getName().equals(name)) {
+                    return field;
+                }
+            }
+            throw new IllegalArgumentException(name);
+        }
+
+        private static Iterable<Field> fields() {
+            List<Field> fields = new ArrayList<>();
+            for (Field field : com.webapp.security.sso.oauth2.entity.OAuth2Authorization.class.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    field.setAccessible(true);
+                    fields.add(field);
+                }
+            }
+            return fields;
+        }
+
+        private static Object read(Field field, Object target) {
+            try {
+                return field.get(target);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private static void write(Field field, Object target, Object value) {
+            try {
+                field.set(target, value);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
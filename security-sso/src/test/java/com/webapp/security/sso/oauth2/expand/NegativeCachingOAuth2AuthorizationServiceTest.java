@@ -0,0 +1,315 @@
+package com.webapp.security.sso.oauth2.expand;
+
+import com.webapp.security.sso.config.AuthorizationNegativeCacheProperties;
+import com.webapp.security.sso.oauth2.mapper.OAuth2AuthorizationMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.server.authorization.InMemoryOAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.webapp.security.sso.oauth2.expand.OAuth2AuthorizationConverter.hashToken;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 无效令牌负缓存测试
+ * 使用内存实现的Redis位图与字符串键，验证布隆过滤器的位偏移、分代检查与就绪状态处理
+ */
+public class NegativeCachingOAuth2AuthorizationServiceTest {
+
+    private static final String PREFIX = "test:";
+
+    private final RegisteredClient registeredClient = RegisteredClient.withId("client-1")
+            .clientId("webapp")
+            .clientSecret("{noop}secret")
+            .clientAuthenticationMethod(ClientAuthenticationMethod.CLIENT_SECRET_BASIC)
+            .authorizationGrantType(AuthorizationGrantType.PASSWORD)
+            .build();
+
+    private AuthorizationNegativeCacheProperties properties;
+    private InMemoryRedis redis;
+    private AtomicInteger delegateLookups;
+    private OAuth2AuthorizationService delegate;
+    private NegativeCachingOAuth2AuthorizationService authorizationService;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new AuthorizationNegativeCacheProperties();
+        properties.setBitSize(1 << 16);
+        properties.setHashFunctions(5);
+        properties.setGeneration(Duration.ofHours(1));
+        properties.setKeyPrefix(PREFIX);
+        redis = new InMemoryRedis();
+        delegateLookups = new AtomicInteger();
+        InMemoryOAuth2AuthorizationService store = new InMemoryOAuth2AuthorizationService();
+        delegate = new OAuth2AuthorizationService() {
+            @Override
+            public void save(OAuth2Authorization authorization) {
+                store.save(authorization);
+            }
+
+            @Override
+            public void remove(OAuth2Authorization authorization) {
+                store.remove(authorization);
+            }
+
+            @Override
+            public OAuth2Authorization findById(String id) {
+                return store.findById(id);
+            }
+
+            @Override
+            public OAuth2Authorization findByToken(String token, OAuth2TokenType tokenType) {
+                delegateLookups.incrementAndGet();
+                return store.findByToken(token, tokenType);
+            }
+        };
+        OAuth2AuthorizationMapper mapper = (OAuth2AuthorizationMapper) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[] { OAuth2AuthorizationMapper.class },
+                (proxy, method, args) -> {
+                    if ("selectActiveAccessTokenHashes".equals(method.getName())) {
+                        return Collections.emptyList();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        authorizationService = new NegativeCachingOAuth2AuthorizationService(delegate, mapper, redis, properties);
+    }
+
+    /**
+     * 测试位偏移：个数等于哈希函数数、落在位图范围内、对同一摘要稳定，且相邻偏移等差（双重哈希）
+     */
+    @Test
+    public void testOffsetsUseDoubleHashing() {
+        String digest = hashToken("token-1");
+        long[] offsets = authorizationService.offsets(digest);
+
+        assertEquals(properties.getHashFunctions(), offsets.length);
+        for (long offset : offsets) {
+            assertTrue(offset >= 0 && offset < properties.getBitSize());
+        }
+        assertArrayEquals(offsets, authorizationService.offsets(digest));
+        long step = Math.floorMod(offsets[1] - offsets[0], properties.getBitSize());
+        for (int i = 2; i < offsets.length; i++) {
+            assertEquals(step, Math.floorMod(offsets[i] - offsets[i - 1], properties.getBitSize()));
+        }
+        assertFalse(Arrays.equals(offsets, authorizationService.offsets(hashToken("token-2"))));
+    }
+
+    /**
+     * 测试分代按签发时间落入固定跨度的时间窗口
+     */
+    @Test
+    public void testGenerationOf() {
+        Instant start = Instant.ofEpochSecond(100 * 3600L);
+
+        assertEquals(100, authorizationService.generationOf(start));
+        assertEquals(100, authorizationService.generationOf(start.plusSeconds(3599)));
+        assertEquals(101, authorizationService.generationOf(start.plusSeconds(3600)));
+        assertEquals(99, authorizationService.generationOf(start.minusSeconds(1)));
+    }
+
+    /**
+     * 测试过滤器就绪后，已签发令牌交给被装饰的服务查询，未签发的令牌直接返回null
+     */
+    @Test
+    public void testUnknownTokenIsRejectedWithoutLookup() {
+        redis.values.put(PREFIX + "bloom:ready", "1");
+        authorizationService.save(authorization("issued", Instant.now()));
+
+        assertNotNull(authorizationService.findByToken("issued", OAuth2TokenType.ACCESS_TOKEN));
+        assertEquals(1, delegateLookups.get());
+
+        assertNull(authorizationService.findByToken("never-issued", OAuth2TokenType.ACCESS_TOKEN));
+        assertNull(authorizationService.findViewByToken("never-issued", OAuth2TokenType.ACCESS_TOKEN));
+        assertEquals(1, delegateLookups.get());
+    }
+
+    /**
+     * 测试查询检查当前代和上一代，更早代签发的令牌视为无效
+     */
+    @Test
+    public void testOnlyCurrentAndPreviousGenerationsAreChecked() {
+        redis.values.put(PREFIX + "bloom:ready", "1");
+        Instant now = Instant.now();
+        authorizationService.save(authorization("previous", now.minus(properties.getGeneration())));
+        authorizationService.save(authorization("older", now.minus(properties.getGeneration().multipliedBy(2))));
+
+        assertTrue(redis.bits.containsKey(PREFIX + "bloom:" + (authorizationService.generationOf(now) - 1)));
+        assertTrue(redis.bits.containsKey(PREFIX + "bloom:" + (authorizationService.generationOf(now) - 2)));
+        assertNotNull(authorizationService.findByToken("previous", OAuth2TokenType.ACCESS_TOKEN));
+        assertNull(authorizationService.findByToken("older", OAuth2TokenType.ACCESS_TOKEN));
+        assertEquals(1, delegateLookups.get());
+    }
+
+    /**
+     * 测试移除后的令牌记为已知无效，重新保存时清除无效标记
+     */
+    @Test
+    public void testRemovedTokenIsMarkedInvalid() {
+        redis.values.put(PREFIX + "bloom:ready", "1");
+        OAuth2Authorization authorization = authorization("removed", Instant.now());
+        authorizationService.save(authorization);
+        authorizationService.remove(authorization);
+
+        assertTrue(redis.values.containsKey(PREFIX + "invalid:" + hashToken("removed")));
+        assertNull(authorizationService.findByToken("removed", OAuth2TokenType.ACCESS_TOKEN));
+        assertEquals(0, delegateLookups.get());
+
+        authorizationService.save(authorization);
+        assertNotNull(authorizationService.findByToken("removed", OAuth2TokenType.ACCESS_TOKEN));
+    }
+
+    /**
+     * 测试过滤器未就绪时不拦截并在后台重建；查库未找到的令牌记为已知无效
+     */
+    @Test
+    public void testNotReadyFilterFallsBackAndRebuilds() throws InterruptedException {
+        assertNull(authorizationService.findByToken("unknown", OAuth2TokenType.ACCESS_TOKEN));
+        assertEquals(1, delegateLookups.get());
+
+        assertNull(authorizationService.findByToken("unknown", OAuth2TokenType.ACCESS_TOKEN));
+        assertEquals(1, delegateLookups.get());
+
+        for (int i = 0; i < 100 && (!redis.values.containsKey(PREFIX + "bloom:ready")
+                || redis.values.containsKey(PREFIX + "bloom:rebuild-lock")); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(redis.values.containsKey(PREFIX + "bloom:ready"));
+        assertFalse(redis.values.containsKey(PREFIX + "bloom:rebuild-lock"));
+    }
+
+    /**
+     * 测试Redis不可用时不拦截，回退到查库
+     */
+    @Test
+    public void testRedisFailureFallsBackToLookup() {
+        redis.failing = true;
+        authorizationService.save(authorization("issued", Instant.now()));
+
+        assertNotNull(authorizationService.findByToken("issued", OAuth2TokenType.ACCESS_TOKEN));
+        assertNull(authorizationService.findByToken("never-issued", OAuth2TokenType.ACCESS_TOKEN));
+        assertEquals(2, delegateLookups.get());
+    }
+
+    private OAuth2Authorization authorization(String tokenValue, Instant issuedAt) {
+        return OAuth2Authorization.withRegisteredClient(registeredClient)
+                .id("authorization-" + tokenValue)
+                .principalName("user")
+                .authorizationGrantType(AuthorizationGrantType.PASSWORD)
+                .accessToken(new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, tokenValue, issuedAt,
+                        Instant.now().plus(Duration.ofHours(1))))
+                .build();
+    }
+
+    /**
+     * 只实现负缓存用到的命令：字符串GET/SET/PSETEX/DEL、位图GETBIT/SETBIT、PEXPIRE及管道
+     */
+    private static final class InMemoryRedis extends StringRedisTemplate {
+        private final Map<String, String> values = new ConcurrentHashMap<>();
+        private final Map<String, BitSet> bits = new ConcurrentHashMap<>();
+        private volatile boolean failing;
+
+        @Override
+        public List<Object> executePipelined(RedisCallback<?> action) {
+            checkAvailable();
+            List<Object> results = new ArrayList<>();
+            StringRedisConnection connection = (StringRedisConnection) Proxy.newProxyInstance(
+                    getClass().getClassLoader(), new Class<?>[] { StringRedisConnection.class },
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "get":
+                                results.add(values.get((String) args[0]));
+                                break;
+                            case "getBit":
+                                results.add(bitSet((String) args[0]).get(Math.toIntExact((Long) args[1])));
+                                break;
+                            case "setBit": {
+                                BitSet bitSet = bitSet((String) args[0]);
+                                int offset = Math.toIntExact((Long) args[1]);
+                                results.add(bitSet.get(offset));
+                                bitSet.set(offset, (Boolean) args[2]);
+                                break;
+                            }
+                            case "pSetEx":
+                                values.put((String) args[0], (String) args[2]);
+                                results.add(Boolean.TRUE);
+                                break;
+                            case "pExpire":
+                                results.add(Boolean.TRUE);
+                                break;
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                        return null;
+                    });
+            action.doInRedis(connection);
+            return results;
+        }
+
+        @Override
+        public Boolean hasKey(String key) {
+            checkAvailable();
+            return values.containsKey(key);
+        }
+
+        @Override
+        public Boolean delete(String key) {
+            checkAvailable();
+            return values.remove(key) != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public ValueOperations<String, String> opsForValue() {
+            checkAvailable();
+            return (ValueOperations<String, String>) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] { ValueOperations.class }, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "setIfAbsent":
+                                return values.putIfAbsent((String) args[0], (String) args[1]) == null;
+                            case "set":
+                                values.put((String) args[0], (String) args[1]);
+                                return null;
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+        }
+
+        private BitSet bitSet(String key) {
+            return bits.computeIfAbsent(key, k -> new BitSet());
+        }
+
+        private void checkAvailable() {
+            if (failing) {
+                throw new IllegalStateException("redis unavailable");
+            }
+        }
+    }
+}